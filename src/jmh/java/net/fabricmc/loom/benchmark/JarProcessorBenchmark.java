@@ -0,0 +1,133 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.io.FileUtils;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.configuration.processors.ClassVisitorJarProcessor;
+import net.fabricmc.loom.util.Constants;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JarProcessorBenchmark {
+	@Param({"100", "2000"})
+	public int classCount;
+
+	/**
+	 * The share of classes targeted by the processor, in percent.
+	 */
+	@Param({"10", "100"})
+	public int targetPercent;
+
+	private Path tempDir;
+	private Path jar;
+	private Path workJar;
+	private WideningProcessor processor;
+
+	@Setup
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		jar = tempDir.resolve("input.jar");
+		workJar = tempDir.resolve("work.jar");
+		SyntheticFixtures.writeJar(jar, classCount);
+
+		int targets = classCount * targetPercent / 100;
+		processor = new WideningProcessor(IntStream.range(0, targets).mapToObj(SyntheticFixtures::officialClass).collect(Collectors.toSet()));
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() throws IOException {
+		Files.copy(jar, workJar, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public Path processClasses() {
+		processor.process(workJar.toFile());
+		return workJar;
+	}
+
+	/**
+	 * Makes every field of the targeted classes public, similar to what an access widener does.
+	 */
+	private record WideningProcessor(Set<String> targets) implements ClassVisitorJarProcessor {
+		@Override
+		public String getId() {
+			return "loom:benchmark_widening";
+		}
+
+		@Override
+		public void setup() {
+		}
+
+		@Override
+		public Set<String> getTargetClasses() {
+			return targets;
+		}
+
+		@Override
+		public ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+			return new ClassVisitor(Constants.ASM_VERSION, next) {
+				@Override
+				public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+					return super.visitField((access & ~(Opcodes.ACC_PRIVATE | Opcodes.ACC_PROTECTED)) | Opcodes.ACC_PUBLIC, name, descriptor, signature, value);
+				}
+			};
+		}
+	}
+}
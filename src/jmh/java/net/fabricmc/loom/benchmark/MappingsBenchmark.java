@@ -0,0 +1,159 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import dev.architectury.tinyremapper.IMappingProvider;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.fabricmc.loom.api.mappings.layered.MappingLayer;
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingSpec;
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsProcessor;
+import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.srg.SrgMerger;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappingsBenchmark {
+	@Param({"1000", "10000"})
+	public int classCount;
+
+	private Path tempDir;
+	private Path tiny;
+	private Path tsrg;
+	private MemoryMappingTree mappings;
+	private List<MappingLayer> layers;
+
+	@Setup
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		tiny = tempDir.resolve("mappings.tiny");
+		tsrg = tempDir.resolve("joined.tsrg");
+
+		mappings = SyntheticFixtures.createMappings(classCount);
+		SyntheticFixtures.writeTiny(tiny, mappings);
+		SyntheticFixtures.writeTsrg(tsrg, classCount);
+
+		layers = List.of(
+				new TreeLayer(SyntheticFixtures.createLayer(classCount, true)),
+				new TreeLayer(SyntheticFixtures.createLayer(classCount, false))
+		);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public MemoryMappingTree readTiny() throws IOException {
+		MemoryMappingTree tree = new MemoryMappingTree();
+		MappingReader.read(tiny, tree);
+		return tree;
+	}
+
+	@Benchmark
+	public void loadMappingProvider(Blackhole blackhole) {
+		IMappingProvider provider = TinyRemapperHelper.create(mappings, MappingsNamespace.OFFICIAL.toString(), MappingsNamespace.NAMED.toString(), true);
+		provider.load(new BlackholeAcceptor(blackhole));
+	}
+
+	@Benchmark
+	public Path mergeSrg() throws IOException {
+		Path output = tempDir.resolve("merged.tiny");
+		SrgMerger.mergeSrg(tsrg, tiny, output, null, true);
+		return output;
+	}
+
+	@Benchmark
+	public MemoryMappingTree layeredMappings() throws IOException {
+		return new LayeredMappingsProcessor(new LayeredMappingSpec(List.of())).getMappings(layers);
+	}
+
+	private record TreeLayer(MemoryMappingTree tree) implements MappingLayer {
+		@Override
+		public void visit(MappingVisitor mappingVisitor) throws IOException {
+			tree.accept(mappingVisitor);
+		}
+
+		@Override
+		public MappingsNamespace getSourceNamespace() {
+			return MappingsNamespace.INTERMEDIARY;
+		}
+	}
+
+	private record BlackholeAcceptor(Blackhole blackhole) implements IMappingProvider.MappingAcceptor {
+		@Override
+		public void acceptClass(String srcName, String dstName) {
+			blackhole.consume(dstName);
+		}
+
+		@Override
+		public void acceptMethod(IMappingProvider.Member method, String dstName) {
+			blackhole.consume(dstName);
+		}
+
+		@Override
+		public void acceptMethodArg(IMappingProvider.Member method, int lvIndex, String dstName) {
+			blackhole.consume(dstName);
+		}
+
+		@Override
+		public void acceptMethodVar(IMappingProvider.Member method, int lvIndex, int startOpIdx, int asmIndex, String dstName) {
+			blackhole.consume(dstName);
+		}
+
+		@Override
+		public void acceptField(IMappingProvider.Member field, String dstName) {
+			blackhole.consume(dstName);
+		}
+	}
+}
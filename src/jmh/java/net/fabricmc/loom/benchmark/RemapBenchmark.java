@@ -0,0 +1,155 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import dev.architectury.tinyremapper.NonClassCopyMode;
+import dev.architectury.tinyremapper.OutputConsumerPath;
+import dev.architectury.tinyremapper.TinyRemapper;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.logging.Logging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.decompilers.LineNumberRemapper;
+import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.ZipUtils;
+import net.fabricmc.loom.util.srg.AtRemapper;
+import net.fabricmc.loom.util.srg.SrgMerger;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Benchmarks the jar remapping steps. {@link #remapJar()} is the same tiny-remapper setup that mod remapping in
+ * {@code ModProcessor} uses, without needing a configured Gradle project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RemapBenchmark {
+	@Param({"100", "2000"})
+	public int classCount;
+
+	private Path tempDir;
+	private Path jar;
+	private Path unpacked;
+	private Path lineMap;
+	private MemoryMappingTree mappings;
+	private MemoryMappingTree srgMappings;
+	private Path workDir;
+
+	@Setup
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		jar = tempDir.resolve("input.jar");
+		unpacked = tempDir.resolve("unpacked");
+		lineMap = tempDir.resolve("linemap.txt");
+		SyntheticFixtures.writeJar(jar, classCount);
+		ZipUtils.unpackAll(jar, unpacked);
+		SyntheticFixtures.writeLineMap(lineMap, classCount);
+
+		mappings = SyntheticFixtures.createMappings(classCount);
+		Path tiny = tempDir.resolve("mappings.tiny");
+		Path tsrg = tempDir.resolve("joined.tsrg");
+		Path merged = tempDir.resolve("merged.tiny");
+		SyntheticFixtures.writeTiny(tiny, mappings);
+		SyntheticFixtures.writeTsrg(tsrg, classCount);
+		SrgMerger.mergeSrg(tsrg, tiny, merged, null, true);
+		srgMappings = new MemoryMappingTree();
+		MappingReader.read(merged, srgMappings);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() throws IOException {
+		workDir = Files.createTempDirectory(tempDir, "work");
+		Files.copy(jar, workDir.resolve("input.jar"), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDownInvocation() throws IOException {
+		FileUtils.deleteDirectory(workDir.toFile());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public Path remapJar() throws IOException {
+		Path input = workDir.resolve("input.jar");
+		Path output = workDir.resolve("output.jar");
+		TinyRemapper remapper = TinyRemapper.newRemapper()
+				.withMappings(TinyRemapperHelper.create(mappings, MappingsNamespace.OFFICIAL.toString(), MappingsNamespace.NAMED.toString(), true))
+				.renameInvalidLocals(false)
+				.build();
+
+		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(output).build()) {
+			outputConsumer.addNonClassFiles(input, NonClassCopyMode.FIX_META_INF, remapper);
+			remapper.readInputs(input);
+			remapper.apply(outputConsumer);
+		} finally {
+			remapper.finish();
+		}
+
+		return output;
+	}
+
+	@Benchmark
+	public Path remapAccessTransformer() throws IOException {
+		Path input = workDir.resolve("input.jar");
+		AtRemapper.remap(Logging.getLogger(RemapBenchmark.class), input, srgMappings);
+		return input;
+	}
+
+	@Benchmark
+	public Path remapLineNumbers() throws IOException {
+		Path output = workDir.resolve("linemapped");
+		LineNumberRemapper remapper = new LineNumberRemapper();
+		remapper.readMappings(lineMap.toFile());
+		remapper.process(null, unpacked, output);
+		return output;
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.format.Tiny2Writer;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Deterministic generators for the jars and mappings used by the benchmarks, so that they run offline
+ * and produce comparable numbers between runs.
+ *
+ * <p>Every class {@code i} has {@link #MEMBERS} fields and methods. Its names in each namespace are derived from {@code i},
+ * so the jars, mappings, SRG files, access transformers and line maps all agree with each other.
+ */
+public final class SyntheticFixtures {
+	public static final int MEMBERS = 8;
+	private static final long ENTRY_TIME = 318211200000L;
+
+	private SyntheticFixtures() {
+	}
+
+	public static String officialClass(int index) {
+		return "c" + index;
+	}
+
+	public static String srgClass(int index) {
+		return "net/minecraft/src/C_" + index + "_";
+	}
+
+	public static String intermediaryClass(int index) {
+		return "net/minecraft/class_" + index;
+	}
+
+	public static String namedClass(int index) {
+		return "net/minecraft/pkg" + (index % 16) + "/Class" + index;
+	}
+
+	private static int memberId(int index, int member) {
+		return index * MEMBERS + member;
+	}
+
+	public static byte[] createClass(int index) {
+		String name = officialClass(index);
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+		writer.visitSource(name + ".java", null);
+
+		for (int i = 0; i < MEMBERS; i++) {
+			writer.visitField(Opcodes.ACC_PRIVATE, "f" + i, "I", null, null).visitEnd();
+		}
+
+		MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		init.visitCode();
+		init.visitVarInsn(Opcodes.ALOAD, 0);
+		init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		init.visitInsn(Opcodes.RETURN);
+		init.visitMaxs(0, 0);
+		init.visitEnd();
+
+		for (int i = 0; i < MEMBERS; i++) {
+			MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + i, "(I)I", null, null);
+			method.visitCode();
+			Label start = new Label();
+			method.visitLabel(start);
+			method.visitLineNumber(10 + i * 3, start);
+			method.visitVarInsn(Opcodes.ALOAD, 0);
+			method.visitFieldInsn(Opcodes.GETFIELD, name, "f" + i, "I");
+			method.visitVarInsn(Opcodes.ILOAD, 1);
+			method.visitInsn(Opcodes.IADD);
+			method.visitInsn(Opcodes.IRETURN);
+			Label end = new Label();
+			method.visitLabel(end);
+			method.visitLocalVariable("this", "L" + name + ";", null, start, end, 0);
+			method.visitLocalVariable("input", "I", null, start, end, 1);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Writes a jar in the official namespace, with a {@code fabric.mod.json} and an access transformer using SRG names.
+	 */
+	public static void writeJar(Path jar, int classCount) throws IOException {
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			putEntry(zip, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+			putEntry(zip, "fabric.mod.json", "{\"schemaVersion\":1,\"id\":\"synthetic\",\"version\":\"1.0.0\"}".getBytes(StandardCharsets.UTF_8));
+
+			StringBuilder accessTransformer = new StringBuilder();
+
+			for (int i = 0; i < classCount; i++) {
+				String owner = srgClass(i).replace('/', '.');
+				accessTransformer.append("public ").append(owner).append('\n');
+				accessTransformer.append("public-f ").append(owner).append(" f_").append(memberId(i, 0)).append("_\n");
+				accessTransformer.append("public ").append(owner).append(" m_").append(memberId(i, 0)).append("_(L").append(srgClass(i)).append(";)V\n");
+			}
+
+			putEntry(zip, Constants.Forge.ACCESS_TRANSFORMER_PATH, accessTransformer.toString().getBytes(StandardCharsets.UTF_8));
+
+			for (int i = 0; i < classCount; i++) {
+				putEntry(zip, officialClass(i) + ".class", createClass(i));
+			}
+		}
+	}
+
+	private static void putEntry(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setTime(ENTRY_TIME);
+		zip.putNextEntry(entry);
+		zip.write(bytes);
+		zip.closeEntry();
+	}
+
+	/**
+	 * Creates {@code official -> intermediary, named} mappings for the classes written by {@link #writeJar(Path, int)}.
+	 */
+	public static MemoryMappingTree createMappings(int classCount) throws IOException {
+		MemoryMappingTree tree = new MemoryMappingTree();
+		tree.visitHeader();
+		tree.visitNamespaces(MappingsNamespace.OFFICIAL.toString(), List.of(MappingsNamespace.INTERMEDIARY.toString(), MappingsNamespace.NAMED.toString()));
+		tree.visitContent();
+
+		for (int i = 0; i < classCount; i++) {
+			tree.visitClass(officialClass(i));
+			tree.visitDstName(MappedElementKind.CLASS, 0, intermediaryClass(i));
+			tree.visitDstName(MappedElementKind.CLASS, 1, namedClass(i));
+
+			for (int j = 0; j < MEMBERS; j++) {
+				int id = memberId(i, j);
+				tree.visitField("f" + j, "I");
+				tree.visitDstName(MappedElementKind.FIELD, 0, "field_" + id);
+				tree.visitDstName(MappedElementKind.FIELD, 1, "value" + id);
+				tree.visitMethod("m" + j, "(I)I");
+				tree.visitDstName(MappedElementKind.METHOD, 0, "method_" + id);
+				tree.visitDstName(MappedElementKind.METHOD, 1, "compute" + id);
+				tree.visitMethodArg(0, 1, null);
+				tree.visitDstName(MappedElementKind.METHOD_ARG, 1, "input");
+			}
+		}
+
+		tree.visitEnd();
+		return tree;
+	}
+
+	/**
+	 * Creates a single layer of {@code intermediary -> ...} mappings, as produced by the intermediary and named layers of
+	 * the layered mappings.
+	 *
+	 * @param base whether this is the base layer, which maps to {@code official} and fills {@code named} with the intermediary names
+	 */
+	public static MemoryMappingTree createLayer(int classCount, boolean base) throws IOException {
+		MemoryMappingTree tree = new MemoryMappingTree();
+		tree.visitHeader();
+		tree.visitNamespaces(MappingsNamespace.INTERMEDIARY.toString(), base
+				? List.of(MappingsNamespace.OFFICIAL.toString(), MappingsNamespace.NAMED.toString())
+				: List.of(MappingsNamespace.NAMED.toString()));
+		tree.visitContent();
+
+		for (int i = 0; i < classCount; i++) {
+			tree.visitClass(intermediaryClass(i));
+
+			if (base) {
+				tree.visitDstName(MappedElementKind.CLASS, 0, officialClass(i));
+				tree.visitDstName(MappedElementKind.CLASS, 1, intermediaryClass(i));
+			} else {
+				tree.visitDstName(MappedElementKind.CLASS, 0, namedClass(i));
+			}
+
+			for (int j = 0; j < MEMBERS; j++) {
+				int id = memberId(i, j);
+				tree.visitField("field_" + id, "I");
+
+				if (base) {
+					tree.visitDstName(MappedElementKind.FIELD, 0, "f" + j);
+					tree.visitDstName(MappedElementKind.FIELD, 1, "field_" + id);
+				} else {
+					tree.visitDstName(MappedElementKind.FIELD, 0, "value" + id);
+				}
+
+				tree.visitMethod("method_" + id, "(I)I");
+
+				if (base) {
+					tree.visitDstName(MappedElementKind.METHOD, 0, "m" + j);
+					tree.visitDstName(MappedElementKind.METHOD, 1, "method_" + id);
+				} else {
+					tree.visitDstName(MappedElementKind.METHOD, 0, "compute" + id);
+				}
+			}
+		}
+
+		tree.visitEnd();
+		return tree;
+	}
+
+	public static void writeTiny(Path path, MemoryMappingTree tree) throws IOException {
+		try (Tiny2Writer writer = new Tiny2Writer(Files.newBufferedWriter(path, StandardCharsets.UTF_8), false)) {
+			tree.accept(writer);
+		}
+	}
+
+	/**
+	 * Writes MCPConfig style TSRG (v1) mappings from {@code official} to SRG names.
+	 */
+	public static void writeTsrg(Path path, int classCount) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < classCount; i++) {
+				writer.write(officialClass(i) + " " + srgClass(i) + "\n");
+
+				for (int j = 0; j < MEMBERS; j++) {
+					int id = memberId(i, j);
+					writer.write("\tf" + j + " f_" + id + "_\n");
+					writer.write("\tm" + j + " (I)I m_" + id + "_\n");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a decompiler line map that shifts every line of every class.
+	 */
+	public static void writeLineMap(Path path, int classCount) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			int maxLine = 10 + MEMBERS * 3;
+
+			for (int i = 0; i < classCount; i++) {
+				writer.write(officialClass(i) + "\t" + maxLine + "\t" + (maxLine + 5) + "\n");
+
+				for (int j = 0; j < MEMBERS; j++) {
+					int line = 10 + j * 3;
+					writer.write("\t" + line + "\t" + (line + 5) + "\n");
+				}
+			}
+		}
+	}
+}
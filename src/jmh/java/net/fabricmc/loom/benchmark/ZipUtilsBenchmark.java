@@ -0,0 +1,114 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonObject;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.util.ZipUtils;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZipUtilsBenchmark {
+	@Param({"100", "2000"})
+	public int classCount;
+
+	private Path tempDir;
+	private Path jar;
+	private Path unpacked;
+	private Path output;
+
+	@Setup
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		jar = tempDir.resolve("input.jar");
+		unpacked = tempDir.resolve("unpacked");
+		SyntheticFixtures.writeJar(jar, classCount);
+		ZipUtils.unpackAll(jar, unpacked);
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() throws IOException {
+		output = Files.createTempDirectory(tempDir, "output");
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDownInvocation() throws IOException {
+		FileUtils.deleteDirectory(output.toFile());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(tempDir.toFile());
+	}
+
+	@Benchmark
+	public void unpackAll() throws IOException {
+		ZipUtils.unpackAll(jar, output.resolve("unpacked"));
+	}
+
+	@Benchmark
+	public void pack() throws IOException {
+		ZipUtils.pack(unpacked, output.resolve("packed.jar"));
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return ZipUtils.contains(jar, "fabric.mod.json");
+	}
+
+	@Benchmark
+	public int transformClass() throws IOException {
+		return ZipUtils.transform(jar, Map.of(SyntheticFixtures.officialClass(0) + ".class", bytes -> bytes));
+	}
+
+	@Benchmark
+	public int transformJson() throws IOException {
+		return ZipUtils.transformJson(JsonObject.class, jar, Map.of("fabric.mod.json", json -> json));
+	}
+}
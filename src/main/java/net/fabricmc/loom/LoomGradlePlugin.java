@@ -48,7 +48,9 @@ import net.fabricmc.loom.decompilers.DecompilerConfiguration;
 import net.fabricmc.loom.extension.LoomFiles;
 import net.fabricmc.loom.extension.LoomGradleExtensionImpl;
 import net.fabricmc.loom.task.LoomTasks;
+import net.fabricmc.loom.util.FileFingerprintService;
 import net.fabricmc.loom.util.LibraryLocationLogger;
+import net.fabricmc.loom.util.LoomCacheBundle;
 
 public class LoomGradlePlugin implements BootstrappedPlugin {
 	public static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
@@ -83,6 +85,8 @@ public class LoomGradlePlugin implements BootstrappedPlugin {
 		// Setup extensions
 		project.getExtensions().create(LoomGradleExtensionAPI.class, "loom", LoomGradleExtensionImpl.class, project, LoomFiles.create(project));
 		project.getExtensions().create("fabricApi", FabricApiExtension.class, project);
+		FileFingerprintService.setup(project);
+		LoomCacheBundle.importIfRequested(project);
 
 		CompileConfiguration.setupConfigurations(project);
 		IdeConfiguration.setup(project);
@@ -26,27 +26,41 @@ package net.fabricmc.loom.build.nesting;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
 
 import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.build.nesting.IncludedJarFactory.NestedFile;
 import net.fabricmc.loom.util.ModPlatform;
 import net.fabricmc.loom.util.ModUtils;
-import net.fabricmc.loom.util.Pair;
-import net.fabricmc.loom.util.ZipUtils;
 
 public class JarNester {
+	/**
+	 * The nested jars are already compressed, so they are stored as is, which also lets the loaders read them without
+	 * inflating them first. New entries are buffered in temp files rather than on the heap.
+	 *
+	 * <p>This also stores the rewritten metadata, {@code fabric.mod.json}, {@code quilt.mod.json} or the jarjar
+	 * {@code metadata.json}, without compression. That is intended: zipfs only allows one compression method per file
+	 * system, these files are a few kilobytes at most, and deflating them would take a second pass over the whole jar.
+	 */
+	private static final Map<String, Object> ZIP_FS_ENV = Map.of(
+			"noCompression", true,
+			"useTempFile", true
+	);
+
 	public static void nestJars(Collection<File> jars, List<NestedFile> forgeJars, File modJar, ModPlatform platform, Logger logger) {
 		if (jars.isEmpty()) {
 			logger.debug("Nothing to nest into " + modJar.getName());
@@ -55,93 +69,102 @@ public class JarNester {
 
 		Preconditions.checkArgument(ModUtils.isMod(modJar, platform), "Cannot nest jars into none mod jar " + modJar.getName());
 
-		try {
-			ZipUtils.add(modJar.toPath(), jars.stream().map(file -> {
-				try {
-					return new Pair<>("META-INF/jars/" + file.getName(), Files.readAllBytes(file.toPath()));
-				} catch (IOException e) {
-					throw new UncheckedIOException(e);
-				}
-			}).collect(Collectors.toList()));
+		// The nested jars and the metadata are written in a single pass, when the file system is closed.
+		// The existing entries are copied without being recompressed.
+		try (FileSystem fs = FileSystems.newFileSystem(modJar.toPath(), ZIP_FS_ENV)) {
+			Files.createDirectories(fs.getPath("META-INF/jars"));
+
+			for (File file : jars) {
+				Files.copy(file.toPath(), fs.getPath("META-INF/jars/" + file.getName()), StandardCopyOption.REPLACE_EXISTING);
+			}
 
 			if (platform == ModPlatform.FORGE) {
-				handleForgeJarJar(forgeJars, modJar, logger);
+				handleForgeJarJar(forgeJars, fs, modJar, logger);
 				return;
 			}
 
-			int count = ZipUtils.transformJson(JsonObject.class, modJar.toPath(), Stream.of(platform == ModPlatform.FABRIC ? new Pair<>("fabric.mod.json", json -> {
-				JsonArray nestedJars = json.getAsJsonArray("jars");
+			final Path metadataPath = fs.getPath(platform == ModPlatform.FABRIC ? "fabric.mod.json" : "quilt.mod.json");
+			Preconditions.checkState(Files.exists(metadataPath), "Failed to transform fabric.mod.json");
 
-				if (nestedJars == null || !json.has("jars")) {
-					nestedJars = new JsonArray();
-				}
+			final JsonObject json = LoomGradlePlugin.GSON.fromJson(Files.readString(metadataPath), JsonObject.class);
 
-				for (File file : jars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(ModUtils.isMod(file, platform), "Cannot nest none mod jar: " + file.getName());
+			if (platform == ModPlatform.FABRIC) {
+				addFabricNestedJars(json, jars, modJar, platform, logger);
+			} else {
+				addQuiltNestedJars(json, jars, modJar, platform, logger);
+			}
 
-					for (JsonElement nestedJar : nestedJars) {
-						JsonObject jsonObject = nestedJar.getAsJsonObject();
+			Files.writeString(metadataPath, LoomGradlePlugin.GSON.toJson(json, JsonObject.class));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+		}
+	}
 
-						if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
-							throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
-						}
-					}
+	private static void addFabricNestedJars(JsonObject json, Collection<File> jars, File modJar, ModPlatform platform, Logger logger) {
+		JsonArray nestedJars = json.getAsJsonArray("jars");
 
-					JsonObject jsonObject = new JsonObject();
-					jsonObject.addProperty("file", nestedJarPath);
-					nestedJars.add(jsonObject);
+		if (nestedJars == null || !json.has("jars")) {
+			nestedJars = new JsonArray();
+		}
+
+		for (File file : jars) {
+			String nestedJarPath = "META-INF/jars/" + file.getName();
+			Preconditions.checkArgument(ModUtils.isMod(file, platform), "Cannot nest none mod jar: " + file.getName());
+
+			for (JsonElement nestedJar : nestedJars) {
+				JsonObject jsonObject = nestedJar.getAsJsonObject();
 
-					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
+				if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
+					throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
 				}
+			}
 
-				json.add("jars", nestedJars);
+			JsonObject jsonObject = new JsonObject();
+			jsonObject.addProperty("file", nestedJarPath);
+			nestedJars.add(jsonObject);
 
-				return json;
-			}) : platform == ModPlatform.QUILT ? new Pair<>("quilt.mod.json", json -> {
-				JsonObject loader;
+			logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
+		}
 
-				if (json.has("quilt_loader")) {
-					loader = json.getAsJsonObject("quilt_loader");
-				} else {
-					json.add("quilt_loader", loader = new JsonObject());
-				}
+		json.add("jars", nestedJars);
+	}
 
-				JsonArray nestedJars = loader.getAsJsonArray("jars");
+	private static void addQuiltNestedJars(JsonObject json, Collection<File> jars, File modJar, ModPlatform platform, Logger logger) {
+		JsonObject loader;
 
-				if (nestedJars == null || !loader.has("jars")) {
-					nestedJars = new JsonArray();
-				}
+		if (json.has("quilt_loader")) {
+			loader = json.getAsJsonObject("quilt_loader");
+		} else {
+			json.add("quilt_loader", loader = new JsonObject());
+		}
 
-				for (File file : jars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(ModUtils.isMod(file, platform), "Cannot nest none mod jar: " + file.getName());
+		JsonArray nestedJars = loader.getAsJsonArray("jars");
 
-					for (JsonElement nestedJar : nestedJars) {
-						String nestedJarString = nestedJar.getAsString();
+		if (nestedJars == null || !loader.has("jars")) {
+			nestedJars = new JsonArray();
+		}
 
-						if (nestedJarPath.equals(nestedJarString)) {
-							throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarString);
-						}
-					}
+		for (File file : jars) {
+			String nestedJarPath = "META-INF/jars/" + file.getName();
+			Preconditions.checkArgument(ModUtils.isMod(file, platform), "Cannot nest none mod jar: " + file.getName());
 
-					nestedJars.add(nestedJarPath);
+			for (JsonElement nestedJar : nestedJars) {
+				String nestedJarString = nestedJar.getAsString();
 
-					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
+				if (nestedJarPath.equals(nestedJarString)) {
+					throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarString);
 				}
+			}
 
-				loader.add("jars", nestedJars);
-
-				return json;
-			}) : null));
+			nestedJars.add(nestedJarPath);
 
-			Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
-		} catch (IOException e) {
-			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+			logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
 		}
+
+		loader.add("jars", nestedJars);
 	}
 
-	private static void handleForgeJarJar(List<NestedFile> forgeJars, File modJar, Logger logger) throws IOException {
+	private static void handleForgeJarJar(List<NestedFile> forgeJars, FileSystem fs, File modJar, Logger logger) throws IOException {
 		JsonObject json = new JsonObject();
 		JsonArray nestedJars = new JsonArray();
 
@@ -175,6 +198,8 @@ public class JarNester {
 
 		json.add("jars", nestedJars);
 
-		ZipUtils.add(modJar.toPath(), "META-INF/jarjar/metadata.json", LoomGradlePlugin.GSON.toJson(json));
+		Path metadataPath = fs.getPath("META-INF/jarjar/metadata.json");
+		Files.createDirectories(metadataPath.getParent());
+		Files.writeString(metadataPath, LoomGradlePlugin.GSON.toJson(json));
 	}
 }
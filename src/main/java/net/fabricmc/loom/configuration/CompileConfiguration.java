@@ -79,6 +79,8 @@ import net.fabricmc.loom.util.ExceptionUtil;
 import net.fabricmc.loom.util.OperatingSystem;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 
 public final class CompileConfiguration {
 	private CompileConfiguration() {
@@ -279,28 +281,46 @@ public final class CompileConfiguration {
 			throw new UnsupportedOperationException("Using Forge with split jars is not supported!");
 		}
 
+		final BuildTracer tracer = BuildTracer.get(project);
+
 		extension.setMinecraftProvider(minecraftProvider);
-		minecraftProvider.provideFirst();
+
+		try (TraceSpan span = tracer.span("provider", "Minecraft downloads " + project.getPath())) {
+			minecraftProvider.provideFirst();
+		}
 
 		final DependencyInfo mappingsDep = DependencyInfo.create(project, Constants.Configurations.MAPPINGS);
-		final MappingsProviderImpl mappingsProvider = MappingsProviderImpl.getInstance(project, extension, mappingsDep, minecraftProvider);
+		final MappingsProviderImpl mappingsProvider;
+
+		try (TraceSpan span = tracer.span("provider", "Mappings " + project.getPath())) {
+			mappingsProvider = MappingsProviderImpl.getInstance(project, extension, mappingsDep, minecraftProvider);
+		}
+
 		extension.setMappingsProvider(mappingsProvider);
 
 		if (extension.isForge()) {
-			ForgeLibrariesProvider.provide(mappingsProvider, project);
+			try (TraceSpan span = tracer.span("provider", "Forge libraries " + project.getPath())) {
+				ForgeLibrariesProvider.provide(mappingsProvider, project);
+			}
 		}
 
-		minecraftProvider.provide();
+		try (TraceSpan span = tracer.span("provider", "Minecraft jars " + project.getPath())) {
+			minecraftProvider.provide();
+		}
 
-		mappingsProvider.setupPost(project);
-		mappingsProvider.applyToProject(project, mappingsDep);
+		try (TraceSpan span = tracer.span("provider", "Mappings post setup " + project.getPath())) {
+			mappingsProvider.setupPost(project);
+			mappingsProvider.applyToProject(project, mappingsDep);
+		}
 
 		if (extension.isForge()) {
 			ForgeRunsProvider.provide(project);
 		}
 
 		if (minecraftProvider instanceof ForgeMinecraftProvider patched) {
-			patched.getPatchedProvider().remapJar();
+			try (TraceSpan span = tracer.span("remap", "Patched Minecraft " + project.getPath())) {
+				patched.getPatchedProvider().remapJar();
+			}
 		}
 
 		// Provide the remapped mc jars
@@ -367,7 +387,7 @@ public final class CompileConfiguration {
 			}
 		}
 
-		JarProcessorManager processorManager = new JarProcessorManager(extension.getGameJarProcessors().get());
+		JarProcessorManager processorManager = new JarProcessorManager(project, extension.getGameJarProcessors().get());
 		extension.setJarProcessorManager(processorManager);
 		processorManager.setupProcessors();
 
@@ -41,11 +41,13 @@ import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.LoomRepositoryPlugin;
 import net.fabricmc.loom.configuration.ide.idea.IdeaUtils;
 import net.fabricmc.loom.configuration.mods.ModConfigurationRemapper;
+import net.fabricmc.loom.configuration.mods.ModSourcesRemapper;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.SourceRemapper;
 import net.fabricmc.loom.util.ZipUtils;
 
 public class LoomDependencyManager {
+	private final ModSourcesRemapper modSourcesRemapper = new ModSourcesRemapper();
+
 	public void handleDependencies(Project project) {
 		List<Runnable> afterTasks = new ArrayList<>();
 
@@ -83,19 +85,20 @@ public class LoomDependencyManager {
 			}
 		}
 
-		SourceRemapper sourceRemapper = new SourceRemapper(project, true);
 		String platformSuffix = extension.isForge() ? "_forge" : extension.isQuilt() ? "_arch_quilt" : "";
 		String mappingsIdentifier = extension.getMappingsProvider().mappingsIdentifier() + platformSuffix;
 
-		ModConfigurationRemapper.supplyModConfigurations(project, mappingsIdentifier, extension, sourceRemapper);
-
-		sourceRemapper.remapAll();
+		ModConfigurationRemapper.supplyModConfigurations(project, mappingsIdentifier, extension, modSourcesRemapper);
 
 		for (Runnable runnable : afterTasks) {
 			runnable.run();
 		}
 	}
 
+	public ModSourcesRemapper getModSourcesRemapper() {
+		return modSourcesRemapper;
+	}
+
 	public static JsonObject readInstallerJson(File file, boolean quilt) {
 		try {
 			byte[] bytes = quilt ? null : ZipUtils.unpackNullable(file.toPath(), "fabric-installer.json");
@@ -0,0 +1,73 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.accesswidener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.fabricmc.accesswidener.AccessWidenerVisitor;
+
+/**
+ * Records the access-widener entries that apply to each class, so that only classes with changed entries need to be processed again.
+ * Entries on inner classes are also recorded against their outer classes, matching the targets of the {@link net.fabricmc.accesswidener.AccessWidener}.
+ */
+final class AccessWidenerFingerprints implements AccessWidenerVisitor {
+	private final Map<String, StringBuilder> entries = new HashMap<>();
+
+	@Override
+	public void visitClass(String name, AccessWidenerReader.AccessType access, boolean transitive) {
+		append(name, "class " + access);
+	}
+
+	@Override
+	public void visitMethod(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
+		append(owner, "method " + access + " " + name + descriptor);
+	}
+
+	@Override
+	public void visitField(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
+		append(owner, "field " + access + " " + name + descriptor);
+	}
+
+	private void append(String className, String entry) {
+		String name = className.replace('.', '/');
+		final String innerEntry = name + " " + entry;
+		entries.computeIfAbsent(name, s -> new StringBuilder()).append(entry).append(';');
+
+		// The InnerClasses attribute of every outer class is rewritten as well, so they have to be processed again too.
+		int index;
+
+		while ((index = name.lastIndexOf('$')) != -1) {
+			name = name.substring(0, index);
+			entries.computeIfAbsent(name, s -> new StringBuilder()).append(innerEntry).append(';');
+		}
+	}
+
+	String get(String className) {
+		final StringBuilder builder = entries.get(className);
+		return builder != null ? builder.toString() : "";
+	}
+}
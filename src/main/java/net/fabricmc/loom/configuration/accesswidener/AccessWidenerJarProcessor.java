@@ -24,24 +24,24 @@
 
 package net.fabricmc.loom.configuration.accesswidener;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
 
 import com.google.common.hash.Hashing;
 import org.gradle.api.Project;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.accesswidener.AccessWidenerReader;
 import net.fabricmc.loom.LoomGradleExtension;
-import net.fabricmc.loom.configuration.processors.JarProcessor;
+import net.fabricmc.loom.configuration.processors.ClassVisitorJarProcessor;
 import net.fabricmc.loom.util.Checksum;
-import net.fabricmc.loom.util.ZipUtils;
 
-public class AccessWidenerJarProcessor implements JarProcessor {
+public class AccessWidenerJarProcessor implements ClassVisitorJarProcessor {
 	// Filename used to store hash of input access widener in processed jar file
 	private static final String HASH_FILENAME = "aw.sha256";
 	// The mod's own access widener file
@@ -51,8 +51,12 @@ public class AccessWidenerJarProcessor implements JarProcessor {
 	// This is a SHA256 hash across the mod's and all transitive AWs
 	private byte[] inputHash;
 
+	private final AccessWidenerTransformer transformer;
+	private final AccessWidenerFingerprints fingerprints = new AccessWidenerFingerprints();
+
 	public AccessWidenerJarProcessor(Project project) {
 		this.project = project;
+		this.transformer = new AccessWidenerTransformer(project.getLogger(), accessWidener);
 	}
 
 	@Override
@@ -76,19 +80,28 @@ public class AccessWidenerJarProcessor implements JarProcessor {
 
 		AccessWidenerReader reader = new AccessWidenerReader(accessWidener);
 		reader.read(modAccessWidener);
+		new AccessWidenerReader(fingerprints).read(modAccessWidener);
 
 		inputHash = Hashing.sha256().hashBytes(modAccessWidener).asBytes();
 	}
 
 	@Override
-	public void process(File file) {
-		AccessWidenerTransformer applier = new AccessWidenerTransformer(project.getLogger(), accessWidener);
-		applier.apply(file);
+	public Set<String> getTargetClasses() {
+		return transformer.getTargetClasses();
+	}
 
-		try {
-			ZipUtils.add(file.toPath(), HASH_FILENAME, inputHash);
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to write aw jar hash", e);
-		}
+	@Override
+	public ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+		return transformer.createClassVisitor(className, next);
+	}
+
+	@Override
+	public String getClassFingerprint(String className) {
+		return fingerprints.get(className);
+	}
+
+	@Override
+	public Map<String, byte[]> getExtraFiles() {
+		return Map.of(HASH_FILENAME, inputHash);
 	}
 }
@@ -24,23 +24,15 @@
 
 package net.fabricmc.loom.configuration.accesswidener;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.gradle.api.logging.Logger;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.ClassWriter;
 
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.accesswidener.AccessWidenerClassVisitor;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.Pair;
-import net.fabricmc.loom.util.ZipUtils;
 
 final class AccessWidenerTransformer {
 	private final Logger logger;
@@ -52,34 +44,19 @@ final class AccessWidenerTransformer {
 	}
 
 	/**
-	 * Apply the rules from an access-widener to the given jar or zip file.
+	 * @return the internal names of the classes targeted by the access-widener
 	 */
-	void apply(File jarFile) {
-		logger.lifecycle("Processing file: " + jarFile.getName());
-
-		try {
-			ZipUtils.transform(jarFile.toPath(), getTransformers(accessWidener.getTargets()));
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to apply access wideners to %s".formatted(jarFile), e);
-		}
-	}
-
-	private List<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> getTransformers(Set<String> classes) {
-		return classes.stream()
-				.map(string -> new Pair<>(string.replaceAll("\\.", "/") + ".class", getTransformer(string)))
-				.collect(Collectors.toList());
+	Set<String> getTargetClasses() {
+		return accessWidener.getTargets().stream()
+				.map(string -> string.replaceAll("\\.", "/"))
+				.collect(Collectors.toSet());
 	}
 
-	private ZipUtils.UnsafeUnaryOperator<byte[]> getTransformer(String className) {
-		return input -> {
-			ClassReader reader = new ClassReader(input);
-			ClassWriter writer = new ClassWriter(0);
-			ClassVisitor classVisitor = AccessWidenerClassVisitor.createClassVisitor(Constants.ASM_VERSION, writer, accessWidener);
-
-			logger.info("Applying access widener to " + className);
-
-			reader.accept(classVisitor, 0);
-			return writer.toByteArray();
-		};
+	/**
+	 * Apply the rules from an access-widener to a class.
+	 */
+	ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+		logger.info("Applying access widener to " + className);
+		return AccessWidenerClassVisitor.createClassVisitor(Constants.ASM_VERSION, next, accessWidener);
 	}
 }
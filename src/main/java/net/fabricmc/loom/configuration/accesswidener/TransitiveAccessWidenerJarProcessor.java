@@ -25,7 +25,6 @@
 package net.fabricmc.loom.configuration.accesswidener;
 
 import java.io.File;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -34,12 +33,12 @@ import java.util.List;
 import java.util.Set;
 
 import com.google.common.base.Preconditions;
-import dev.architectury.tinyremapper.TinyRemapper;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.FileCollectionDependency;
 import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.file.FileCollection;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.accesswidener.AccessWidenerReader;
@@ -49,17 +48,19 @@ import net.fabricmc.accesswidener.TransitiveOnlyFilter;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
-import net.fabricmc.loom.configuration.processors.JarProcessor;
-import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.configuration.processors.ClassVisitorJarProcessor;
+import net.fabricmc.loom.task.service.ClassEnvironmentService;
 
 /**
  * Applies transitive access wideners that are inherited from mod and api dependencies.
  */
-public class TransitiveAccessWidenerJarProcessor implements JarProcessor {
+public class TransitiveAccessWidenerJarProcessor implements ClassVisitorJarProcessor {
 	private final Project project;
 	private final LoomGradleExtension extension;
 
 	private final List<AccessWidenerFile> transitiveAccessWideners;
+	private AccessWidenerTransformer transformer;
+	private AccessWidenerFingerprints fingerprints;
 
 	public TransitiveAccessWidenerJarProcessor(Project project) {
 		this.project = project;
@@ -131,52 +132,52 @@ public class TransitiveAccessWidenerJarProcessor implements JarProcessor {
 	}
 
 	@Override
-	public void process(File file) {
-		Preconditions.checkArgument(!isEmpty());
+	public Set<String> getTargetClasses() {
+		return getTransformer().getTargetClasses();
+	}
 
-		AccessWidener accessWidener = createAccessWidener();
-		AccessWidenerTransformer transformer = new AccessWidenerTransformer(project.getLogger(), accessWidener);
-		transformer.apply(file);
+	@Override
+	public ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+		return getTransformer().createClassVisitor(className, next);
 	}
 
-	private AccessWidener createAccessWidener() {
-		AccessWidener accessWidener = new AccessWidener();
-		// For other mods, only consider transitive AWs and remap from intermediary->named
-		TinyRemapper tinyRemapper = createTinyRemapper();
+	@Override
+	public String getClassFingerprint(String className) {
+		getTransformer();
+		return fingerprints.get(className);
+	}
 
-		try {
-			AccessWidenerRemapper remappingVisitor = new AccessWidenerRemapper(
-					accessWidener,
-					tinyRemapper.getEnvironment().getRemapper(),
-					MappingsNamespace.INTERMEDIARY.toString(),
-					MappingsNamespace.NAMED.toString()
-			);
-			AccessWidenerReader transitiveReader = new AccessWidenerReader(new TransitiveOnlyFilter(remappingVisitor));
+	private AccessWidenerTransformer getTransformer() {
+		Preconditions.checkArgument(!isEmpty());
 
+		// Lazily created, as remapping the access wideners requires the intermediary jars
+		if (transformer == null) {
 			for (AccessWidenerFile accessWidenerFile : transitiveAccessWideners) {
 				project.getLogger().info("Reading transitive access widener from {}", accessWidenerFile.modId());
-				transitiveReader.read(accessWidenerFile.content());
 			}
-		} finally {
-			tinyRemapper.finish();
+
+			AccessWidener accessWidener = new AccessWidener();
+			fingerprints = new AccessWidenerFingerprints();
+			readAccessWideners(accessWidener);
+			readAccessWideners(fingerprints);
+			transformer = new AccessWidenerTransformer(project.getLogger(), accessWidener);
 		}
 
-		return accessWidener;
+		return transformer;
 	}
 
-	private TinyRemapper createTinyRemapper() {
-		try {
-			TinyRemapper tinyRemapper = TinyRemapperHelper.getTinyRemapper(project, "intermediary", "named");
-
-			tinyRemapper.readClassPath(TinyRemapperHelper.getMinecraftDependencies(project));
-
-			for (Path minecraftJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
-				tinyRemapper.readClassPath(minecraftJar);
-			}
-
-			return tinyRemapper;
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to create tiny remapper for intermediary->named", e);
+	private void readAccessWideners(AccessWidenerVisitor visitor) {
+		// For other mods, only consider transitive AWs and remap from intermediary->named
+		AccessWidenerRemapper remappingVisitor = new AccessWidenerRemapper(
+				visitor,
+				ClassEnvironmentService.get(project).getHierarchyRemapper(project, MappingsNamespace.INTERMEDIARY, MappingsNamespace.NAMED),
+				MappingsNamespace.INTERMEDIARY.toString(),
+				MappingsNamespace.NAMED.toString()
+		);
+		AccessWidenerReader transitiveReader = new AccessWidenerReader(new TransitiveOnlyFilter(remappingVisitor));
+
+		for (AccessWidenerFile accessWidenerFile : transitiveAccessWideners) {
+			transitiveReader.read(accessWidenerFile.content());
 		}
 	}
 
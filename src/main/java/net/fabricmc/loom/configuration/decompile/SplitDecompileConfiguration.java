@@ -73,11 +73,11 @@ public final class SplitDecompileConfiguration extends DecompileConfiguration<Ma
 			}
 		});
 
-		final TaskProvider<Task> clientOnlyDecompileTask = createDecompileTasks("ClientOnly", task -> {
+		createDecompileTasks("ClientOnly", task -> {
 			task.getInputJar().set(clientOnlyJar);
 			task.getRuntimeJar().set(minecraftProvider.getClientOnlyJar().toFile());
 
-			if (unpickCommonJarTask != null) {
+			if (unpickClientOnlyJarTask != null) {
 				task.dependsOn(unpickClientOnlyJarTask);
 			}
 
@@ -88,12 +88,21 @@ public final class SplitDecompileConfiguration extends DecompileConfiguration<Ma
 		for (DecompilerOptions options : extension.getDecompilerOptions()) {
 			final String decompilerName = options.getFormattedName();
 
-			project.getTasks().register("genSourcesWith" + decompilerName, task -> {
+			// Decompiles both jars in a single worker, so the mappings and libraries are only loaded once.
+			project.getTasks().register("genSourcesWith" + decompilerName, GenerateSourcesTask.class, options).configure(task -> {
+				task.getInputJar().set(commonJar);
+				task.getRuntimeJar().set(minecraftProvider.getCommonJar().toFile());
+				task.getClientOnlyInputJar().set(clientOnlyJar);
+				task.getClientOnlyRuntimeJar().set(minecraftProvider.getClientOnlyJar().toFile());
+
+				if (unpickCommonJarTask != null) {
+					task.dependsOn(unpickCommonJarTask);
+					task.dependsOn(unpickClientOnlyJarTask);
+				}
+
+				task.dependsOn(project.getTasks().named("validateAccessWidener"));
 				task.setDescription("Decompile minecraft using %s.".formatted(decompilerName));
 				task.setGroup(Constants.TaskGroup.FABRIC);
-
-				task.dependsOn(project.getTasks().named("gen%sSourcesWith%s".formatted("Common", decompilerName)));
-				task.dependsOn(project.getTasks().named("gen%sSourcesWith%s".formatted("ClientOnly", decompilerName)));
 			});
 		}
 
@@ -101,8 +110,7 @@ public final class SplitDecompileConfiguration extends DecompileConfiguration<Ma
 			task.setDescription("Decompile minecraft using the default decompiler.");
 			task.setGroup(Constants.TaskGroup.FABRIC);
 
-			task.dependsOn(commonDecompileTask);
-			task.dependsOn(clientOnlyDecompileTask);
+			task.dependsOn(project.getTasks().named("genSourcesWithCfr"));
 		});
 	}
 
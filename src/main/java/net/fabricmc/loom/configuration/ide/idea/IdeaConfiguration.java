@@ -54,7 +54,7 @@ public class IdeaConfiguration {
 		final StartParameter startParameter = project.getGradle().getStartParameter();
 		final List<TaskExecutionRequest> taskRequests = new ArrayList<>(startParameter.getTaskRequests());
 
-		taskRequests.add(new DefaultTaskExecutionRequest(List.of("ideaSyncTask")));
+		taskRequests.add(new DefaultTaskExecutionRequest(List.of("ideaSyncTask", "remapModSources")));
 		startParameter.setTaskRequests(taskRequests);
 	}
 }
@@ -48,12 +48,9 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import dev.architectury.tinyremapper.TinyRemapper;
 import org.gradle.api.Project;
 import org.gradle.api.tasks.SourceSet;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.commons.Remapper;
 
 import net.fabricmc.loom.LoomGradleExtension;
@@ -61,18 +58,17 @@ import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.InterfaceInjectionExtensionAPI;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
-import net.fabricmc.loom.configuration.processors.JarProcessor;
+import net.fabricmc.loom.configuration.processors.ClassVisitorJarProcessor;
 import net.fabricmc.loom.task.GenerateSourcesTask;
+import net.fabricmc.loom.task.service.ClassEnvironmentService;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ModUtils;
-import net.fabricmc.loom.util.Pair;
-import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
-public class InterfaceInjectionProcessor implements JarProcessor, GenerateSourcesTask.MappingsProcessor {
+public class InterfaceInjectionProcessor implements ClassVisitorJarProcessor, GenerateSourcesTask.MappingsProcessor {
 	// Filename used to store hash of injected interfaces in processed jar file
 	private static final String HASH_FILENAME = "injected_interfaces.sha256";
 
@@ -108,64 +104,51 @@ public class InterfaceInjectionProcessor implements JarProcessor, GenerateSource
 	}
 
 	@Override
-	public void process(File jarFile) {
-		// Lazily remap from intermediary->named
-		if (remappedInjectedInterfaces == null) {
-			TinyRemapper tinyRemapper = createTinyRemapper();
-			Remapper remapper = tinyRemapper.getEnvironment().getRemapper();
+	public Set<String> getTargetClasses() {
+		return getRemappedInjectedInterfaces().keySet();
+	}
 
-			try {
-				remappedInjectedInterfaces = new HashMap<>(injectedInterfaces.size());
-
-				for (Map.Entry<String, List<InjectedInterface>> entry : injectedInterfaces.entrySet()) {
-					String namedClassName = remapper.map(entry.getKey());
-					remappedInjectedInterfaces.put(
-							namedClassName,
-							entry.getValue().stream()
-									.map(injectedInterface ->
-											new InjectedInterface(
-													injectedInterface.modId(),
-													namedClassName,
-													remapper.map(injectedInterface.ifaceName())
-											))
-									.toList()
-					);
-				}
-			} finally {
-				tinyRemapper.finish();
-			}
-		}
+	@Override
+	public ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+		List<InjectedInterface> ifaces = getRemappedInjectedInterfaces().get(className);
 
-		project.getLogger().lifecycle("Processing file: " + jarFile.getName());
+		// Log which mods add which interface to the class
+		project.getLogger().info("Injecting interfaces into " + className + ": "
+				+ ifaces.stream().map(i -> i.ifaceName() + " [" + i.modId() + "]"
+		).collect(Collectors.joining(", ")));
 
-		try {
-			ZipUtils.transform(jarFile.toPath(), getTransformers());
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to apply interface injections to " + jarFile, e);
-		}
+		return new InjectingClassVisitor(Constants.ASM_VERSION, next, ifaces);
 	}
 
-	private List<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> getTransformers() {
-		return remappedInjectedInterfaces.keySet().stream()
-				.map(string -> new Pair<>(string.replaceAll("\\.", "/") + ".class", getTransformer(string)))
-				.collect(Collectors.toList());
+	@Override
+	public String getClassFingerprint(String className) {
+		return getRemappedInjectedInterfaces().get(className).toString();
 	}
 
-	private ZipUtils.UnsafeUnaryOperator<byte[]> getTransformer(String className) {
-		return input -> {
-			ClassReader reader = new ClassReader(input);
-			ClassWriter writer = new ClassWriter(0);
-			List<InjectedInterface> ifaces = remappedInjectedInterfaces.get(className);
-			ClassVisitor classVisitor = new InjectingClassVisitor(Constants.ASM_VERSION, writer, ifaces);
-
-			// Log which mods add which interface to the class
-			project.getLogger().info("Injecting interfaces into " + className + ": "
-					+ ifaces.stream().map(i -> i.ifaceName() + " [" + i.modId() + "]"
-			).collect(Collectors.joining(", ")));
-
-			reader.accept(classVisitor, 0);
-			return writer.toByteArray();
-		};
+	private Map<String, List<InjectedInterface>> getRemappedInjectedInterfaces() {
+		// Lazily remap from intermediary->named
+		if (remappedInjectedInterfaces == null) {
+			// Only class names are remapped, so the jars do not need to be read
+			Remapper remapper = ClassEnvironmentService.get(project).getRemapper(project, MappingsNamespace.INTERMEDIARY.toString(), MappingsNamespace.NAMED.toString());
+			remappedInjectedInterfaces = new HashMap<>(injectedInterfaces.size());
+
+			for (Map.Entry<String, List<InjectedInterface>> entry : injectedInterfaces.entrySet()) {
+				String namedClassName = remapper.map(entry.getKey());
+				remappedInjectedInterfaces.put(
+						namedClassName,
+						entry.getValue().stream()
+								.map(injectedInterface ->
+										new InjectedInterface(
+												injectedInterface.modId(),
+												namedClassName,
+												remapper.map(injectedInterface.ifaceName())
+										))
+								.toList()
+				);
+			}
+		}
+
+		return remappedInjectedInterfaces;
 	}
 
 	private List<InjectedInterface> getInjectedInterfaces() {
@@ -410,8 +393,8 @@ public class InterfaceInjectionProcessor implements JarProcessor, GenerateSource
 	private static class InjectingClassVisitor extends ClassVisitor {
 		private final List<InjectedInterface> injectedInterfaces;
 
-		InjectingClassVisitor(int asmVersion, ClassWriter writer, List<InjectedInterface> injectedInterfaces) {
-			super(asmVersion, writer);
+		InjectingClassVisitor(int asmVersion, ClassVisitor next, List<InjectedInterface> injectedInterfaces) {
+			super(asmVersion, next);
 			this.injectedInterfaces = injectedInterfaces;
 		}
 
@@ -443,21 +426,6 @@ public class InterfaceInjectionProcessor implements JarProcessor, GenerateSource
 		}
 	}
 
-	private TinyRemapper createTinyRemapper() {
-		try {
-			TinyRemapper tinyRemapper = TinyRemapperHelper.getTinyRemapper(project, "intermediary", "named");
-			tinyRemapper.readClassPath(TinyRemapperHelper.getMinecraftDependencies(project));
-
-			for (Path minecraftJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
-				tinyRemapper.readClassPath(minecraftJar);
-			}
-
-			return tinyRemapper;
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to create tiny remapper for intermediary->named", e);
-		}
-	}
-
 	private byte[] hashInjectedInterfaces() {
 		// Hash the interfaces we're about to inject to not have to repeat this everytime
 		Hasher hasher = Hashing.sha256().newHasher();
@@ -42,7 +42,10 @@ import net.fabricmc.loom.util.Checksum;
 public interface ArtifactRef {
 	Path path();
 
-	@Nullable Path sources();
+	/**
+	 * Looks up the sources of the artifact, which may need to query the repositories.
+	 */
+	@Nullable Path findSources(Project project);
 
 	String name();
 
@@ -54,12 +57,17 @@ public interface ArtifactRef {
 
 	void applyToConfiguration(Project project, Configuration configuration);
 
-	record ResolvedArtifactRef(ResolvedArtifact artifact, @Nullable Path sources) implements ArtifactRef {
+	record ResolvedArtifactRef(ResolvedArtifact artifact) implements ArtifactRef {
 		@Override
 		public Path path() {
 			return artifact.getFile().toPath();
 		}
 
+		@Override
+		public @Nullable Path findSources(Project project) {
+			return ModConfigurationRemapper.findSources(project, artifact);
+		}
+
 		public String group() {
 			return replaceIfNullOrEmpty(artifact.getModuleVersion().getId().getGroup(), () -> MISSING_GROUP);
 		}
@@ -92,7 +100,7 @@ public interface ArtifactRef {
 
 	record FileArtifactRef(Path path, String group, String name, String version) implements ArtifactRef {
 		@Override
-		public @Nullable Path sources() {
+		public @Nullable Path findSources(Project project) {
 			return null;
 		}
 
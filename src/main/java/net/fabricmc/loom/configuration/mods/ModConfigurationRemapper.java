@@ -27,7 +27,6 @@ package net.fabricmc.loom.configuration.mods;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -56,8 +55,6 @@ import net.fabricmc.loom.configuration.mods.dependency.ModDependencyFactory;
 import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ModUtils;
-import net.fabricmc.loom.util.OperatingSystem;
-import net.fabricmc.loom.util.SourceRemapper;
 
 @SuppressWarnings("UnstableApiUsage")
 public class ModConfigurationRemapper {
@@ -65,7 +62,7 @@ public class ModConfigurationRemapper {
 	// This can happen when the dependency is a FileCollectionDependency or from a flatDir repository.
 	public static final String MISSING_GROUP = "unspecified";
 
-	public static void supplyModConfigurations(Project project, String mappingsSuffix, LoomGradleExtension extension, SourceRemapper sourceRemapper) {
+	public static void supplyModConfigurations(Project project, String mappingsSuffix, LoomGradleExtension extension, ModSourcesRemapper sourcesRemapper) {
 		final DependencyHandler dependencies = project.getDependencies();
 
 		for (RemapConfigurationSettings entry : extension.getRemapConfigurations()) {
@@ -94,7 +91,7 @@ public class ModConfigurationRemapper {
 					}
 
 					final ModDependency modDependency = ModDependencyFactory.create(artifact, remappedConfig, clientRemappedConfig, mappingsSuffix, project);
-					scheduleSourcesRemapping(project, sourceRemapper, modDependency);
+					sourcesRemapper.add(modDependency);
 					modDependencies.add(modDependency);
 				}
 
@@ -159,8 +156,7 @@ public class ModConfigurationRemapper {
 		final List<ArtifactRef> artifacts = new ArrayList<>();
 
 		for (ResolvedArtifact artifact : configuration.getResolvedConfiguration().getResolvedArtifacts()) {
-			final Path sources = findSources(project, artifact);
-			artifacts.add(new ArtifactRef.ResolvedArtifactRef(artifact, sources));
+			artifacts.add(new ArtifactRef.ResolvedArtifactRef(artifact));
 		}
 
 		// FileCollectionDependency (files/fileTree) doesn't resolve properly,
@@ -204,30 +200,6 @@ public class ModConfigurationRemapper {
 		return null;
 	}
 
-	private static void scheduleSourcesRemapping(Project project, SourceRemapper sourceRemapper, ModDependency dependency) {
-		if (OperatingSystem.isCIBuild()) {
-			return;
-		}
-
-		final Path sourcesInput = dependency.getInputArtifact().sources();
-
-		if (sourcesInput == null || Files.notExists(sourcesInput)) {
-			return;
-		}
-
-		if (dependency.isCacheInvalid(project, "sources")) {
-			final Path output = dependency.getWorkingFile("sources");
-
-			sourceRemapper.scheduleRemapSources(sourcesInput.toFile(), output.toFile(), false, true, () -> {
-				try {
-					dependency.copyToCache(project, output, "sources");
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to apply sources to local cache for: " + dependency, e);
-				}
-			});
-		}
-	}
-
 	public static String replaceIfNullOrEmpty(@Nullable String s, Supplier<String> fallback) {
 		return s == null || s.isEmpty() ? fallback.get() : s;
 	}
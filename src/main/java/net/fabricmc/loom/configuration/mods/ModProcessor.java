@@ -58,9 +58,12 @@ import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
+import net.fabricmc.loom.util.kotlin.KotlinMetadataScanningExtension;
 import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
 import net.fabricmc.loom.util.srg.AtRemapper;
 import net.fabricmc.loom.util.srg.CoreModClassRemapper;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class ModProcessor {
@@ -76,9 +79,13 @@ public class ModProcessor {
 	}
 
 	public void processMods(List<ModDependency> remapList) throws IOException {
-		try {
+		try (TraceSpan span = BuildTracer.get(project).span("remap", "%d mods from %s".formatted(remapList.size(), sourceConfiguration.getName()))) {
 			project.getLogger().lifecycle(":remapping {} mods from {}", remapList.size(), sourceConfiguration.getName());
 			remapJars(remapList);
+
+			for (ModDependency modDependency : remapList) {
+				span.read(modDependency.getInputFile()).wrote(modDependency.getWorkingFile(null));
+			}
 		} catch (Exception e) {
 			throw new RuntimeException(String.format(Locale.ENGLISH, "Failed to remap %d mods", remapList.size()), e);
 		}
@@ -138,7 +145,7 @@ public class ModProcessor {
 
 		if (kotlinClasspathService != null) {
 			kotlinRemapperClassloader = KotlinRemapperClassloader.create(kotlinClasspathService);
-			builder.extension(kotlinRemapperClassloader.getTinyRemapperExtension());
+			builder.extension(new KotlinMetadataScanningExtension(kotlinRemapperClassloader.getTinyRemapperExtension()));
 		}
 
 		final TinyRemapper remapper = builder.build();
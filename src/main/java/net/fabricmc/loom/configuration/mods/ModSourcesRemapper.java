@@ -0,0 +1,93 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.mods;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gradle.api.Project;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.api.RemapConfigurationSettings;
+import net.fabricmc.loom.configuration.mods.dependency.ModDependency;
+import net.fabricmc.loom.util.SourceRemapper;
+
+/**
+ * Records the mod dependencies that may have sources to remap while the project is configured.
+ * The sources are found and remapped by the {@code remapModSources} task, which runs on IDE sync,
+ * so builds that never read them don't pay for it.
+ */
+public final class ModSourcesRemapper {
+	private final List<ModDependency> dependencies = new ArrayList<>();
+
+	public synchronized void add(ModDependency dependency) {
+		dependencies.add(dependency);
+	}
+
+	public void remapAll(Project project) {
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+
+		// The mod dependencies are recorded when the remapped configurations are realized
+		for (RemapConfigurationSettings entry : extension.getRemapConfigurations()) {
+			entry.getRemappedConfiguration().get();
+		}
+
+		final List<ModDependency> toRemap;
+
+		synchronized (this) {
+			toRemap = List.copyOf(dependencies);
+		}
+
+		final SourceRemapper sourceRemapper = new SourceRemapper(project, true);
+
+		for (ModDependency dependency : toRemap) {
+			if (!dependency.isCacheInvalid(project, "sources")) {
+				continue;
+			}
+
+			final Path sourcesInput = dependency.getInputArtifact().findSources(project);
+
+			if (sourcesInput == null || Files.notExists(sourcesInput)) {
+				continue;
+			}
+
+			final Path output = dependency.getWorkingFile("sources");
+
+			sourceRemapper.scheduleRemapSources(sourcesInput.toFile(), output.toFile(), false, true, () -> {
+				try {
+					dependency.copyToCache(project, output, "sources");
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to apply sources to local cache for: " + dependency, e);
+				}
+			});
+		}
+
+		sourceRemapper.remapAll();
+	}
+}
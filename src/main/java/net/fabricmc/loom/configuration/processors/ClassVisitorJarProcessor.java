@@ -0,0 +1,81 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.processors;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * A {@link JarProcessor} that transforms the jar one class at a time.
+ *
+ * <p>Consecutive processors of this kind are applied by {@link JarProcessorManager} in a single pass over the jar,
+ * each processor's visitor seeing the output of the processors before it.
+ */
+public interface ClassVisitorJarProcessor extends JarProcessor {
+	/**
+	 * @return the internal names of the classes that this processor transforms
+	 */
+	Set<String> getTargetClasses();
+
+	/**
+	 * @param className the internal name of a class returned by {@link #getTargetClasses()}
+	 * @param next the visitor to delegate to
+	 */
+	ClassVisitor createClassVisitor(String className, ClassVisitor next);
+
+	/**
+	 * Returns a fingerprint of the inputs that this processor applies to the given class.
+	 *
+	 * <p>When only some fingerprints change, only those classes are processed again. The default falls back to {@link #getId()},
+	 * which re-processes every targeted class when anything about the processor changes.
+	 *
+	 * @param className the internal name of a class returned by {@link #getTargetClasses()}
+	 */
+	default String getClassFingerprint(String className) {
+		return getId();
+	}
+
+	/**
+	 * @return files to add to, or replace in, the jar, keyed by their path in the jar
+	 */
+	default Map<String, byte[]> getExtraFiles() {
+		return Map.of();
+	}
+
+	@Override
+	default void process(File file) {
+		try {
+			SinglePassJarTransformer.transform(file.toPath(), List.of(this), Map.of());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to process " + file, e);
+		}
+	}
+}
@@ -30,8 +30,16 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -40,15 +48,23 @@ import java.util.stream.Collectors;
 import com.google.common.base.Preconditions;
 import com.google.common.hash.Hashing;
 import com.google.common.io.CharSource;
+import org.gradle.api.Project;
+import org.jetbrains.annotations.Nullable;
 
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.ZipUtils;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 
 public class JarProcessorManager {
 	private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
 	private static final String JAR_PROCESSOR_HASH_ATTRIBUTE = "Loom-Jar-Processor-Hash";
+	private final Project project;
 	private final List<JarProcessor> jarProcessors;
 
-	public JarProcessorManager(List<JarProcessor> jarProcessors) {
+	public JarProcessorManager(Project project, List<JarProcessor> jarProcessors) {
+		this.project = project;
 		this.jarProcessors = jarProcessors;
 	}
 
@@ -102,23 +118,183 @@ public class JarProcessorManager {
 		}
 	}
 
+	/**
+	 * Processes the input jar into the output jar.
+	 *
+	 * <p>When the output jar was processed before from the same input jar, and all processors are {@link ClassVisitorJarProcessor}s,
+	 * only the classes whose {@linkplain ClassVisitorJarProcessor#getClassFingerprint(String) fingerprints} changed are processed again.
+	 */
+	public void process(Path inputJar, Path outputJar) throws IOException {
+		final Path stateFile = getStateFile(outputJar);
+		final ProcessorState previousState = readState(stateFile);
+		final ProcessorState state = createState(inputJar);
+
+		// The jar is in an unknown state until it has been processed
+		Files.deleteIfExists(stateFile);
+
+		if (state != null && previousState != null && Files.exists(outputJar) && state.isCompatible(previousState)) {
+			final Set<String> changedClasses = state.getChangedClasses(previousState);
+
+			try (TraceSpan span = BuildTracer.get(project).span("processor", "incremental %s (%d classes)".formatted(outputJar.getFileName(), changedClasses.size()))) {
+				SinglePassJarTransformer.patch(outputJar, inputJar, changedClasses, getClassVisitorProcessors(), Map.of(MANIFEST_PATH, this::stampManifest));
+				span.read(inputJar).wrote(outputJar);
+			}
+
+			writeState(stateFile, state);
+			return;
+		}
+
+		Files.copy(inputJar, outputJar, StandardCopyOption.REPLACE_EXISTING);
+		process(outputJar.toFile());
+
+		if (state != null) {
+			writeState(stateFile, state);
+		}
+	}
+
 	public void process(File file) {
+		final BuildTracer tracer = BuildTracer.get(project);
+		// Consecutive class visitor processors share a single pass over the jar, other processors rewrite the whole jar on their own.
+		List<ClassVisitorJarProcessor> pending = new ArrayList<>();
+
+		for (JarProcessor jarProcessor : jarProcessors) {
+			if (jarProcessor instanceof ClassVisitorJarProcessor classVisitorJarProcessor) {
+				pending.add(classVisitorJarProcessor);
+				continue;
+			}
+
+			applyClassVisitors(file, pending, Map.of(), tracer);
+			pending.clear();
+
+			try (TraceSpan span = tracer.span("processor", "%s %s".formatted(jarProcessor.getId(), file.getName()))) {
+				jarProcessor.process(file);
+				span.read(file.toPath()).wrote(file.toPath());
+			}
+		}
+
+		// Stamp the manifest in the same pass as the remaining class visitors
+		AtomicBoolean stamped = new AtomicBoolean(false);
+		applyClassVisitors(file, pending, Map.of(MANIFEST_PATH, bytes -> {
+			stamped.set(true);
+			return stampManifest(bytes);
+		}), tracer);
+
+		Preconditions.checkState(stamped.get(), "Did not add data to jar manifest in " + file);
+	}
+
+	private void applyClassVisitors(File file, List<ClassVisitorJarProcessor> processors, Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> resourceTransforms, BuildTracer tracer) {
+		if (processors.isEmpty() && resourceTransforms.isEmpty()) {
+			return;
+		}
+
+		final String ids = processors.stream().map(JarProcessor::getId).collect(Collectors.joining(", "));
+
+		try (TraceSpan span = tracer.span("processor", "[%s] %s".formatted(ids, file.getName()))) {
+			SinglePassJarTransformer.transform(file.toPath(), processors, resourceTransforms);
+			span.read(file.toPath()).wrote(file.toPath());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to process " + file, e);
+		}
+	}
+
+	private byte[] stampManifest(byte[] bytes) throws IOException {
+		Manifest manifest = new Manifest(new ByteArrayInputStream(bytes));
+		manifest.getMainAttributes().putValue(JAR_PROCESSOR_HASH_ATTRIBUTE, getJarProcessorHash());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		manifest.write(out);
+		return out.toByteArray();
+	}
+
+	@Nullable
+	private List<ClassVisitorJarProcessor> getClassVisitorProcessors() {
+		final List<ClassVisitorJarProcessor> processors = new ArrayList<>();
+
 		for (JarProcessor jarProcessor : jarProcessors) {
-			jarProcessor.process(file);
+			if (!(jarProcessor instanceof ClassVisitorJarProcessor classVisitorJarProcessor)) {
+				return null;
+			}
+
+			processors.add(classVisitorJarProcessor);
+		}
+
+		return processors;
+	}
+
+	/**
+	 * @return the state of the processors for the given input jar, or null when the jar cannot be processed incrementally
+	 */
+	@Nullable
+	private ProcessorState createState(Path inputJar) throws IOException {
+		final List<ClassVisitorJarProcessor> processors = getClassVisitorProcessors();
+
+		if (processors == null) {
+			return null;
+		}
+
+		final Map<String, StringBuilder> fingerprints = new HashMap<>();
+
+		for (ClassVisitorJarProcessor processor : processors) {
+			for (String className : processor.getTargetClasses()) {
+				fingerprints.computeIfAbsent(className, s -> new StringBuilder())
+						.append(processor.getClass().getName()).append('=').append(processor.getClassFingerprint(className)).append(';');
+			}
+		}
+
+		final Map<String, String> classes = new HashMap<>(fingerprints.size());
+		fingerprints.forEach((className, fingerprint) -> classes.put(className, Checksum.toHex(Checksum.sha256(fingerprint.toString()))));
+
+		final List<String> processorTypes = processors.stream().map(processor -> processor.getClass().getName()).toList();
+		return new ProcessorState(Checksum.sha1Hex(inputJar), processorTypes, classes);
+	}
+
+	private static Path getStateFile(Path processedJar) {
+		return processedJar.resolveSibling(processedJar.getFileName() + ".processors.json");
+	}
+
+	@Nullable
+	private static ProcessorState readState(Path stateFile) {
+		if (!Files.exists(stateFile)) {
+			return null;
 		}
 
 		try {
-			int count = ZipUtils.transform(file.toPath(), Map.of(MANIFEST_PATH, bytes -> {
-				Manifest manifest = new Manifest(new ByteArrayInputStream(bytes));
-				manifest.getMainAttributes().putValue(JAR_PROCESSOR_HASH_ATTRIBUTE, getJarProcessorHash());
-				ByteArrayOutputStream out = new ByteArrayOutputStream();
-				manifest.write(out);
-				return out.toByteArray();
-			}));
-
-			Preconditions.checkState(count > 0, "Did not add data to jar manifest in " + file);
+			return LoomGradlePlugin.OBJECT_MAPPER.readValue(stateFile.toFile(), ProcessorState.class);
 		} catch (IOException e) {
-			throw new UncheckedIOException("Could not add data to jar manifest in " + file, e);
+			// Treated as unknown, the jar will be processed in full
+			return null;
+		}
+	}
+
+	private static void writeState(Path stateFile, ProcessorState state) throws IOException {
+		LoomGradlePlugin.OBJECT_MAPPER.writeValue(stateFile.toFile(), state);
+	}
+
+	/**
+	 * @param inputHash the hash of the unprocessed jar
+	 * @param processors the types of the processors, in order
+	 * @param classes a fingerprint of the processor inputs applied to each targeted class
+	 */
+	record ProcessorState(String inputHash, List<String> processors, Map<String, String> classes) {
+		boolean isCompatible(ProcessorState previous) {
+			return inputHash.equals(previous.inputHash()) && processors.equals(previous.processors());
+		}
+
+		Set<String> getChangedClasses(ProcessorState previous) {
+			final Set<String> changed = new HashSet<>();
+
+			for (Map.Entry<String, String> entry : classes.entrySet()) {
+				if (!entry.getValue().equals(previous.classes().get(entry.getKey()))) {
+					changed.add(entry.getKey());
+				}
+			}
+
+			for (String className : previous.classes().keySet()) {
+				if (!classes.containsKey(className)) {
+					changed.add(className);
+				}
+			}
+
+			return changed;
 		}
 	}
 
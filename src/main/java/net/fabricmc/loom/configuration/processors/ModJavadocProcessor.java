@@ -25,7 +25,6 @@
 package net.fabricmc.loom.configuration.processors;
 
 import java.io.ByteArrayInputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -39,6 +38,7 @@ import com.google.gson.JsonObject;
 import org.gradle.api.Project;
 import org.gradle.internal.impldep.org.glassfish.jaxb.core.v2.TODO;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,7 +54,7 @@ import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
-public final class ModJavadocProcessor implements JarProcessor, GenerateSourcesTask.MappingsProcessor {
+public final class ModJavadocProcessor implements ClassVisitorJarProcessor, GenerateSourcesTask.MappingsProcessor {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ModJavadocProcessor.class);
 
 	private final List<ModJavadoc> javadocs;
@@ -125,8 +125,14 @@ public final class ModJavadocProcessor implements JarProcessor, GenerateSourcesT
 	}
 
 	@Override
-	public void process(File file) {
+	public Set<String> getTargetClasses() {
 		// No need to actually process anything, we need to be a JarProcessor to ensure that the jar is cached correctly.
+		return Set.of();
+	}
+
+	@Override
+	public ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+		return next;
 	}
 
 	public record ModJavadoc(String modId, MemoryMappingTree mappingTree) {
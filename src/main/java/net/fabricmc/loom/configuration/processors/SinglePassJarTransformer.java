@@ -0,0 +1,211 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.processors;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.ZipUtils;
+
+/**
+ * Reads, transforms and writes a jar once for any number of {@link ClassVisitorJarProcessor}s and resource transforms.
+ */
+final class SinglePassJarTransformer {
+	private SinglePassJarTransformer() {
+	}
+
+	/**
+	 * @return the number of entries that were transformed or added
+	 */
+	static int transform(Path jar, List<ClassVisitorJarProcessor> processors, Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> resourceTransforms) throws IOException {
+		final Map<String, List<ClassVisitorJarProcessor>> classProcessors = getClassProcessors(processors);
+		final Map<String, byte[]> extraFiles = getExtraFiles(processors);
+
+		if (classProcessors.isEmpty() && extraFiles.isEmpty() && resourceTransforms.isEmpty()) {
+			return 0;
+		}
+
+		final Path tempJar = Files.createTempFile(jar.toAbsolutePath().getParent(), jar.getFileName().toString(), ".tmp");
+		int count = 0;
+
+		try {
+			try (ZipFile zipFile = new ZipFile(jar.toFile());
+					ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tempJar)))) {
+				final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+				while (entries.hasMoreElements()) {
+					final ZipEntry entry = entries.nextElement();
+					final String name = entry.getName();
+
+					if (extraFiles.containsKey(name)) {
+						continue;
+					}
+
+					final ZipEntry newEntry = new ZipEntry(name);
+					newEntry.setTime(entry.getTime());
+					out.putNextEntry(newEntry);
+
+					final List<ClassVisitorJarProcessor> entryProcessors = classProcessors.get(name);
+					final ZipUtils.UnsafeUnaryOperator<byte[]> resourceTransform = resourceTransforms.get(name);
+
+					if (entryProcessors == null && resourceTransform == null) {
+						try (InputStream is = zipFile.getInputStream(entry)) {
+							is.transferTo(out);
+						}
+					} else {
+						byte[] bytes;
+
+						try (InputStream is = zipFile.getInputStream(entry)) {
+							bytes = is.readAllBytes();
+						}
+
+						if (entryProcessors != null) {
+							bytes = transformClass(bytes, name.substring(0, name.length() - ".class".length()), entryProcessors);
+						}
+
+						if (resourceTransform != null) {
+							bytes = resourceTransform.apply(bytes);
+						}
+
+						out.write(bytes);
+						count++;
+					}
+
+					out.closeEntry();
+				}
+
+				for (Map.Entry<String, byte[]> extraFile : extraFiles.entrySet()) {
+					out.putNextEntry(new ZipEntry(extraFile.getKey()));
+					out.write(extraFile.getValue());
+					out.closeEntry();
+					count++;
+				}
+			}
+
+			Files.move(tempJar, jar, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempJar);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Re-derives the given classes from the original jar and writes them into the already processed jar, leaving all other entries untouched.
+	 *
+	 * @param classes the internal names of the classes to process again, classes that are not in the original jar are skipped
+	 */
+	static void patch(Path jar, Path originalJar, Set<String> classes, List<ClassVisitorJarProcessor> processors, Map<String, ZipUtils.UnsafeUnaryOperator<byte[]>> resourceTransforms) throws IOException {
+		final Map<String, List<ClassVisitorJarProcessor>> classProcessors = getClassProcessors(processors);
+
+		try (FileSystemUtil.Delegate originalFs = FileSystemUtil.getJarFileSystem(originalJar, false);
+				FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar, false)) {
+			for (String className : classes) {
+				final String name = className + ".class";
+				final Path originalPath = originalFs.getPath(name);
+
+				if (Files.notExists(originalPath)) {
+					continue;
+				}
+
+				byte[] bytes = Files.readAllBytes(originalPath);
+				final List<ClassVisitorJarProcessor> entryProcessors = classProcessors.get(name);
+
+				if (entryProcessors != null) {
+					bytes = transformClass(bytes, className, entryProcessors);
+				}
+
+				Files.write(fs.getPath(name), bytes);
+			}
+
+			for (Map.Entry<String, byte[]> extraFile : getExtraFiles(processors).entrySet()) {
+				Files.write(fs.getPath(extraFile.getKey()), extraFile.getValue());
+			}
+
+			for (Map.Entry<String, ZipUtils.UnsafeUnaryOperator<byte[]>> entry : resourceTransforms.entrySet()) {
+				final Path path = fs.getPath(entry.getKey());
+
+				if (Files.exists(path)) {
+					Files.write(path, entry.getValue().apply(Files.readAllBytes(path)));
+				}
+			}
+		}
+	}
+
+	private static Map<String, List<ClassVisitorJarProcessor>> getClassProcessors(List<ClassVisitorJarProcessor> processors) {
+		final Map<String, List<ClassVisitorJarProcessor>> classProcessors = new HashMap<>();
+
+		for (ClassVisitorJarProcessor processor : processors) {
+			for (String className : processor.getTargetClasses()) {
+				classProcessors.computeIfAbsent(className + ".class", s -> new ArrayList<>()).add(processor);
+			}
+		}
+
+		return classProcessors;
+	}
+
+	private static Map<String, byte[]> getExtraFiles(List<ClassVisitorJarProcessor> processors) {
+		final Map<String, byte[]> extraFiles = new LinkedHashMap<>();
+
+		for (ClassVisitorJarProcessor processor : processors) {
+			extraFiles.putAll(processor.getExtraFiles());
+		}
+
+		return extraFiles;
+	}
+
+	private static byte[] transformClass(byte[] input, String className, List<ClassVisitorJarProcessor> processors) {
+		final ClassReader reader = new ClassReader(input);
+		final ClassWriter writer = new ClassWriter(0);
+		ClassVisitor visitor = writer;
+
+		// Build the chain backwards so the first processor sees the class first
+		for (int i = processors.size() - 1; i >= 0; i--) {
+			visitor = processors.get(i).createClassVisitor(className, visitor);
+		}
+
+		reader.accept(visitor, 0);
+		return writer.toByteArray();
+	}
+}
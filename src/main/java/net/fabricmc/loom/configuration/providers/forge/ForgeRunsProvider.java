@@ -28,7 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -53,6 +53,9 @@ public class ForgeRunsProvider {
 	private final Project project;
 	private final LoomGradleExtension extension;
 	private final JsonObject json;
+	// The templates are expanded when the run configs are evaluated, once per build.
+	private final Map<String, String> expandedTemplates = new HashMap<>();
+	private Set<File> minecraftClasspath;
 
 	public ForgeRunsProvider(Project project, JsonObject json) {
 		this.project = project;
@@ -112,99 +115,111 @@ public class ForgeRunsProvider {
 		}
 	}
 
-	public String processTemplates(String string) {
-		if (string.startsWith("{")) {
-			String key = string.substring(1, string.length() - 1);
+	public synchronized String processTemplates(String string) {
+		if (!string.startsWith("{")) {
+			return string;
+		}
 
-			// TODO: Look into ways to not hardcode
-			if (key.equals("runtime_classpath")) {
-				string = runtimeClasspath().stream()
-						.map(File::getAbsolutePath)
-						.collect(Collectors.joining(File.pathSeparator));
-			} else if (key.equals("minecraft_classpath")) {
-				string = minecraftClasspath().stream()
-						.map(File::getAbsolutePath)
-						.collect(Collectors.joining(File.pathSeparator));
-			} else if (key.equals("runtime_classpath_file")) {
-				Path path = extension.getFiles().getProjectPersistentCache().toPath().resolve("forge_runtime_classpath.txt");
-
-				try {
-					Files.writeString(path, runtimeClasspath().stream()
-									.map(File::getAbsolutePath)
-									.collect(Collectors.joining("\n")),
-							StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-				} catch (IOException e) {
-					throw new RuntimeException(e);
-				}
+		String key = string.substring(1, string.length() - 1);
+		String expanded = expandedTemplates.get(key);
 
-				string = path.toAbsolutePath().toString();
-			} else if (key.equals("minecraft_classpath_file")) {
-				Path path = extension.getFiles().getProjectPersistentCache().toPath().resolve("forge_minecraft_classpath.txt");
-
-				try {
-					Files.writeString(path, minecraftClasspath().stream()
-									.map(File::getAbsolutePath)
-									.collect(Collectors.joining("\n")),
-							StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-				} catch (IOException e) {
-					throw new RuntimeException(e);
-				}
+		if (expanded == null) {
+			expanded = expandTemplate(key, string);
+			expandedTemplates.put(key, expanded);
+		}
 
-				string = path.toAbsolutePath().toString();
-			} else if (key.equals("asset_index")) {
-				string = extension.getMinecraftProvider().getVersionInfo().assetIndex().fabricId(extension.getMinecraftProvider().minecraftVersion());
-			} else if (key.equals("assets_root")) {
-				string = new File(extension.getFiles().getUserCache(), "assets").getAbsolutePath();
-			} else if (key.equals("natives")) {
-				string = extension.getFiles().getNativesDirectory(project).getAbsolutePath();
-			} else if (key.equals("source_roots")) {
-				// Use a set-valued multimap for deduplicating paths.
-				Multimap<String, String> modClasses = MultimapBuilder.hashKeys().linkedHashSetValues().build();
-
-				for (ModSettings mod : extension.getMods()) {
-					for (File file : SourceSetHelper.getClasspath(mod, project)) {
-						modClasses.put(mod.getName(), file.getAbsolutePath());
-					}
+		return expanded;
+	}
+
+	private String expandTemplate(String key, String string) {
+		// TODO: Look into ways to not hardcode
+		if (key.equals("runtime_classpath")) {
+			string = runtimeClasspath().stream()
+					.map(File::getAbsolutePath)
+					.collect(Collectors.joining(File.pathSeparator));
+		} else if (key.equals("minecraft_classpath")) {
+			string = minecraftClasspath().stream()
+					.map(File::getAbsolutePath)
+					.collect(Collectors.joining(File.pathSeparator));
+		} else if (key.equals("runtime_classpath_file")) {
+			string = writeClasspathFile("forge_runtime_classpath.txt", runtimeClasspath());
+		} else if (key.equals("minecraft_classpath_file")) {
+			string = writeClasspathFile("forge_minecraft_classpath.txt", minecraftClasspath());
+		} else if (key.equals("asset_index")) {
+			string = extension.getMinecraftProvider().getVersionInfo().assetIndex().fabricId(extension.getMinecraftProvider().minecraftVersion());
+		} else if (key.equals("assets_root")) {
+			string = new File(extension.getFiles().getUserCache(), "assets").getAbsolutePath();
+		} else if (key.equals("natives")) {
+			string = extension.getFiles().getNativesDirectory(project).getAbsolutePath();
+		} else if (key.equals("source_roots")) {
+			// Use a set-valued multimap for deduplicating paths.
+			Multimap<String, String> modClasses = MultimapBuilder.hashKeys().linkedHashSetValues().build();
+
+			for (ModSettings mod : extension.getMods()) {
+				for (File file : SourceSetHelper.getClasspath(mod, project)) {
+					modClasses.put(mod.getName(), file.getAbsolutePath());
 				}
+			}
 
-				string = modClasses.entries().stream()
-						.map(entry -> entry.getKey() + "%%" + entry.getValue())
+			string = modClasses.entries().stream()
+					.map(entry -> entry.getKey() + "%%" + entry.getValue())
+					.collect(Collectors.joining(File.pathSeparator));
+		} else if (key.equals("mcp_mappings")) {
+			string = "loom.stub";
+		} else if (json.has(key)) {
+			JsonElement element = json.get(key);
+
+			if (element.isJsonArray()) {
+				string = StreamSupport.stream(element.getAsJsonArray().spliterator(), false)
+						.map(JsonElement::getAsString)
+						.flatMap(str -> {
+							if (str.contains(":")) {
+								return DependencyDownloader.download(project, str, false, false).getFiles().stream()
+										.map(File::getAbsolutePath)
+										.filter(dep -> !dep.contains("bootstraplauncher")); // TODO: Hack
+							}
+
+							return Stream.of(str);
+						})
 						.collect(Collectors.joining(File.pathSeparator));
-			} else if (key.equals("mcp_mappings")) {
-				string = "loom.stub";
-			} else if (json.has(key)) {
-				JsonElement element = json.get(key);
-
-				if (element.isJsonArray()) {
-					string = StreamSupport.stream(element.getAsJsonArray().spliterator(), false)
-							.map(JsonElement::getAsString)
-							.flatMap(str -> {
-								if (str.contains(":")) {
-									return DependencyDownloader.download(project, str, false, false).getFiles().stream()
-											.map(File::getAbsolutePath)
-											.filter(dep -> !dep.contains("bootstraplauncher")); // TODO: Hack
-								}
-
-								return Stream.of(str);
-							})
-							.collect(Collectors.joining(File.pathSeparator));
-				} else {
-					string = element.toString();
-				}
 			} else {
-				project.getLogger().warn("Unrecognized template! " + string);
+				string = element.toString();
 			}
+		} else {
+			project.getLogger().warn("Unrecognized template! " + string);
 		}
 
 		return string;
 	}
 
+	private String writeClasspathFile(String name, Set<File> classpath) {
+		final Path path = extension.getFiles().getProjectPersistentCache().toPath().resolve(name);
+		final String content = classpath.stream()
+				.map(File::getAbsolutePath)
+				.collect(Collectors.joining("\n"));
+
+		try {
+			// Only rewrite the file when the classpath changes, to keep its timestamp stable
+			if (!Files.exists(path) || !Files.readString(path).equals(content)) {
+				Files.writeString(path, content);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		return path.toAbsolutePath().toString();
+	}
+
 	private Set<File> runtimeClasspath() {
 		// Should we actually include the runtime classpath here? Forge doesn't seem to be using this property anyways
 		return minecraftClasspath();
 	}
 
 	private Set<File> minecraftClasspath() {
-		return DependencyDownloader.resolveFiles(project, project.getConfigurations().getByName(Constants.Configurations.FORGE_RUNTIME_LIBRARY), true);
+		if (minecraftClasspath == null) {
+			minecraftClasspath = DependencyDownloader.resolveFiles(project, project.getConfigurations().getByName(Constants.Configurations.FORGE_RUNTIME_LIBRARY), true);
+		}
+
+		return minecraftClasspath;
 	}
 }
@@ -88,6 +88,8 @@ import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.function.FsPathConsumer;
 import net.fabricmc.loom.util.srg.InnerClassRemapper;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class MinecraftPatchedProvider {
@@ -189,12 +191,20 @@ public class MinecraftPatchedProvider {
 
 		if (dirty || Files.notExists(minecraftPatchedSrgJar)) {
 			this.dirty = true;
-			patchJars();
+
+			try (TraceSpan span = BuildTracer.get(project).span("provider", "Patch Forge " + type.id)) {
+				patchJars();
+				span.read(minecraftSrgJar).wrote(minecraftPatchedSrgJar);
+			}
 		}
 
 		if (dirty || Files.notExists(minecraftPatchedSrgAtJar)) {
 			this.dirty = true;
-			accessTransformForge();
+
+			try (TraceSpan span = BuildTracer.get(project).span("provider", "Access transform Forge " + type.id)) {
+				accessTransformForge();
+				span.read(minecraftPatchedSrgJar).wrote(minecraftPatchedSrgAtJar);
+			}
 		}
 	}
 
@@ -28,8 +28,6 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintStream;
-import java.io.StringReader;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
@@ -38,16 +36,13 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.output.NullOutputStream;
 import org.gradle.api.Project;
-import org.gradle.api.logging.LogLevel;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -55,23 +50,26 @@ import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.mappings.GradleMappingContext;
 import net.fabricmc.loom.configuration.providers.mappings.mojmap.MojangMappingLayer;
 import net.fabricmc.loom.configuration.providers.mappings.mojmap.MojangMappingsSpec;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.service.SharedService;
+import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.loom.util.srg.Tsrg2Merger;
 import net.fabricmc.loom.util.srg.Tsrg2Utils;
 import net.fabricmc.loom.util.srg.Tsrg2Writer;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.MappingVisitor;
-import net.fabricmc.mappingio.adapter.ForwardingMappingVisitor;
-import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class SrgProvider extends DependencyProvider {
+	// Bump when the merged output changes, to invalidate existing merged files
+	private static final String MERGE_VERSION = "1";
+
 	private Path srg;
 	private Boolean isTsrgV2;
-	private Path mergedMojangRaw;
 	private Path mergedMojang;
 	private Path mergedMojangTrimmed;
-	private static Map<String, Path> mojmapTsrgMap = new HashMap<>();
-	private static Map<String, Path> mojmapTsrg2Map = new HashMap<>();
+	private Path mergedMojangHash;
 
 	public SrgProvider(Project project) {
 		super(project);
@@ -94,111 +92,52 @@ public class SrgProvider extends DependencyProvider {
 		}
 
 		if (isTsrgV2) {
-			if (!Files.exists(mergedMojangRaw) || !Files.exists(mergedMojang) || !Files.exists(mergedMojangTrimmed) || refreshDeps()) {
-				Stopwatch stopwatch = Stopwatch.createStarted();
-				getProject().getLogger().lifecycle(":merging mappings (InstallerTools, srg + mojmap)");
-				PrintStream out = System.out;
-				PrintStream err = System.err;
+			Path mojmap = getMojmapTsrg2(getProject(), getExtension());
+			String inputHash = MERGE_VERSION + ":" + Checksum.sha1Hex(srg) + ":" + Checksum.sha1Hex(mojmap);
 
-				if (getProject().getGradle().getStartParameter().getLogLevel().compareTo(LogLevel.LIFECYCLE) >= 0) {
-					System.setOut(new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM));
-					System.setErr(new PrintStream(NullOutputStream.NULL_OUTPUT_STREAM));
-				}
+			if (!Files.exists(mergedMojang) || !Files.exists(mergedMojangTrimmed) || !inputHash.equals(readMergedHash())) {
+				Stopwatch stopwatch = Stopwatch.createStarted();
+				getProject().getLogger().lifecycle(":merging mappings (srg + mojmap)");
 
-				Files.deleteIfExists(mergedMojangRaw);
-				Files.deleteIfExists(mergedMojang);
-				net.minecraftforge.installertools.ConsoleTool.main(new String[] {
-						"--task",
-						"MERGE_MAPPING",
-						"--left",
-						getSrg().toAbsolutePath().toString(),
-						"--right",
-						getMojmapTsrg2(getProject(), getExtension()).toAbsolutePath().toString(),
-						"--classes",
-						"--output",
-						mergedMojangRaw.toAbsolutePath().toString()
-				});
+				MemoryMappingTree srgTree = new MemoryMappingTree();
+				MappingReader.read(srg, srgTree);
+				MemoryMappingTree mojmapTree = new MemoryMappingTree();
+				MappingReader.read(mojmap, mojmapTree);
+				MemoryMappingTree merged = Tsrg2Merger.merge(srgTree, mojmapTree);
 
-				MemoryMappingTree tree = new MemoryMappingTree();
-				MappingReader.read(new StringReader(FileUtils.readFileToString(mergedMojangRaw.toFile(), StandardCharsets.UTF_8)), new FieldDescWrappingVisitor(tree));
-				Files.writeString(mergedMojang, Tsrg2Writer.serialize(tree), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+				// Drop the hash first so that a partially written output is never considered up-to-date
+				Files.deleteIfExists(mergedMojangHash);
 
-				for (MappingTree.ClassMapping classDef : tree.getClasses()) {
-					for (MappingTree.MethodMapping methodDef : classDef.getMethods()) {
-						methodDef.getArgs().clear();
-					}
+				try (BufferedWriter writer = Files.newBufferedWriter(mergedMojang, StandardCharsets.UTF_8)) {
+					Tsrg2Writer.write(merged, writer, true);
 				}
 
-				Files.writeString(mergedMojangTrimmed, Tsrg2Writer.serialize(tree), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-				if (getProject().getGradle().getStartParameter().getLogLevel().compareTo(LogLevel.LIFECYCLE) >= 0) {
-					System.setOut(out);
-					System.setErr(err);
+				try (BufferedWriter writer = Files.newBufferedWriter(mergedMojangTrimmed, StandardCharsets.UTF_8)) {
+					Tsrg2Writer.write(merged, writer, false);
 				}
 
-				getProject().getLogger().lifecycle(":merged mappings (InstallerTools, srg + mojmap) in " + stopwatch.stop());
+				Files.writeString(mergedMojangHash, inputHash, StandardCharsets.UTF_8);
+				getProject().getLogger().lifecycle(":merged mappings (srg + mojmap) in " + stopwatch.stop());
 			}
 		}
 	}
 
-	// Read mojmap and apply field descs to the tsrg2
-	private class FieldDescWrappingVisitor extends ForwardingMappingVisitor {
-		private final Map<FieldKey, String> fieldDescMap = new HashMap<>();
-		private String lastClass;
-
-		protected FieldDescWrappingVisitor(MappingVisitor next) throws IOException {
-			super(next);
-			MemoryMappingTree mojmap = new MemoryMappingTree();
-			MappingReader.read(getMojmapTsrg2(getProject(), getExtension()), mojmap);
-
-			for (MappingTree.ClassMapping classMapping : mojmap.getClasses()) {
-				for (MappingTree.FieldMapping fieldMapping : classMapping.getFields()) {
-					fieldDescMap.put(new FieldKey(classMapping.getSrcName(), fieldMapping.getSrcName()), fieldMapping.getSrcDesc());
-				}
-			}
-		}
-
-		@Override
-		public boolean visitClass(String srcName) throws IOException {
-			if (super.visitClass(srcName)) {
-				this.lastClass = srcName;
-				return true;
-			} else {
-				return false;
-			}
-		}
-
-		@Override
-		public boolean visitField(String srcName, String srcDesc) throws IOException {
-			if (srcDesc == null) {
-				srcDesc = fieldDescMap.get(new FieldKey(lastClass, srcName));
-			}
-
-			return super.visitField(srcName, srcDesc);
-		}
-
-		private record FieldKey(String owner, String name) {
-		}
+	private String readMergedHash() throws IOException {
+		return Files.exists(mergedMojangHash) ? Files.readString(mergedMojangHash, StandardCharsets.UTF_8) : null;
 	}
 
 	private void init(String version) {
 		File dir = getMinecraftProvider().dir("srg/" + version);
 		srg = new File(dir, "srg.tsrg").toPath();
-		mergedMojangRaw = new File(dir, "srg-mojmap-merged-raw.tsrg").toPath();
 		mergedMojang = new File(dir, "srg-mojmap-merged.tsrg").toPath();
 		mergedMojangTrimmed = new File(dir, "srg-mojmap-merged-trimmed.tsrg").toPath();
+		mergedMojangHash = new File(dir, "srg-mojmap-merged.hash").toPath();
 	}
 
 	public Path getSrg() {
 		return srg;
 	}
 
-	public Path getMergedMojangRaw() {
-		if (!isTsrgV2()) throw new IllegalStateException("May not access merged mojmap srg if not on modern Minecraft!");
-
-		return mergedMojangRaw;
-	}
-
 	public Path getMergedMojang() {
 		if (!isTsrgV2()) throw new IllegalStateException("May not access merged mojmap srg if not on modern Minecraft!");
 
@@ -216,38 +155,66 @@ public class SrgProvider extends DependencyProvider {
 	}
 
 	public static Path getMojmapTsrg(Project project, LoomGradleExtension extension) throws IOException {
-		String minecraftVersion = extension.getMinecraftProvider().minecraftVersion();
-		if (mojmapTsrgMap.containsKey(minecraftVersion)) return mojmapTsrgMap.get(minecraftVersion);
-
 		Path mojmapTsrg = extension.getMinecraftProvider().dir("forge").toPath().resolve("mojmap.tsrg");
-
-		if (Files.notExists(mojmapTsrg) || extension.refreshDeps()) {
-			try (BufferedWriter writer = Files.newBufferedWriter(mojmapTsrg, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-				Tsrg2Utils.writeTsrg(visitor -> visitMojmap(visitor, project),
-						MappingsNamespace.NAMED.toString(), false, writer);
-			}
-		}
-
-		mojmapTsrgMap.put(minecraftVersion, mojmapTsrg);
-		return mojmapTsrg;
+		return getGeneratedFile(project, extension, mojmapTsrg, (tree, writer) -> Tsrg2Utils.writeTsrg(tree, MappingsNamespace.NAMED.toString(), writer));
 	}
 
 	public static Path getMojmapTsrg2(Project project, LoomGradleExtension extension) throws IOException {
-		String minecraftVersion = extension.getMinecraftProvider().minecraftVersion();
-		if (mojmapTsrg2Map.containsKey(minecraftVersion)) return mojmapTsrg2Map.get(minecraftVersion);
-
 		Path mojmapTsrg2 = extension.getMinecraftProvider().dir("forge").toPath().resolve("mojmap.tsrg2");
+		return getGeneratedFile(project, extension, mojmapTsrg2, (tree, writer) -> Tsrg2Writer.write(tree, writer, true));
+	}
+
+	/**
+	 * Generates a mojmap file at most once per build, unless the file has changed since.
+	 */
+	private static Path getGeneratedFile(Project project, LoomGradleExtension extension, Path path, MojmapWriter mojmapWriter) throws IOException {
+		final GeneratedFiles generatedFiles = SharedServiceManager.get(project).getOrCreateService("SrgProvider:GeneratedFiles", GeneratedFiles::new);
+
+		synchronized (generatedFiles) {
+			if (generatedFiles.contains(path)) {
+				return path;
+			}
 
-		if (Files.notExists(mojmapTsrg2) || extension.refreshDeps()) {
-			try (BufferedWriter writer = Files.newBufferedWriter(mojmapTsrg2, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			if (Files.notExists(path) || extension.refreshDeps()) {
 				MemoryMappingTree tree = new MemoryMappingTree();
 				visitMojmap(tree, project);
-				writer.write(Tsrg2Writer.serialize(tree));
+				Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+
+				try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+					mojmapWriter.write(tree, writer);
+				}
+
+				Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
 			}
+
+			generatedFiles.add(path);
+		}
+
+		return path;
+	}
+
+	@FunctionalInterface
+	private interface MojmapWriter {
+		void write(MemoryMappingTree tree, BufferedWriter writer) throws IOException;
+	}
+
+	/**
+	 * The mojmap files generated or checked during this build, keyed on their path, size and last modified time.
+	 */
+	private static final class GeneratedFiles implements SharedService {
+		private final Set<String> keys = new HashSet<>();
+
+		boolean contains(Path path) throws IOException {
+			return Files.exists(path) && keys.contains(getKey(path));
 		}
 
-		mojmapTsrg2Map.put(minecraftVersion, mojmapTsrg2);
-		return mojmapTsrg2;
+		void add(Path path) throws IOException {
+			keys.add(getKey(path));
+		}
+
+		private static String getKey(Path path) throws IOException {
+			return path.toAbsolutePath() + "@" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+		}
 	}
 
 	private static void visitMojmap(MappingVisitor visitor, Project project) {
@@ -52,6 +52,8 @@ import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ForgeToolExecutor;
 import net.fabricmc.loom.util.download.DownloadBuilder;
 import net.fabricmc.loom.util.function.CollectionUtil;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 
 public final class McpExecutor {
 	private static final LogLevel STEP_LOG_LEVEL = LogLevel.LIFECYCLE;
@@ -125,7 +127,11 @@ public final class McpExecutor {
 			project.getLogger().log(STEP_LOG_LEVEL, ":step {}/{} - {}", currentStepIndex, totalSteps, stepLogic.getDisplayName(currentStep.name()));
 
 			Stopwatch stopwatch = Stopwatch.createStarted();
-			stepLogic.execute(new ExecutionContextImpl(currentStep));
+
+			try (TraceSpan span = BuildTracer.get(project).span("mcp", currentStep.name())) {
+				stepLogic.execute(new ExecutionContextImpl(currentStep));
+			}
+
 			project.getLogger().log(STEP_LOG_LEVEL, ":{} done in {}", currentStep.name(), stopwatch.stop());
 
 			if (currentStep.name().equals(step)) {
@@ -42,6 +42,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.intermediate.IntermediateMappingsProvider;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.util.service.DaemonCache;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.mappingio.adapter.MappingNsCompleter;
@@ -50,10 +51,12 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class IntermediateMappingsService implements SharedService {
 	private final Path intermediaryTiny;
-	private final Supplier<MemoryMappingTree> memoryMappingTree = Suppliers.memoize(this::createMemoryMappingTree);
+	private final DaemonCache daemonCache;
+	private final Supplier<MemoryMappingTree> memoryMappingTree = Suppliers.memoize(this::getOrCreateMemoryMappingTree);
 
-	private IntermediateMappingsService(Path intermediaryTiny) {
+	private IntermediateMappingsService(Path intermediaryTiny, DaemonCache daemonCache) {
 		this.intermediaryTiny = intermediaryTiny;
+		this.daemonCache = daemonCache;
 	}
 
 	public static synchronized IntermediateMappingsService getInstance(Project project, MinecraftProvider minecraftProvider) {
@@ -61,11 +64,16 @@ public final class IntermediateMappingsService implements SharedService {
 		final IntermediateMappingsProvider intermediateProvider = extension.getIntermediateMappingsProvider();
 		final String id = "IntermediateMappingsService:%s:%s".formatted(intermediateProvider.getName(), intermediateProvider.getMinecraftVersion().get());
 
-		return SharedServiceManager.get(project).getOrCreateService(id, () -> create(intermediateProvider, minecraftProvider));
+		final SharedServiceManager sharedServiceManager = SharedServiceManager.get(project);
+		return sharedServiceManager.getOrCreateService(id, () -> create(intermediateProvider, minecraftProvider, sharedServiceManager.getDaemonCache()));
 	}
 
 	@VisibleForTesting
 	public static IntermediateMappingsService create(IntermediateMappingsProvider intermediateMappingsProvider, MinecraftProvider minecraftProvider) {
+		return create(intermediateMappingsProvider, minecraftProvider, DaemonCache.DISABLED);
+	}
+
+	private static IntermediateMappingsService create(IntermediateMappingsProvider intermediateMappingsProvider, MinecraftProvider minecraftProvider, DaemonCache daemonCache) {
 		final Path intermediaryTiny = minecraftProvider.file(intermediateMappingsProvider.getName() + ".tiny").toPath();
 
 		try {
@@ -80,7 +88,11 @@ public final class IntermediateMappingsService implements SharedService {
 			throw new UncheckedIOException("Failed to provide intermediate mappings", e);
 		}
 
-		return new IntermediateMappingsService(intermediaryTiny);
+		return new IntermediateMappingsService(intermediaryTiny, daemonCache);
+	}
+
+	private MemoryMappingTree getOrCreateMemoryMappingTree() {
+		return daemonCache.getMappingTree("IntermediateMappingsService:" + getIntermediaryTiny(), getIntermediaryTiny(), this::createMemoryMappingTree);
 	}
 
 	private MemoryMappingTree createMemoryMappingTree() {
@@ -90,7 +90,8 @@ public class LayeredMappingsDependency extends AbstractModuleDependency implemen
 
 		if (!Files.exists(mappingsFile) || mappingContext.refreshDeps()) {
 			try {
-				var processor = new LayeredMappingsProcessor(layeredMappingSpec);
+				var layerCache = new MappingLayerCache(mappingContext.minecraftProvider().dir("layered/cache").toPath(), mappingContext.refreshDeps());
+				var processor = new LayeredMappingsProcessor(layeredMappingSpec, layerCache);
 				List<MappingLayer> layers = processor.resolveLayers(mappingContext);
 
 				Files.deleteIfExists(mappingsFile);
@@ -45,9 +45,16 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class LayeredMappingsProcessor {
 	private final LayeredMappingSpec layeredMappingSpec;
+	@Nullable
+	private final MappingLayerCache layerCache;
 
 	public LayeredMappingsProcessor(LayeredMappingSpec spec) {
+		this(spec, null);
+	}
+
+	public LayeredMappingsProcessor(LayeredMappingSpec spec, @Nullable MappingLayerCache layerCache) {
 		this.layeredMappingSpec = spec;
+		this.layerCache = layerCache;
 	}
 
 	public List<MappingLayer> resolveLayers(MappingContext context) {
@@ -93,7 +100,11 @@ public class LayeredMappingsProcessor {
 			}
 
 			try {
-				layer.visit(workingTree);
+				if (layerCache != null && layer instanceof CacheableMappingLayer cacheableLayer) {
+					layerCache.visit(cacheableLayer, workingTree);
+				} else {
+					layer.visit(workingTree);
+				}
 			} catch (IOException e) {
 				throw new IOException("Failed to visit: " + layer.getClass(), e);
 			}
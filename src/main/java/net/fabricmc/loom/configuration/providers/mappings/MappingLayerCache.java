@@ -0,0 +1,371 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.mappings;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Caches the visited output of {@link CacheableMappingLayer}s as a compact binary mapping stream, so that layers whose inputs
+ * did not change do not need to parse their raw inputs again.
+ *
+ * <p>Strings are pooled, as names and descriptors repeat a lot.
+ */
+public final class MappingLayerCache {
+	private static final int MAGIC = 0x4C4D4C43; // LMLC
+	private static final int VERSION = 1;
+
+	private final Path directory;
+	private final boolean refresh;
+
+	public MappingLayerCache(Path directory, boolean refresh) {
+		this.directory = directory;
+		this.refresh = refresh;
+	}
+
+	public void visit(CacheableMappingLayer layer, MappingVisitor visitor) throws IOException {
+		final String key = layer.getCacheKey();
+
+		if (key == null) {
+			layer.visit(visitor);
+			return;
+		}
+
+		final Path cacheFile = directory.resolve(Checksum.toHex(Checksum.sha256(VERSION + ":" + key)) + ".bin");
+
+		if (!refresh && Files.exists(cacheFile)) {
+			final byte[] data = Files.readAllBytes(cacheFile);
+
+			if (isValid(data)) {
+				layer.onCacheHit();
+				read(data, visitor);
+				return;
+			}
+		}
+
+		final MemoryMappingTree mappingTree = new MemoryMappingTree();
+		layer.visit(mappingTree);
+
+		write(mappingTree, cacheFile);
+		mappingTree.accept(visitor);
+	}
+
+	private static void write(MemoryMappingTree mappingTree, Path cacheFile) throws IOException {
+		Files.createDirectories(cacheFile.getParent());
+		final Path tempFile = Files.createTempFile(cacheFile.getParent(), "layer", ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+			new Output(out).writeTree(mappingTree);
+		}
+
+		Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static boolean isValid(byte[] data) {
+		if (data.length < 8) {
+			return false;
+		}
+
+		final Input input = new Input(data);
+		return input.readInt() == MAGIC && input.readInt() == VERSION;
+	}
+
+	private static void read(byte[] data, MappingVisitor visitor) throws IOException {
+		do {
+			final Input in = new Input(data);
+			in.readInt(); // Magic
+			in.readInt(); // Version
+
+			final String srcNamespace = in.readString();
+			final int dstCount = in.readVarInt();
+			final List<String> dstNamespaces = new ArrayList<>(dstCount);
+
+			for (int i = 0; i < dstCount; i++) {
+				dstNamespaces.add(in.readString());
+			}
+
+			if (srcNamespace == null) {
+				// Nothing was visited
+				return;
+			}
+
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+			}
+
+			if (visitor.visitContent()) {
+				readClasses(in, visitor, dstCount);
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	// Everything is always read to keep the string pool in sync, but only visited when the visitor wants it.
+	private static void readClasses(Input in, MappingVisitor visitor, int dstCount) throws IOException {
+		final int classCount = in.readVarInt();
+
+		for (int c = 0; c < classCount; c++) {
+			final String className = in.readString();
+			final boolean visitClass = readElement(in, visitor, MappedElementKind.CLASS, dstCount, visitor.visitClass(className));
+			final int fieldCount = in.readVarInt();
+
+			for (int f = 0; f < fieldCount; f++) {
+				final String srcName = in.readString();
+				final String srcDesc = in.readString();
+				readElement(in, visitor, MappedElementKind.FIELD, dstCount, visitClass && visitor.visitField(srcName, srcDesc));
+			}
+
+			final int methodCount = in.readVarInt();
+
+			for (int m = 0; m < methodCount; m++) {
+				final String srcName = in.readString();
+				final String srcDesc = in.readString();
+				final boolean visitMethod = readElement(in, visitor, MappedElementKind.METHOD, dstCount, visitClass && visitor.visitMethod(srcName, srcDesc));
+				final int argCount = in.readVarInt();
+
+				for (int a = 0; a < argCount; a++) {
+					final int argPosition = in.readVarInt() - 1;
+					final int lvIndex = in.readVarInt() - 1;
+					final String argName = in.readString();
+					readElement(in, visitor, MappedElementKind.METHOD_ARG, dstCount, visitMethod && visitor.visitMethodArg(argPosition, lvIndex, argName));
+				}
+
+				final int varCount = in.readVarInt();
+
+				for (int v = 0; v < varCount; v++) {
+					final int lvtRowIndex = in.readVarInt() - 1;
+					final int lvIndex = in.readVarInt() - 1;
+					final int startOpIdx = in.readVarInt() - 1;
+					final String varName = in.readString();
+					readElement(in, visitor, MappedElementKind.METHOD_VAR, dstCount, visitMethod && visitor.visitMethodVar(lvtRowIndex, lvIndex, startOpIdx, varName));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the destination names and comment of an element, visiting them when requested.
+	 *
+	 * @return true when the content of the element should be visited
+	 */
+	private static boolean readElement(Input in, MappingVisitor visitor, MappedElementKind kind, int dstCount, boolean visit) throws IOException {
+		final String[] dstNames = new String[dstCount];
+
+		for (int i = 0; i < dstCount; i++) {
+			dstNames[i] = in.readString();
+		}
+
+		final String comment = in.readString();
+
+		if (!visit) {
+			return false;
+		}
+
+		for (int i = 0; i < dstCount; i++) {
+			if (dstNames[i] != null) {
+				visitor.visitDstName(kind, i, dstNames[i]);
+			}
+		}
+
+		if (!visitor.visitElementContent(kind)) {
+			return false;
+		}
+
+		if (comment != null) {
+			visitor.visitComment(kind, comment);
+		}
+
+		return true;
+	}
+
+	private static final class Output {
+		private final DataOutputStream out;
+		private final Map<String, Integer> pool = new HashMap<>();
+		private int dstCount;
+
+		private Output(DataOutputStream out) {
+			this.out = out;
+		}
+
+		private void writeTree(MemoryMappingTree mappingTree) throws IOException {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			writeString(mappingTree.getSrcNamespace());
+			dstCount = mappingTree.getDstNamespaces().size();
+			writeVarInt(dstCount);
+
+			for (String dstNamespace : mappingTree.getDstNamespaces()) {
+				writeString(dstNamespace);
+			}
+
+			final Collection<? extends MappingTree.ClassMapping> classes = mappingTree.getClasses();
+			writeVarInt(classes.size());
+
+			for (MappingTree.ClassMapping classMapping : classes) {
+				writeString(classMapping.getSrcName());
+				writeElement(classMapping);
+
+				writeVarInt(classMapping.getFields().size());
+
+				for (MappingTree.FieldMapping fieldMapping : classMapping.getFields()) {
+					writeString(fieldMapping.getSrcName());
+					writeString(fieldMapping.getSrcDesc());
+					writeElement(fieldMapping);
+				}
+
+				writeVarInt(classMapping.getMethods().size());
+
+				for (MappingTree.MethodMapping methodMapping : classMapping.getMethods()) {
+					writeString(methodMapping.getSrcName());
+					writeString(methodMapping.getSrcDesc());
+					writeElement(methodMapping);
+
+					writeVarInt(methodMapping.getArgs().size());
+
+					for (MappingTree.MethodArgMapping argMapping : methodMapping.getArgs()) {
+						writeVarInt(argMapping.getArgPosition() + 1);
+						writeVarInt(argMapping.getLvIndex() + 1);
+						writeString(argMapping.getSrcName());
+						writeElement(argMapping);
+					}
+
+					writeVarInt(methodMapping.getVars().size());
+
+					for (MappingTree.MethodVarMapping varMapping : methodMapping.getVars()) {
+						writeVarInt(varMapping.getLvtRowIndex() + 1);
+						writeVarInt(varMapping.getLvIndex() + 1);
+						writeVarInt(varMapping.getStartOpIdx() + 1);
+						writeString(varMapping.getSrcName());
+						writeElement(varMapping);
+					}
+				}
+			}
+		}
+
+		private void writeElement(MappingTree.ElementMapping element) throws IOException {
+			for (int i = 0; i < dstCount; i++) {
+				writeString(element.getDstName(i));
+			}
+
+			writeString(element.getComment());
+		}
+
+		// 0 is null, 1 is a new string followed by its bytes, anything else is an index into the pool.
+		private void writeString(@Nullable String string) throws IOException {
+			if (string == null) {
+				writeVarInt(0);
+				return;
+			}
+
+			final Integer index = pool.get(string);
+
+			if (index != null) {
+				writeVarInt(index + 2);
+				return;
+			}
+
+			pool.put(string, pool.size());
+
+			final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(1);
+			writeVarInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+
+			out.writeByte(value);
+		}
+	}
+
+	private static final class Input {
+		private final byte[] data;
+		private final List<String> pool = new ArrayList<>();
+		private int position;
+
+		private Input(byte[] data) {
+			this.data = data;
+		}
+
+		private int readInt() {
+			final int value = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16) | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+			position += 4;
+			return value;
+		}
+
+		@Nullable
+		private String readString() {
+			final int value = readVarInt();
+
+			if (value == 0) {
+				return null;
+			} else if (value == 1) {
+				final int length = readVarInt();
+				final String string = new String(data, position, length, StandardCharsets.UTF_8);
+				position += length;
+				pool.add(string);
+				return string;
+			}
+
+			return pool.get(value - 2);
+		}
+
+		private int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+
+			do {
+				b = data[position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+
+			return value;
+		}
+	}
+}
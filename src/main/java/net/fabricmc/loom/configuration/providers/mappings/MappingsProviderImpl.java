@@ -29,6 +29,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
@@ -58,12 +59,14 @@ import org.slf4j.LoggerFactory;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.DependencyInfo;
 import net.fabricmc.loom.configuration.providers.forge.FieldMigratedMappingsProvider;
 import net.fabricmc.loom.configuration.providers.forge.SrgProvider;
 import net.fabricmc.loom.configuration.providers.mappings.tiny.MappingsMerger;
 import net.fabricmc.loom.configuration.providers.mappings.tiny.TinyJarInfo;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
@@ -73,8 +76,15 @@ import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.loom.util.srg.MCPReader;
 import net.fabricmc.loom.util.srg.SrgMerger;
 import net.fabricmc.loom.util.srg.SrgNamedWriter;
+import net.fabricmc.mappingio.MappedElementKind;
 import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.adapter.ForwardingMappingVisitor;
+import net.fabricmc.mappingio.adapter.MappingDstNsReorder;
+import net.fabricmc.mappingio.adapter.MappingNsRenamer;
+import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.format.Tiny2Writer;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.stitch.Command;
 import net.fabricmc.stitch.commands.CommandProposeFieldNames;
@@ -83,6 +93,7 @@ import net.fabricmc.stitch.commands.tinyv2.TinyV2Writer;
 
 public class MappingsProviderImpl implements MappingsProvider, SharedService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MappingsProviderImpl.class);
+	private static final int MIXIN_AP_MAPPINGS_VERSION = 1;
 
 	private Supplier<MemoryMappingTree> mappingTree;
 	private Supplier<MemoryMappingTree> mappingTreeWithSrg;
@@ -96,6 +107,7 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 	public final Path tinyMappingsJar;
 	public Path tinyMappingsWithSrg;
 	public final Map<String, Path> mixinTinyMappings; // The mixin mappings have other names in intermediary.
+	private final Map<String, Path> mixinApMappings; // Only the namespaces needed by the mixin annotation processor.
 	public final Path srgToNamedSrg; // FORGE: srg to named in srg file format
 	private final Path unpickDefinitions;
 
@@ -115,6 +127,7 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 		this.unpickDefinitions = mappingsWorkingDir.resolve("mappings.unpick");
 		this.tinyMappingsWithSrg = mappingsWorkingDir.resolve("mappings-srg.tiny");
 		this.mixinTinyMappings = new HashMap<>();
+		this.mixinApMappings = new HashMap<>();
 		this.srgToNamedSrg = mappingsWorkingDir.resolve("mappings-srg-named.srg");
 
 		this.intermediaryService = intermediaryService;
@@ -207,7 +220,7 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 			ZipUtils.add(tinyMappingsJar, "mappings/mappings.tiny", Files.readAllBytes(tinyMappings));
 		}
 
-		mappingTree = Suppliers.memoize(() -> readMappings(tinyMappings));
+		mappingTree = Suppliers.memoize(() -> readMappings(project, tinyMappings));
 	}
 
 	public void setupPost(Project project) throws IOException {
@@ -223,7 +236,7 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 				project.getLogger().info(":merged srg mappings in " + stopwatch.stop());
 			}
 
-			mappingTreeWithSrg = Suppliers.memoize(() -> readMappings(tinyMappingsWithSrg));
+			mappingTreeWithSrg = Suppliers.memoize(() -> readMappings(project, tinyMappingsWithSrg));
 		}
 	}
 
@@ -326,14 +339,16 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 		}
 	}
 
-	private static MemoryMappingTree readMappings(Path file) {
-		try {
-			MemoryMappingTree mappingTree = new MemoryMappingTree();
-			MappingReader.read(file, mappingTree);
-			return mappingTree;
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to read mappings", e);
-		}
+	private static MemoryMappingTree readMappings(Project project, Path file) {
+		return SharedServiceManager.get(project).getDaemonCache().getMappingTree("MappingsProvider:" + file, file, () -> {
+			try {
+				MemoryMappingTree mappingTree = new MemoryMappingTree();
+				MappingReader.read(file, mappingTree);
+				return mappingTree;
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read mappings", e);
+			}
+		});
 	}
 
 	private void readAndMergeMCP(Project project, Path mcpJar) throws Exception {
@@ -545,6 +560,80 @@ public class MappingsProviderImpl implements MappingsProvider, SharedService {
 		});
 	}
 
+	/**
+	 * Returns the mappings passed to the mixin annotation processor, which is parsed by every compile task with mixins.
+	 *
+	 * <p>Unlike {@link #getReplacedTarget(LoomGradleExtension, String)} this only contains the {@code named} and
+	 * {@code intermediary} namespaces and no parameters, locals or comments, as the annotation processor doesn't use them.
+	 * The file is cached by the mappings id and namespace, and regenerated when the source mappings change.
+	 */
+	public synchronized Path getMixinAnnotationProcessorMappings(LoomGradleExtension loom, String namespace) {
+		return mixinApMappings.computeIfAbsent(namespace, k -> {
+			final Path source = loom.shouldGenerateSrgTiny() ? tinyMappingsWithSrg : tinyMappings;
+			final Path path = mappingsWorkingDir.resolve("mappings-mixin-ap-" + namespace + ".tiny");
+			final Path hashPath = mappingsWorkingDir.resolve("mappings-mixin-ap-" + namespace + ".hash");
+
+			try {
+				final String hash = MIXIN_AP_MAPPINGS_VERSION + ":" + Checksum.sha1Hex(source);
+
+				if (Files.exists(path) && Files.exists(hashPath) && !loom.refreshDeps() && Files.readString(hashPath).equals(hash)) {
+					return path;
+				}
+
+				final MemoryMappingTree mappingTree = new MemoryMappingTree();
+				MappingVisitor visitor = mappingTree;
+
+				if (!namespace.equals(MappingsNamespace.INTERMEDIARY.toString())) {
+					// fabric-mixin-compile-extensions only supports intermediary, see IntermediaryNamespaces
+					visitor = new MappingNsRenamer(visitor, Map.of(
+							MappingsNamespace.INTERMEDIARY.toString(), "yraidemretni",
+							namespace, MappingsNamespace.INTERMEDIARY.toString()
+					));
+				}
+
+				try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+					MappingReader.read(reader, new MemberNamesOnlyVisitor(visitor));
+				}
+
+				final Path tempPath = mappingsWorkingDir.resolve(path.getFileName() + ".tmp");
+
+				try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+					final MappingVisitor tinyWriter = new MappingDstNsReorder(new Tiny2Writer(writer, false), List.of(MappingsNamespace.NAMED.toString()));
+					mappingTree.accept(new MappingSourceNsSwitch(tinyWriter, MappingsNamespace.INTERMEDIARY.toString()));
+				}
+
+				Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+				Files.writeString(hashPath, hash);
+				return path;
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to write mixin annotation processor mappings", e);
+			}
+		});
+	}
+
+	/**
+	 * Drops the parameters, locals and comments from the mappings.
+	 */
+	private static final class MemberNamesOnlyVisitor extends ForwardingMappingVisitor {
+		private MemberNamesOnlyVisitor(MappingVisitor next) {
+			super(next);
+		}
+
+		@Override
+		public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) {
+			return false;
+		}
+
+		@Override
+		public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			return false;
+		}
+
+		@Override
+		public void visitComment(MappedElementKind targetKind, String comment) {
+		}
+	}
+
 	public record UnpickMetadata(String unpickGroup, String unpickVersion) {
 	}
 
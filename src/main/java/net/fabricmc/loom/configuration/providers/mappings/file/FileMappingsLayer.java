@@ -34,8 +34,10 @@ import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.CacheableMappingLayer;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
 import net.fabricmc.loom.configuration.providers.mappings.intermediary.IntermediaryMappingLayer;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.MappingReader;
@@ -51,7 +53,7 @@ public record FileMappingsLayer(
 		boolean enigma, // Enigma cannot be automatically detected since it's stored in a directory.
 		boolean unpick,
 		String mergeNamespace
-) implements MappingLayer, UnpickLayer {
+) implements CacheableMappingLayer, UnpickLayer {
 	private static final String UNPICK_METADATA_PATH = "extras/unpick.json";
 	private static final String UNPICK_DEFINITIONS_PATH = "extras/definitions.unpick";
 
@@ -81,6 +83,16 @@ public record FileMappingsLayer(
 		MappingReader.read(path, enigma ? MappingFormat.ENIGMA : null, renamer);
 	}
 
+	@Override
+	public @Nullable String getCacheKey() throws IOException {
+		if (Files.isDirectory(path)) {
+			// Hashing an enigma directory is about as expensive as reading it.
+			return null;
+		}
+
+		return "file:%s:%s:%s:%s:%s:%s".formatted(Checksum.sha1Hex(path), mappingPath, fallbackSourceNamespace, fallbackTargetNamespace, enigma, mergeNamespace);
+	}
+
 	@Override
 	public MappingsNamespace getSourceNamespace() {
 		return MappingsNamespace.of(mergeNamespace);
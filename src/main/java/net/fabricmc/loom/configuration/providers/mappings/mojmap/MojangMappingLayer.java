@@ -36,8 +36,10 @@ import org.gradle.api.logging.Logger;
 
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.CacheableMappingLayer;
 import net.fabricmc.loom.configuration.providers.mappings.intermediary.IntermediaryMappingLayer;
 import net.fabricmc.loom.configuration.providers.mappings.utils.DstNameFilterMappingVisitor;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.mappingio.MappingVisitor;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.format.ProGuardReader;
@@ -47,7 +49,7 @@ public record MojangMappingLayer(String minecraftVersion,
 									Path serverMappings,
 									boolean nameSyntheticMembers,
 									Logger logger,
-									MojangMappingsSpec.SilenceLicenseOption silenceLicense) implements MappingLayer {
+									MojangMappingsSpec.SilenceLicenseOption silenceLicense) implements CacheableMappingLayer {
 	private static final Pattern SYNTHETIC_NAME_PATTERN = Pattern.compile("^(access|this|val\\$this|lambda\\$.*)\\$[0-9]+$");
 	@Override
 	public void visit(MappingVisitor mappingVisitor) throws IOException {
@@ -68,6 +70,19 @@ public record MojangMappingLayer(String minecraftVersion,
 		}
 	}
 
+	@Override
+	public String getCacheKey() throws IOException {
+		return "mojang:%s:%s:%s".formatted(Checksum.sha1Hex(clientMappings), Checksum.sha1Hex(serverMappings), nameSyntheticMembers);
+	}
+
+	@Override
+	public void onCacheHit() {
+		// Always show the license, even when the mappings are not read again.
+		if (!silenceLicense.isSilent()) {
+			printMappingsLicense(clientMappings);
+		}
+	}
+
 	private void printMappingsLicense(Path clientMappings) {
 		try (BufferedReader clientBufferedReader = Files.newBufferedReader(clientMappings, StandardCharsets.UTF_8)) {
 			logger().warn("~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~");
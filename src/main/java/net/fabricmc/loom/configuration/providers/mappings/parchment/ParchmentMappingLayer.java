@@ -27,12 +27,13 @@ package net.fabricmc.loom.configuration.providers.mappings.parchment;
 import java.io.IOException;
 import java.nio.file.Path;
 
-import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.CacheableMappingLayer;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.MappingVisitor;
 
-public record ParchmentMappingLayer(Path parchmentFile, boolean removePrefix) implements MappingLayer {
+public record ParchmentMappingLayer(Path parchmentFile, boolean removePrefix) implements CacheableMappingLayer {
 	private static final String PARCHMENT_DATA_FILE_NAME = "parchment.json";
 
 	@Override
@@ -46,6 +47,11 @@ public record ParchmentMappingLayer(Path parchmentFile, boolean removePrefix) im
 		parchmentData.visit(mappingVisitor, MappingsNamespace.NAMED.toString());
 	}
 
+	@Override
+	public String getCacheKey() throws IOException {
+		return "parchment:%s:%s".formatted(Checksum.sha1Hex(parchmentFile), removePrefix);
+	}
+
 	private ParchmentTreeV1 getParchmentData() throws IOException {
 		return ZipUtils.unpackJackson(parchmentFile, PARCHMENT_DATA_FILE_NAME, ParchmentTreeV1.class);
 	}
@@ -33,8 +33,6 @@ import java.util.Objects;
 
 import org.gradle.api.Project;
 
-import net.fabricmc.stitch.merge.JarMerger;
-
 public class MergedMinecraftProvider extends MinecraftProvider {
 	private Path minecraftMergedJar;
 
@@ -87,10 +85,9 @@ public class MergedMinecraftProvider extends MinecraftProvider {
 
 		Objects.requireNonNull(jarToMerge, "Cannot merge null input jar?");
 
-		try (JarMerger jarMerger = new JarMerger(getMinecraftClientJar(), jarToMerge, minecraftMergedJar.toFile())) {
-			jarMerger.enableSyntheticParamsOffset();
-			jarMerger.merge();
-		}
+		MinecraftJarMerger jarMerger = new MinecraftJarMerger(getMinecraftClientJar().toPath(), jarToMerge.toPath(), minecraftMergedJar);
+		jarMerger.enableSyntheticParamsOffset();
+		jarMerger.merge();
 	}
 
 	public Path getMergedJar() {
@@ -0,0 +1,209 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.minecraft;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.stitch.merge.ClassMerger;
+import net.fabricmc.stitch.merge.SyntheticParameterClassVisitor;
+
+/**
+ * Merges the client and server jars into a single jar, annotating sided classes and members.
+ *
+ * <p>This produces the same output as stitch's {@link net.fabricmc.stitch.merge.JarMerger}, using its class merger,
+ * but reads both jars concurrently with {@link ZipFile} and merges the classes on all cores.
+ * Entries are written in the same sorted order, directory entries are created for the parents of each entry
+ * and the timestamps are copied the way stitch copies them.
+ */
+public class MinecraftJarMerger {
+	private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
+	private static final byte[] MANIFEST = "Manifest-Version: 1.0\nMain-Class: net.minecraft.client.Main\n".getBytes(StandardCharsets.UTF_8);
+	private static final ClassMerger CLASS_MERGER = new ClassMerger();
+
+	private final Path clientInputJar;
+	private final Path serverInputJar;
+	private final Path outputJar;
+	private boolean offsetSyntheticsParams = false;
+
+	public MinecraftJarMerger(Path clientInputJar, Path serverInputJar, Path outputJar) {
+		this.clientInputJar = Objects.requireNonNull(clientInputJar);
+		this.serverInputJar = Objects.requireNonNull(serverInputJar);
+		this.outputJar = Objects.requireNonNull(outputJar);
+	}
+
+	public void enableSyntheticParamsOffset() {
+		offsetSyntheticsParams = true;
+	}
+
+	public void merge() throws IOException {
+		Files.deleteIfExists(outputJar);
+
+		final CompletableFuture<Map<String, Entry>> clientFuture = CompletableFuture.supplyAsync(() -> readEntries(clientInputJar));
+		final Map<String, Entry> serverEntries = readEntries(serverInputJar);
+		final Map<String, Entry> clientEntries = clientFuture.join();
+
+		final TreeSet<String> allEntries = new TreeSet<>(clientEntries.keySet());
+		allEntries.addAll(serverEntries.keySet());
+
+		// The parallel stream keeps the sorted encounter order, so the output does not depend on the thread count.
+		final List<Entry> entries = allEntries.parallelStream()
+				.map(name -> mergeEntry(name, clientEntries.get(name), serverEntries.get(name), clientEntries.containsKey(name)))
+				.filter(Objects::nonNull)
+				.toList();
+
+		try (FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
+			for (Entry entry : entries) {
+				final Path outputPath = outputFs.getPath(entry.name());
+
+				if (outputPath.getParent() != null) {
+					Files.createDirectories(outputPath.getParent());
+				}
+
+				Files.write(outputPath, entry.data(), StandardOpenOption.CREATE_NEW);
+				// Stitch passes the creation time as the last modified time and the other way round, keep doing the same.
+				Files.getFileAttributeView(outputPath, BasicFileAttributeView.class).setTimes(entry.creation(), entry.lastAccess(), entry.lastModified());
+			}
+		}
+	}
+
+	private Entry mergeEntry(String name, Entry clientEntry, Entry serverEntry, boolean inClient) {
+		final boolean isClass = name.endsWith(".class");
+		final boolean isMinecraft = inClient || name.startsWith("net/minecraft") || !name.contains("/");
+		Entry result;
+		String side = null;
+
+		if (clientEntry != null && serverEntry != null) {
+			if (Arrays.equals(clientEntry.data(), serverEntry.data()) || !isClass) {
+				result = clientEntry;
+			} else {
+				result = clientEntry.withData(CLASS_MERGER.merge(clientEntry.data(), serverEntry.data()));
+			}
+		} else if (clientEntry != null) {
+			result = clientEntry;
+			side = "CLIENT";
+		} else {
+			result = serverEntry;
+			side = "SERVER";
+		}
+
+		if (isClass && !isMinecraft && "SERVER".equals(side)) {
+			// Server bundles libraries, client doesn't - skip them
+			return null;
+		}
+
+		if (isMinecraft && isClass) {
+			final ClassReader reader = new ClassReader(result.data());
+			final ClassWriter writer = new ClassWriter(0);
+			ClassVisitor visitor = writer;
+
+			if (side != null) {
+				visitor = new ClassMerger.SidedClassVisitor(Constants.ASM_VERSION, visitor, side);
+			}
+
+			if (offsetSyntheticsParams) {
+				visitor = new SyntheticParameterClassVisitor(Constants.ASM_VERSION, visitor);
+			}
+
+			if (visitor != writer) {
+				reader.accept(visitor, 0);
+				result = result.withData(writer.toByteArray());
+			}
+		}
+
+		return result;
+	}
+
+	private static Map<String, Entry> readEntries(Path jar) {
+		final Map<String, Entry> entries = new HashMap<>();
+
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			final Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+
+			while (zipEntries.hasMoreElements()) {
+				final ZipEntry zipEntry = zipEntries.nextElement();
+				final String name = zipEntry.getName();
+
+				if (zipEntry.isDirectory()) {
+					continue;
+				}
+
+				if (name.equals(MANIFEST_PATH)) {
+					entries.put(name, Entry.of(zipEntry, MANIFEST));
+					continue;
+				}
+
+				if (name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA"))) {
+					continue;
+				}
+
+				try (InputStream is = zipFile.getInputStream(zipEntry)) {
+					entries.put(name, Entry.of(zipEntry, is.readAllBytes()));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read " + jar, e);
+		}
+
+		return entries;
+	}
+
+	private record Entry(String name, byte[] data, FileTime lastModified, FileTime lastAccess, FileTime creation) {
+		// Like zipfs, which stitch reads the attributes from, fall back to the last modified time for missing times
+		static Entry of(ZipEntry zipEntry, byte[] data) {
+			final FileTime lastModified = zipEntry.getLastModifiedTime();
+			return new Entry(zipEntry.getName(), data, lastModified,
+					Objects.requireNonNullElse(zipEntry.getLastAccessTime(), lastModified),
+					Objects.requireNonNullElse(zipEntry.getCreationTime(), lastModified));
+		}
+
+		Entry withData(byte[] data) {
+			return new Entry(name, data, lastModified, lastAccess, creation);
+		}
+	}
+}
@@ -24,23 +24,27 @@
 
 package net.fabricmc.loom.configuration.providers.minecraft;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import com.google.common.collect.Sets;
 
 import net.fabricmc.loom.configuration.mods.JarSplitter;
-import net.fabricmc.loom.util.FileSystemUtil;
 
 public class MinecraftJarSplitter implements AutoCloseable {
 	private final Path clientInputJar;
@@ -60,14 +64,28 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		Objects.requireNonNull(commonOutputJar);
 
 		if (entryData == null) {
-			entryData = new EntryData(getJarEntries(clientInputJar), getJarEntries(serverInputJar));
+			// Only the central directories are needed, read both at the same time
+			final CompletableFuture<Set<String>> clientEntries = CompletableFuture.supplyAsync(() -> getJarEntries(clientInputJar));
+			final Set<String> serverEntries = getJarEntries(serverInputJar);
+			entryData = new EntryData(clientEntries.join(), serverEntries);
 		}
 
 		// Not something we expect, will require 3 jars, server, client and common.
 		assert entryData.serverOnlyEntries.isEmpty();
 
-		copyEntriesToJar(entryData.commonEntries, serverInputJar, commonOutputJar, "common");
+		// The two outputs are independent, write them in parallel.
+		final CompletableFuture<Void> common = CompletableFuture.runAsync(() -> copyEntriesToJar(entryData.commonEntries, serverInputJar, commonOutputJar, "common"));
 		copyEntriesToJar(entryData.clientOnlyEntries, clientInputJar, clientOnlyOutputJar, "client");
+
+		try {
+			common.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
+			}
+
+			throw e;
+		}
 	}
 
 	public void sharedEntry(String path) {
@@ -78,65 +96,72 @@ public class MinecraftJarSplitter implements AutoCloseable {
 		this.forcedClientEntries.add(path);
 	}
 
-	private Set<String> getJarEntries(Path input) throws IOException {
+	private Set<String> getJarEntries(Path input) {
 		Set<String> entries = Sets.newHashSet();
 
-		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(input);
-				Stream<Path> walk = Files.walk(fs.get().getPath("/"))) {
-			Iterator<Path> iterator = walk.iterator();
-
-			while (iterator.hasNext()) {
-				Path fsPath = iterator.next();
-
-				if (!Files.isRegularFile(fsPath)) {
-					continue;
-				}
+		try (ZipFile zipFile = new ZipFile(input.toFile())) {
+			Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
 
-				String entryPath = fs.get().getPath("/").relativize(fsPath).toString();
+			while (zipEntries.hasMoreElements()) {
+				ZipEntry zipEntry = zipEntries.nextElement();
+				String entryPath = zipEntry.getName();
 
-				if (entryPath.startsWith("META-INF/")) {
+				if (zipEntry.isDirectory() || entryPath.startsWith("META-INF/")) {
 					continue;
 				}
 
 				entries.add(entryPath);
 			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read entries of " + input, e);
 		}
 
 		return entries;
 	}
 
-	private void copyEntriesToJar(Set<String> entries, Path inputJar, Path outputJar, String env) throws IOException {
-		Files.deleteIfExists(outputJar);
+	private void copyEntriesToJar(Set<String> entries, Path inputJar, Path outputJar, String env) {
+		try {
+			Files.deleteIfExists(outputJar);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 
-		try (FileSystemUtil.Delegate inputFs = FileSystemUtil.getJarFileSystem(inputJar);
-				FileSystemUtil.Delegate outputFs = FileSystemUtil.getJarFileSystem(outputJar, true)) {
-			for (String entry : entries) {
-				Path inputPath = inputFs.get().getPath(entry);
-				Path outputPath = outputFs.get().getPath(entry);
+		// Streamed straight from one zip to the other, in the order of the input jar
+		try (ZipFile zipFile = new ZipFile(inputJar.toFile());
+				ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(outputJar)))) {
+			writeManifest(out, env);
 
-				assert Files.isRegularFile(inputPath);
+			final Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
 
-				Path outputPathParent = outputPath.getParent();
+			while (zipEntries.hasMoreElements()) {
+				final ZipEntry zipEntry = zipEntries.nextElement();
 
-				if (outputPathParent != null) {
-					Files.createDirectories(outputPathParent);
+				if (!entries.contains(zipEntry.getName())) {
+					continue;
 				}
 
-				Files.copy(inputPath, outputPath, StandardCopyOption.COPY_ATTRIBUTES);
-			}
+				final ZipEntry newEntry = new ZipEntry(zipEntry.getName());
+				newEntry.setLastModifiedTime(zipEntry.getLastModifiedTime());
+				out.putNextEntry(newEntry);
 
-			writeManifest(outputFs, env);
+				try (InputStream is = zipFile.getInputStream(zipEntry)) {
+					is.transferTo(out);
+				}
+
+				out.closeEntry();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write " + outputJar, e);
 		}
 	}
 
-	private void writeManifest(FileSystemUtil.Delegate outputFs, String env) throws IOException {
+	private void writeManifest(ZipOutputStream out, String env) throws IOException {
 		final Manifest manifest = new Manifest();
 		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
 		manifest.getMainAttributes().putValue(JarSplitter.MANIFEST_SPLIT_ENV_NAME_KEY, env);
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
 		manifest.write(out);
-		Files.createDirectories(outputFs.get().getPath("META-INF"));
-		Files.write(outputFs.get().getPath("META-INF/MANIFEST.MF"), out.toByteArray());
+		out.closeEntry();
 	}
 
 	@Override
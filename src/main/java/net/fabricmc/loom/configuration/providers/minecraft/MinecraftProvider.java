@@ -47,6 +47,8 @@ import net.fabricmc.loom.util.download.DownloadBuilder;
 import net.fabricmc.loom.util.download.DownloadExecutor;
 import net.fabricmc.loom.util.download.GradleDownloadProgressListener;
 import net.fabricmc.loom.util.gradle.ProgressGroup;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 
 public abstract class MinecraftProvider {
 	private String minecraftVersion;
@@ -195,7 +197,8 @@ public abstract class MinecraftProvider {
 	}
 
 	private void downloadJars() throws IOException {
-		try (ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Minecraft jars");
+		try (TraceSpan span = BuildTracer.get(getProject()).span("download", "Minecraft jars " + minecraftVersion);
+				ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Minecraft jars");
 				DownloadExecutor executor = new DownloadExecutor(2)) {
 			if (provideClient()) {
 				final MinecraftVersionMeta.Download client = versionInfo.download("client");
@@ -24,7 +24,6 @@
 
 package net.fabricmc.loom.configuration.providers.minecraft;
 
-import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -37,12 +36,17 @@ import org.objectweb.asm.commons.Remapper;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
+import net.fabricmc.loom.task.service.ClassEnvironmentService;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.TinyRemapperHelper;
 
 public record SignatureFixerApplyVisitor(Map<String, String> signatureFixes) implements TinyRemapper.ApplyVisitorProvider {
 	@Override
 	public ClassVisitor insertApplyVisitor(TrClass cls, ClassVisitor next) {
+		if (!signatureFixes.containsKey(cls.getEnvironment().getRemapper().map(cls.getName()))) {
+			// Only a handful of classes have fixes, don't add a visitor to the rest.
+			return next;
+		}
+
 		return new ClassVisitor(Constants.ASM_VERSION, next) {
 			@Override
 			public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
@@ -55,7 +59,7 @@ public record SignatureFixerApplyVisitor(Map<String, String> signatureFixes) imp
 		};
 	}
 
-	public static Map<String, String> getRemappedSignatures(boolean toIntermediary, MappingsProviderImpl mappingsProvider, Project project, String targetNamespace) throws IOException {
+	public static Map<String, String> getRemappedSignatures(boolean toIntermediary, MappingsProviderImpl mappingsProvider, Project project, String targetNamespace) {
 		if (mappingsProvider.getSignatureFixes() == null) {
 			// No fixes
 			return Collections.emptyMap();
@@ -66,12 +70,10 @@ public record SignatureFixerApplyVisitor(Map<String, String> signatureFixes) imp
 			return mappingsProvider.getSignatureFixes();
 		}
 
-		// Remap the sig fixes from intermediary to the target namespace
+		// Remap the sig fixes from intermediary to the target namespace, only class names are needed so the jars do not need to be read.
 		final Map<String, String> remapped = new HashMap<>();
-		final TinyRemapper sigTinyRemapper = TinyRemapperHelper.getTinyRemapper(project, MappingsNamespace.INTERMEDIARY.toString(), targetNamespace);
-		final Remapper sigAsmRemapper = sigTinyRemapper.getEnvironment().getRemapper();
+		final Remapper sigAsmRemapper = ClassEnvironmentService.get(project).getRemapper(project, MappingsNamespace.INTERMEDIARY.toString(), targetNamespace);
 
-		// Remap the class names and the signatures using a new tiny remapper instance.
 		for (Map.Entry<String, String> entry : mappingsProvider.getSignatureFixes().entrySet()) {
 			remapped.put(
 					sigAsmRemapper.map(entry.getKey()),
@@ -79,7 +81,6 @@ public record SignatureFixerApplyVisitor(Map<String, String> signatureFixes) imp
 			);
 		}
 
-		sigTinyRemapper.finish();
 		return remapped;
 	}
 }
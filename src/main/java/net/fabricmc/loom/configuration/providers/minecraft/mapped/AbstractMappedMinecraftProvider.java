@@ -45,6 +45,8 @@ import net.fabricmc.loom.configuration.providers.minecraft.SignatureFixerApplyVi
 import net.fabricmc.loom.util.TinyRemapperHelper;
 import net.fabricmc.loom.util.srg.InnerClassRemapper;
 import net.fabricmc.loom.util.srg.RemapObjectHolderVisitor;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvider> implements MappedMinecraftProvider.ProviderImpl {
@@ -67,6 +69,17 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 	}
 
 	public void provide(boolean applyDependencies) throws Exception {
+		provideJars();
+
+		if (applyDependencies) {
+			applyDependencies();
+		}
+	}
+
+	/**
+	 * Remaps the Minecraft jars, unless they are already up-to-date.
+	 */
+	public void provideJars() throws Exception {
 		final List<RemappedJars> remappedJars = getRemappedJars();
 		assert !remappedJars.isEmpty();
 
@@ -78,20 +91,27 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 
 				throw new RuntimeException("Failed to remap minecraft", t);
 			}
+		} else {
+			for (RemappedJars remappedJar : remappedJars) {
+				BuildTracer.get(project).span("remap", remappedJar.outputJar().getFileName().toString()).cacheHit(true).close();
+			}
 		}
+	}
 
-		if (applyDependencies) {
-			final List<String> dependencyTargets = getDependencyTargets();
-
-			if (dependencyTargets.isEmpty()) {
-				return;
-			}
+	/**
+	 * Adds the Minecraft jars to the Minecraft source sets.
+	 */
+	public void applyDependencies() {
+		final List<String> dependencyTargets = getDependencyTargets();
 
-			MinecraftSourceSets.get(getProject()).applyDependencies(
-					(configuration, name) -> getProject().getDependencies().add(configuration, getDependencyNotation(name)),
-					dependencyTargets
-			);
+		if (dependencyTargets.isEmpty()) {
+			return;
 		}
+
+		MinecraftSourceSets.get(getProject()).applyDependencies(
+				(configuration, name) -> getProject().getDependencies().add(configuration, getDependencyNotation(name)),
+				dependencyTargets
+		);
 	}
 
 	protected abstract Path getDirectory();
@@ -123,7 +143,10 @@ public abstract class AbstractMappedMinecraftProvider<M extends MinecraftProvide
 		cleanOutputs(remappedJars);
 
 		for (RemappedJars remappedJar : remappedJars) {
-			remapJar(remappedJar);
+			try (TraceSpan span = BuildTracer.get(project).span("remap", remappedJar.outputJar().getFileName().toString())) {
+				remapJar(remappedJar);
+				span.cacheHit(false).read(remappedJar.inputJar()).wrote(remappedJar.outputJar());
+			}
 		}
 	}
 
@@ -28,14 +28,13 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.stream.Stream;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.processors.JarProcessorManager;
 import net.fabricmc.loom.configuration.providers.minecraft.MergedMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
-import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SplitMinecraftProvider;
 
@@ -59,8 +58,8 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 	}
 
 	@Override
-	public void provide(boolean applyDependencies) throws Exception {
-		parentMinecraftProvider.provide(false);
+	public void provideJars() throws Exception {
+		parentMinecraftProvider.provideJars();
 
 		final List<Path> inputJars = parentMinecraftProvider.getMinecraftJars();
 		boolean requiresProcessing = extension.refreshDeps() || inputJars.stream()
@@ -77,33 +76,36 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 
 			for (Path inputJar : inputJars) {
 				final Path outputJar = getProcessedPath(inputJar);
-				deleteSimilarJars(outputJar);
+				// The jar itself is kept so that only the classes affected by changed processor inputs have to be processed again,
+				// but anything derived from it such as the sources jar is now stale.
+				deleteSimilarJars(outputJar, !extension.refreshDeps());
 
-				Files.copy(inputJar, outputJar, StandardCopyOption.REPLACE_EXISTING);
-				jarProcessorManager.process(outputJar.toFile());
+				jarProcessorManager.process(inputJar, outputJar);
 			}
 		}
+	}
 
-		if (applyDependencies) {
-			final List<String> dependencyTargets = parentMinecraftProvider.getDependencyTargets();
+	@Override
+	public List<String> getDependencyTargets() {
+		return parentMinecraftProvider.getDependencyTargets();
+	}
 
-			if (dependencyTargets.isEmpty()) {
-				return;
-			}
+	private void deleteSimilarJars(Path jar, boolean keepJar) throws IOException {
+		final String jarName = jar.getFileName().toString();
 
-			MinecraftSourceSets.get(getProject()).applyDependencies(
-					(configuration, name) -> getProject().getDependencies().add(configuration, getDependencyNotation(name)),
-					dependencyTargets
-			);
+		if (!keepJar) {
+			Files.deleteIfExists(jar);
 		}
-	}
 
-	private void deleteSimilarJars(Path jar) throws IOException {
-		Files.deleteIfExists(jar);
+		try (Stream<Path> files = Files.list(jar.getParent())) {
+			for (Path path : files.filter(Files::isRegularFile).toList()) {
+				final String name = path.getFileName().toString();
 
-		for (Path path : Files.list(jar.getParent()).filter(Files::isRegularFile)
-				.filter(path -> path.getFileName().startsWith(jar.getFileName().toString().replace(".jar", ""))).toList()) {
-			Files.deleteIfExists(path);
+				// Keeps the jar and its processor state when requested
+				if (name.startsWith(jarName.replace(".jar", "")) && !(keepJar && name.startsWith(jarName))) {
+					Files.deleteIfExists(path);
+				}
+			}
 		}
 	}
 
@@ -0,0 +1,387 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.objectweb.asm.ClassReader;
+
+import net.fabricmc.loom.api.decompilers.DecompilationMetadata;
+import net.fabricmc.loom.api.decompilers.LoomDecompiler;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.adapter.ForwardingMappingVisitor;
+import net.fabricmc.mappingio.format.Tiny2Writer;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Decompiles a jar in batches of classes, so that the memory used by the decompiler context and javadocs scales with
+ * the batch size rather than the size of the jar.
+ *
+ * <p>An outer class is always in the same batch as its inner classes. Each batch gets its own library jar, holding
+ * only the classes of the jar that the batch references and their supertypes, and its own javadoc mappings, holding
+ * only the classes of the batch. Both are derived from a single read of the jar and the mappings before decompiling.
+ * The sources and line maps of each batch are appended to the output as soon as the batch is done.
+ */
+public final class BatchedDecompiler implements LoomDecompiler {
+	private final LoomDecompiler decompiler;
+	private final int batchSize;
+
+	public BatchedDecompiler(LoomDecompiler decompiler, int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+
+		this.decompiler = decompiler;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public void decompile(Path compiledJar, Path sourcesDestination, Path linemapDestination, DecompilationMetadata metaData) {
+		final Path batchDir;
+
+		try {
+			batchDir = Files.createTempDirectory(sourcesDestination.toAbsolutePath().getParent(), "batches");
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to create batch directory", e);
+		}
+
+		try (ZipFile input = new ZipFile(compiledJar.toFile());
+				DecompiledSourcesSink sink = new DecompiledSourcesSink(sourcesDestination, linemapDestination)) {
+			final List<List<String>> batches = createBatches(Collections.list(input.entries()).stream().map(ZipEntry::getName).toList(), batchSize);
+			final Map<String, ClassReferences> references = readReferences(input);
+			final List<Path> javadocs = metaData.javaDocs() != null ? writeBatchJavadocs(metaData.javaDocs(), batches, batchDir) : null;
+			final Set<String> written = new HashSet<>();
+
+			for (int i = 0; i < batches.size(); i++) {
+				metaData.logger().accept("Decompiling batch %d of %d".formatted(i + 1, batches.size()));
+
+				final List<String> batch = batches.get(i);
+				final Path batchJar = batchDir.resolve("batch.jar");
+				final Path batchLibraries = batchDir.resolve("batch-libraries.jar");
+				final Path batchSources = batchDir.resolve("batch-sources.jar");
+				final Path batchLinemap = batchDir.resolve("batch.lmap");
+
+				writeBatch(input, batch, batchJar);
+				writeBatch(input, getLibraryEntries(batch, references), batchLibraries);
+
+				final Set<Path> libraries = new LinkedHashSet<>(metaData.libraries());
+				libraries.add(batchLibraries);
+				final Path batchJavadocs = javadocs != null ? javadocs.get(i) : null;
+				final DecompilationMetadata batchMetaData = new DecompilationMetadata(metaData.numberOfThreads(), batchJavadocs, libraries, metaData.logger(), metaData.options());
+
+				decompiler.decompile(batchJar, batchSources, batchLinemap, batchMetaData);
+				appendSources(batchSources, sink, written);
+
+				if (Files.exists(batchLinemap)) {
+					final LineNumberRemapper lineMap = new LineNumberRemapper();
+					lineMap.readMappings(batchLinemap.toFile());
+					lineMap.addTo(sink);
+				}
+
+				Files.deleteIfExists(batchJar);
+				Files.deleteIfExists(batchLibraries);
+				Files.deleteIfExists(batchSources);
+				Files.deleteIfExists(batchLinemap);
+
+				if (batchJavadocs != null) {
+					Files.deleteIfExists(batchJavadocs);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to decompile in batches", e);
+		} finally {
+			FileUtils.deleteQuietly(batchDir.toFile());
+		}
+	}
+
+	/**
+	 * Groups the classes of a jar into batches of about the batch size, keeping each outer class with its inner classes.
+	 * A batch can be larger than the batch size when a single outer class has more inner classes.
+	 */
+	static List<List<String>> createBatches(List<String> entries, int batchSize) {
+		final Map<String, List<String>> outerClasses = new TreeMap<>();
+
+		for (String entry : entries) {
+			if (!entry.endsWith(".class")) {
+				continue;
+			}
+
+			final String name = entry.substring(0, entry.length() - ".class".length());
+			final int innerStart = name.indexOf('$', name.lastIndexOf('/') + 1);
+			final String outerName = innerStart > 0 ? name.substring(0, innerStart) : name;
+			outerClasses.computeIfAbsent(outerName, s -> new ArrayList<>()).add(entry);
+		}
+
+		// Classes are sorted by name, so each batch is made of packages that often reference each other
+		final List<List<String>> batches = new ArrayList<>();
+		List<String> batch = new ArrayList<>();
+
+		for (List<String> classes : outerClasses.values()) {
+			if (!batch.isEmpty() && batch.size() + classes.size() > batchSize) {
+				batches.add(batch);
+				batch = new ArrayList<>();
+			}
+
+			batch.addAll(classes);
+		}
+
+		if (!batch.isEmpty()) {
+			batches.add(batch);
+		}
+
+		return batches;
+	}
+
+	/**
+	 * Reads the supertypes and referenced classes of every class in the jar, keeping only the names of classes in the jar.
+	 */
+	private static Map<String, ClassReferences> readReferences(ZipFile input) throws IOException {
+		// Every class name is held once, referenced from the references of other classes
+		final Map<String, String> classNames = new HashMap<>();
+
+		for (ZipEntry entry : Collections.list(input.entries())) {
+			if (entry.getName().endsWith(".class")) {
+				final String name = entry.getName().substring(0, entry.getName().length() - ".class".length());
+				classNames.put(name, name);
+			}
+		}
+
+		final Map<String, ClassReferences> references = new HashMap<>(classNames.size());
+
+		for (String name : classNames.keySet()) {
+			final byte[] classFile;
+
+			try (InputStream is = input.getInputStream(input.getEntry(name + ".class"))) {
+				classFile = is.readAllBytes();
+			}
+
+			final ClassReader reader = new ClassReader(classFile);
+			final Set<String> supertypes = new HashSet<>();
+			final Set<String> referenced = new HashSet<>();
+
+			addClassName(reader.getSuperName(), classNames, supertypes);
+
+			for (String superInterface : reader.getInterfaces()) {
+				addClassName(superInterface, classNames, supertypes);
+			}
+
+			// Class names appear in the constant pool either on their own or inside descriptors and signatures
+			for (int i = 1; i < reader.getItemCount(); i++) {
+				final int offset = reader.getItem(i);
+
+				if (offset == 0 || classFile[offset - 1] != 1) {
+					continue;
+				}
+
+				final String utf8 = new String(classFile, offset + 2, reader.readUnsignedShort(offset), StandardCharsets.UTF_8);
+				addClassName(utf8, classNames, referenced);
+
+				for (int start = utf8.indexOf('L'); start >= 0; start = utf8.indexOf('L', start + 1)) {
+					int end = start + 1;
+
+					while (end < utf8.length() && utf8.charAt(end) != ';' && utf8.charAt(end) != '<') {
+						end++;
+					}
+
+					addClassName(utf8.substring(start + 1, end), classNames, referenced);
+				}
+			}
+
+			references.put(name, new ClassReferences(supertypes, referenced));
+		}
+
+		return references;
+	}
+
+	private static void addClassName(String name, Map<String, String> classNames, Set<String> names) {
+		if (name == null) {
+			return;
+		}
+
+		final String className = classNames.get(name);
+
+		if (className != null) {
+			names.add(className);
+		}
+	}
+
+	/**
+	 * @return the entries of the classes referenced by the batch, their supertypes and outer classes, excluding the batch itself
+	 */
+	static List<String> getLibraryEntries(List<String> batch, Map<String, ClassReferences> references) {
+		final Set<String> batchClasses = new HashSet<>();
+		final Set<String> classes = new TreeSet<>();
+		final Deque<String> queue = new ArrayDeque<>();
+
+		for (String entry : batch) {
+			final String name = entry.substring(0, entry.length() - ".class".length());
+			batchClasses.add(name);
+
+			final ClassReferences classReferences = references.get(name);
+
+			if (classReferences != null) {
+				queue.addAll(classReferences.referenced());
+				queue.addAll(classReferences.supertypes());
+			}
+		}
+
+		while (!queue.isEmpty()) {
+			final String name = queue.poll();
+
+			if (!classes.add(name)) {
+				continue;
+			}
+
+			final ClassReferences classReferences = references.get(name);
+
+			if (classReferences != null) {
+				queue.addAll(classReferences.supertypes());
+			}
+
+			final int innerStart = name.lastIndexOf('$');
+
+			if (innerStart > name.lastIndexOf('/') && references.containsKey(name.substring(0, innerStart))) {
+				queue.add(name.substring(0, innerStart));
+			}
+		}
+
+		classes.removeAll(batchClasses);
+		return classes.stream().map(name -> name + ".class").toList();
+	}
+
+	/**
+	 * Splits the javadoc mappings by batch, so that each decompiler only reads the javadocs of the classes it decompiles.
+	 * The mappings are only read once, and are not held on to while decompiling.
+	 */
+	private static List<Path> writeBatchJavadocs(Path javaDocs, List<List<String>> batches, Path batchDir) throws IOException {
+		final MemoryMappingTree mappingTree = new MemoryMappingTree();
+		MappingReader.read(javaDocs, mappingTree);
+
+		final Map<String, Integer> batchIndices = new HashMap<>();
+
+		for (int i = 0; i < batches.size(); i++) {
+			for (String entry : batches.get(i)) {
+				batchIndices.put(entry.substring(0, entry.length() - ".class".length()), i);
+			}
+		}
+
+		// The jar is in any of the namespaces of the mappings, match the classes by each of their names
+		final List<Set<String>> batchClasses = new ArrayList<>();
+		batches.forEach(batch -> batchClasses.add(new HashSet<>()));
+
+		for (MappingTree.ClassMapping classMapping : mappingTree.getClasses()) {
+			for (int ns = -1; ns < mappingTree.getMaxNamespaceId(); ns++) {
+				final Integer batchIndex = batchIndices.get(classMapping.getName(ns));
+
+				if (batchIndex != null) {
+					batchClasses.get(batchIndex).add(classMapping.getSrcName());
+					break;
+				}
+			}
+		}
+
+		final List<Path> javadocs = new ArrayList<>(batches.size());
+
+		for (int i = 0; i < batches.size(); i++) {
+			final Path batchJavadocs = batchDir.resolve("batch-" + i + ".tiny");
+			final Set<String> classes = batchClasses.get(i);
+
+			try (Writer writer = Files.newBufferedWriter(batchJavadocs, StandardCharsets.UTF_8)) {
+				mappingTree.accept(new ForwardingMappingVisitor(new Tiny2Writer(writer, false)) {
+					@Override
+					public boolean visitClass(String srcName) throws IOException {
+						return classes.contains(srcName) && super.visitClass(srcName);
+					}
+				});
+			}
+
+			javadocs.add(batchJavadocs);
+		}
+
+		return javadocs;
+	}
+
+	record ClassReferences(Set<String> supertypes, Set<String> referenced) {
+	}
+
+	private static void writeBatch(ZipFile input, List<String> entries, Path batchJar) throws IOException {
+		try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(batchJar))) {
+			// The batch jar is short-lived, don't spend time compressing it
+			output.setLevel(0);
+
+			for (String name : entries) {
+				output.putNextEntry(new ZipEntry(name));
+
+				try (InputStream is = input.getInputStream(input.getEntry(name))) {
+					is.transferTo(output);
+				}
+
+				output.closeEntry();
+			}
+		}
+	}
+
+	private static void appendSources(Path batchSources, DecompiledSourcesSink sink, Set<String> written) throws IOException {
+		if (Files.notExists(batchSources)) {
+			return;
+		}
+
+		try (ZipFile sources = new ZipFile(batchSources.toFile())) {
+			for (ZipEntry entry : Collections.list(sources.entries())) {
+				// Each batch has its own manifest, only the first one is kept
+				if (entry.isDirectory() || !written.add(entry.getName())) {
+					continue;
+				}
+
+				try (InputStream is = sources.getInputStream(entry)) {
+					sink.addSource(entry.getName(), new String(is.readAllBytes(), StandardCharsets.UTF_8));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Writes decompiled sources to a jar, for use by the decompilers from many threads at once.
+ *
+ * <p>Each entry is compressed on the thread that produced it, only appending the compressed bytes to the jar is
+ * synchronized. The line mappings are collected in memory and written in a binary form when the sink is closed,
+ * see {@link LineNumberRemapper#readMappings(java.io.File)}.
+ */
+public final class DecompiledSourcesSink implements Closeable {
+	public static final int LINE_MAP_MAGIC = 0x4C4D4150; // LMAP
+	public static final int LINE_MAP_VERSION = 1;
+
+	private static final int LOCAL_HEADER = 0x04034b50;
+	private static final int CENTRAL_HEADER = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int UTF8_FLAG = 1 << 11;
+	private static final int ZIP_VERSION = 20;
+
+	private final OutputStream output;
+	@Nullable
+	private final Path lineMapFile;
+	private final int dosTime;
+	private final List<CentralEntry> centralEntries = new ArrayList<>();
+	private final Set<String> names = new HashSet<>();
+	private final Map<String, int[]> lineMap = new TreeMap<>();
+	private long offset = 0;
+	private boolean closed = false;
+
+	public DecompiledSourcesSink(Path sourcesJar, @Nullable Path lineMapFile) throws IOException {
+		this.output = new BufferedOutputStream(Files.newOutputStream(sourcesJar), 1 << 16);
+		this.lineMapFile = lineMapFile;
+		this.dosTime = toDosTime(LocalDateTime.now());
+	}
+
+	public void writeManifest(Manifest manifest) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		manifest.write(bytes);
+		addDirectory("META-INF/");
+		addEntry(JarFile.MANIFEST_NAME, bytes.toByteArray());
+	}
+
+	/**
+	 * Adds a source file and its parent directories, compressing it on the calling thread.
+	 *
+	 * @param content the source, or null to add an empty entry
+	 */
+	public void addSource(String name, @Nullable String content) throws IOException {
+		final int lastSlash = name.lastIndexOf('/');
+
+		if (lastSlash > 0) {
+			addDirectory(name.substring(0, lastSlash + 1));
+		}
+
+		addEntry(name, content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+	}
+
+	/**
+	 * Adds the line mappings of a class, merging them with any mappings already added for it.
+	 *
+	 * @param className the internal name of the outer class
+	 * @param mapping pairs of original and decompiled line numbers
+	 */
+	public void addLineMapping(String className, int[] mapping) {
+		synchronized (lineMap) {
+			lineMap.merge(className, mapping, (a, b) -> {
+				final int[] merged = Arrays.copyOf(a, a.length + b.length);
+				System.arraycopy(b, 0, merged, a.length, b.length);
+				return merged;
+			});
+		}
+	}
+
+	private void addDirectory(String name) throws IOException {
+		synchronized (names) {
+			if (names.contains(name)) {
+				return;
+			}
+		}
+
+		final int parentSlash = name.lastIndexOf('/', name.length() - 2);
+
+		if (parentSlash > 0) {
+			addDirectory(name.substring(0, parentSlash + 1));
+		}
+
+		append(name, new CompressedData(new byte[0], 0, 0, false), true);
+	}
+
+	private void addEntry(String name, byte[] data) throws IOException {
+		append(name, compress(data), false);
+	}
+
+	private static CompressedData compress(byte[] data) {
+		final CRC32 crc = new CRC32();
+		crc.update(data);
+
+		if (data.length == 0) {
+			return new CompressedData(data, crc.getValue(), 0, false);
+		}
+
+		final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+			final byte[] buffer = new byte[8192];
+
+			while (!deflater.finished()) {
+				final int length = deflater.deflate(buffer);
+				compressed.write(buffer, 0, length);
+			}
+
+			return new CompressedData(compressed.toByteArray(), crc.getValue(), data.length, true);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private synchronized void append(String name, CompressedData data, boolean directory) throws IOException {
+		if (closed) {
+			throw new IOException("Sources jar is already closed");
+		}
+
+		synchronized (names) {
+			if (!names.add(name)) {
+				if (directory) {
+					return;
+				}
+
+				throw new IOException("Duplicate entry " + name);
+			}
+		}
+
+		final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		final CentralEntry entry = new CentralEntry(nameBytes, data.deflated() ? 8 : 0, data.crc(), data.bytes().length, data.size(), offset, directory);
+		checkZip32(offset + data.bytes().length);
+
+		final ByteBuffer header = ByteBuffer.allocate(30 + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(LOCAL_HEADER);
+		header.putShort((short) ZIP_VERSION);
+		header.putShort((short) UTF8_FLAG);
+		header.putShort((short) entry.method());
+		header.putInt(dosTime);
+		header.putInt((int) entry.crc());
+		header.putInt((int) entry.compressedSize());
+		header.putInt((int) entry.size());
+		header.putShort((short) nameBytes.length);
+		header.putShort((short) 0);
+		header.put(nameBytes);
+
+		output.write(header.array());
+		output.write(data.bytes());
+		offset += header.capacity() + data.bytes().length;
+		centralEntries.add(entry);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+
+		try (output) {
+			writeCentralDirectory();
+		}
+
+		if (lineMapFile != null) {
+			writeLineMap(lineMapFile);
+		}
+	}
+
+	private void writeCentralDirectory() throws IOException {
+		if (centralEntries.size() >= 0xFFFF) {
+			throw new IOException("Too many entries in sources jar: " + centralEntries.size());
+		}
+
+		final long centralOffset = offset;
+		// List the entries by name, regardless of the order that they were decompiled in
+		centralEntries.sort(Comparator.comparing(entry -> new String(entry.name(), StandardCharsets.UTF_8)));
+
+		for (CentralEntry entry : centralEntries) {
+			final ByteBuffer header = ByteBuffer.allocate(46 + entry.name().length).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(CENTRAL_HEADER);
+			header.putShort((short) ZIP_VERSION);
+			header.putShort((short) ZIP_VERSION);
+			header.putShort((short) UTF8_FLAG);
+			header.putShort((short) entry.method());
+			header.putInt(dosTime);
+			header.putInt((int) entry.crc());
+			header.putInt((int) entry.compressedSize());
+			header.putInt((int) entry.size());
+			header.putShort((short) entry.name().length);
+			header.putShort((short) 0); // Extra
+			header.putShort((short) 0); // Comment
+			header.putShort((short) 0); // Disk
+			header.putShort((short) 0); // Internal attributes
+			header.putInt(entry.directory() ? 0x10 : 0);
+			header.putInt((int) entry.offset());
+			header.put(entry.name());
+
+			output.write(header.array());
+			offset += header.capacity();
+		}
+
+		checkZip32(offset);
+
+		final ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(END_OF_CENTRAL_DIRECTORY);
+		end.putShort((short) 0);
+		end.putShort((short) 0);
+		end.putShort((short) centralEntries.size());
+		end.putShort((short) centralEntries.size());
+		end.putInt((int) (offset - centralOffset));
+		end.putInt((int) centralOffset);
+		end.putShort((short) 0);
+		output.write(end.array());
+	}
+
+	private void writeLineMap(Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeInt(LINE_MAP_MAGIC);
+			out.writeInt(LINE_MAP_VERSION);
+			out.writeInt(lineMap.size());
+
+			for (Map.Entry<String, int[]> entry : lineMap.entrySet()) {
+				final int[] mapping = entry.getValue();
+				int maxLine = 0;
+				int maxLineDest = 0;
+
+				for (int i = 0; i < mapping.length; i += 2) {
+					maxLine = Math.max(maxLine, mapping[i]);
+					maxLineDest = Math.max(maxLineDest, mapping[i + 1]);
+				}
+
+				out.writeUTF(entry.getKey());
+				writeVarInt(out, maxLine);
+				writeVarInt(out, maxLineDest);
+				writeVarInt(out, mapping.length / 2);
+
+				for (int line : mapping) {
+					writeVarInt(out, line);
+				}
+			}
+		}
+	}
+
+	static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		out.writeByte(value);
+	}
+
+	private static void checkZip32(long offset) throws IOException {
+		if (offset > 0xFFFFFFFFL) {
+			throw new IOException("Sources jar is larger than 4GB");
+		}
+	}
+
+	private static int toDosTime(LocalDateTime time) {
+		return (time.getYear() - 1980) << 25
+				| time.getMonthValue() << 21
+				| time.getDayOfMonth() << 16
+				| time.getHour() << 11
+				| time.getMinute() << 5
+				| time.getSecond() >> 1;
+	}
+
+	private record CompressedData(byte[] bytes, long crc, int size, boolean deflated) {
+	}
+
+	private record CentralEntry(byte[] name, int method, long crc, long compressedSize, long size, long offset, boolean directory) {
+	}
+}
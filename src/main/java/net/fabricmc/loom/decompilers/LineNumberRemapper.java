@@ -26,8 +26,11 @@ package net.fabricmc.loom.decompilers;
 
 import static java.text.MessageFormat.format;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -55,7 +58,15 @@ import net.fabricmc.loom.util.IOStringConsumer;
 public class LineNumberRemapper {
 	private final Map<String, RClass> lineMap = new HashMap<>();
 
+	/**
+	 * Reads either the text line map format, or the binary format written by {@link DecompiledSourcesSink}.
+	 */
 	public void readMappings(File lineMappings) {
+		if (isBinary(lineMappings)) {
+			readBinaryMappings(lineMappings);
+			return;
+		}
+
 		try (BufferedReader reader = new BufferedReader(new FileReader(lineMappings))) {
 			RClass clazz = null;
 			String line = null;
@@ -87,6 +98,71 @@ public class LineNumberRemapper {
 		}
 	}
 
+	private static boolean isBinary(File lineMappings) {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(lineMappings))) {
+			return lineMappings.length() >= 4 && in.readInt() == DecompiledSourcesSink.LINE_MAP_MAGIC;
+		} catch (IOException e) {
+			throw new RuntimeException("Exception reading LineMappings file.", e);
+		}
+	}
+
+	private void readBinaryMappings(File lineMappings) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(lineMappings)))) {
+			in.readInt();
+			final int version = in.readInt();
+
+			if (version != DecompiledSourcesSink.LINE_MAP_VERSION) {
+				throw new IOException("Unsupported line map version " + version);
+			}
+
+			final int classCount = in.readInt();
+
+			for (int i = 0; i < classCount; i++) {
+				RClass clazz = lineMap.computeIfAbsent(in.readUTF(), RClass::new);
+				clazz.maxLine = readVarInt(in);
+				clazz.maxLineDest = readVarInt(in);
+				final int lineCount = readVarInt(in);
+
+				for (int j = 0; j < lineCount; j++) {
+					clazz.lineMap.put(readVarInt(in), readVarInt(in));
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Exception reading LineMappings file.", e);
+		}
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return value;
+	}
+
+	/**
+	 * Adds the read line mappings to a sink, used to merge the line maps of several decompiled jars.
+	 */
+	void addTo(DecompiledSourcesSink sink) {
+		for (RClass clazz : lineMap.values()) {
+			final int[] mapping = new int[clazz.lineMap.size() * 2];
+			int i = 0;
+
+			for (Map.Entry<Integer, Integer> entry : clazz.lineMap.entrySet()) {
+				mapping[i++] = entry.getKey();
+				mapping[i++] = entry.getValue();
+			}
+
+			sink.addLineMapping(clazz.name, mapping);
+		}
+	}
+
 	public void process(IOStringConsumer logger, Path input, Path output) throws IOException {
 		Files.walkFileTree(input, new SimpleFileVisitor<>() {
 			@Override
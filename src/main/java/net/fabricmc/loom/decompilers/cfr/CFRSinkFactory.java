@@ -25,36 +25,30 @@
 package net.fabricmc.loom.decompilers.cfr;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
-import java.util.Set;
-import java.util.TreeMap;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
 
-import com.google.common.base.Charsets;
 import org.benf.cfr.reader.api.OutputSinkFactory;
 import org.benf.cfr.reader.api.SinkReturns;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.decompilers.DecompiledSourcesSink;
 import net.fabricmc.loom.util.IOStringConsumer;
 
 public class CFRSinkFactory implements OutputSinkFactory {
 	private static final Logger ERROR_LOGGER = LoggerFactory.getLogger(CFRSinkFactory.class);
 
-	private final JarOutputStream outputStream;
+	private final DecompiledSourcesSink sourcesSink;
 	private final IOStringConsumer logger;
-	private final Set<String> addedDirectories = new HashSet<>();
-	private final Map<String, Map<Integer, Integer>> lineMap = new TreeMap<>();
 
-	public CFRSinkFactory(JarOutputStream outputStream, IOStringConsumer logger) {
-		this.outputStream = outputStream;
+	public CFRSinkFactory(DecompiledSourcesSink sourcesSink, IOStringConsumer logger) {
+		this.sourcesSink = sourcesSink;
 		this.logger = logger;
 	}
 
@@ -83,9 +77,12 @@ public class CFRSinkFactory implements OutputSinkFactory {
 			if (!filename.isEmpty()) filename += "/";
 			filename += sinkable.getClassName() + ".java";
 
-			byte[] data = sinkable.getJava().getBytes(Charsets.UTF_8);
-
-			writeToJar(filename, data);
+			try {
+				logger.accept("Writing: " + filename);
+				sourcesSink.addSource(filename, sinkable.getJava());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
 		};
 	}
 
@@ -97,6 +94,9 @@ public class CFRSinkFactory implements OutputSinkFactory {
 
 			if (classFileMappings == null || mappings == null) return;
 
+			final int[] lines = new int[mappings.size() * 2];
+			int length = 0;
+
 			for (Map.Entry<Integer, Integer> entry : mappings.entrySet()) {
 				// New line number
 				Integer dstLineNumber = entry.getValue();
@@ -106,46 +106,13 @@ public class CFRSinkFactory implements OutputSinkFactory {
 
 				if (srcLineNumber == null || dstLineNumber == null) continue;
 
-				lineMap.computeIfAbsent(className, (c) -> new TreeMap<>()).put(srcLineNumber, dstLineNumber);
+				lines[length++] = srcLineNumber;
+				lines[length++] = dstLineNumber;
 			}
-		};
-	}
-
-	private synchronized void writeToJar(String filename, byte[] data) {
-		String[] path = filename.split("/");
-		String pathPart = "";
 
-		for (int i = 0; i < path.length - 1; i++) {
-			pathPart += path[i] + "/";
-
-			if (addedDirectories.add(pathPart)) {
-				JarEntry entry = new JarEntry(pathPart);
-				entry.setTime(new Date().getTime());
-
-				try {
-					outputStream.putNextEntry(entry);
-					outputStream.closeEntry();
-				} catch (IOException e) {
-					throw new RuntimeException(e);
-				}
+			if (length > 0) {
+				sourcesSink.addLineMapping(className.replace('.', '/'), Arrays.copyOf(lines, length));
 			}
-		}
-
-		JarEntry entry = new JarEntry(filename);
-		entry.setTime(new Date().getTime());
-		entry.setSize(data.length);
-
-		try {
-			logger.accept("Writing: " + filename);
-			outputStream.putNextEntry(entry);
-			outputStream.write(data);
-			outputStream.closeEntry();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-	}
-
-	public Map<String, Map<Integer, Integer>> getLineMap() {
-		return Collections.unmodifiableMap(lineMap);
+		};
 	}
 }
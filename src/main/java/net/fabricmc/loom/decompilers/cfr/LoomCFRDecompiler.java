@@ -26,15 +26,10 @@ package net.fabricmc.loom.decompilers.cfr;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 import java.util.jar.Attributes;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 
 import org.benf.cfr.reader.Driver;
@@ -47,6 +42,7 @@ import org.benf.cfr.reader.util.output.SinkDumperFactory;
 
 import net.fabricmc.loom.api.decompilers.DecompilationMetadata;
 import net.fabricmc.loom.api.decompilers.LoomDecompiler;
+import net.fabricmc.loom.decompilers.DecompiledSourcesSink;
 
 public final class LoomCFRDecompiler implements LoomDecompiler {
 	private static final Map<String, String> DECOMPILE_OPTIONS = Map.of(
@@ -80,49 +76,15 @@ public final class LoomCFRDecompiler implements LoomDecompiler {
 		final Manifest manifest = new Manifest();
 		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
 
-		Map<String, Map<Integer, Integer>> lineMap;
+		try (DecompiledSourcesSink sourcesSink = new DecompiledSourcesSink(sourcesDestination, linemapDestination)) {
+			sourcesSink.writeManifest(manifest);
 
-		try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(sourcesDestination), manifest)) {
-			CFRSinkFactory cfrSinkFactory = new CFRSinkFactory(outputStream, metaData.logger());
+			CFRSinkFactory cfrSinkFactory = new CFRSinkFactory(sourcesSink, metaData.logger());
 			SinkDumperFactory dumperFactory = new SinkDumperFactory(cfrSinkFactory, options);
 
 			Driver.doJar(state, path, AnalysisType.JAR, dumperFactory);
-
-			lineMap = cfrSinkFactory.getLineMap();
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to decompile", e);
 		}
-
-		writeLineMap(linemapDestination, lineMap);
-	}
-
-	private void writeLineMap(Path output, Map<String, Map<Integer, Integer>> lineMap) {
-		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
-			for (Map.Entry<String, Map<Integer, Integer>> classEntry : lineMap.entrySet()) {
-				final String name = classEntry.getKey().replace(".", "/");
-
-				final Map<Integer, Integer> mapping = classEntry.getValue();
-
-				int maxLine = 0;
-				int maxLineDest = 0;
-				StringBuilder builder = new StringBuilder();
-
-				for (Map.Entry<Integer, Integer> mappingEntry : mapping.entrySet()) {
-					final int src = mappingEntry.getKey();
-					final int dst = mappingEntry.getValue();
-
-					maxLine = Math.max(maxLine, src);
-					maxLineDest = Math.max(maxLineDest, dst);
-
-					builder.append("\t").append(src).append("\t").append(dst).append("\n");
-				}
-
-				writer.write(String.format(Locale.ENGLISH, "%s\t%d\t%d\n", name, maxLine, maxLineDest));
-				writer.write(builder.toString());
-				writer.write("\n");
-			}
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to write line map", e);
-		}
 	}
 }
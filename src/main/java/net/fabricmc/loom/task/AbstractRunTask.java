@@ -32,33 +32,44 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import com.google.common.base.Suppliers;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.Project;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.JavaExec;
+import org.gradle.process.CommandLineArgumentProvider;
 import org.jetbrains.annotations.NotNull;
 
+import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.ide.RunConfig;
+import net.fabricmc.loom.util.ClassDataSharing;
 import net.fabricmc.loom.util.Constants;
 
 public abstract class AbstractRunTask extends JavaExec {
-	private final RunConfig config;
+	private final Supplier<RunConfig> config;
 	// We control the classpath, as we use a ArgFile to pass it over the command line: https://docs.oracle.com/javase/7/docs/technotes/tools/windows/javac.html#commandlineargfile
 	private final ConfigurableFileCollection classpath = getProject().getObjects().fileCollection();
 
 	public AbstractRunTask(Function<Project, RunConfig> configProvider) {
 		super();
 		setGroup(Constants.TaskGroup.FABRIC);
-		this.config = configProvider.apply(getProject());
+		// Evaluating the run config can be expensive (e.g. expanding the Forge run templates),
+		// so it's deferred until the task is going to run.
+		this.config = Suppliers.memoize(() -> configProvider.apply(getProject()));
 
-		setClasspath(config.sourceSet.getRuntimeClasspath().filter(File::exists).filter(new LibraryFilter()));
+		setClasspath(getProject().files((Callable<FileCollection>) () -> config.get().sourceSet.getRuntimeClasspath().filter(File::exists).filter(new LibraryFilter())));
 
-		args(config.programArgs);
-		getMainClass().set(config.mainClass);
+		getArgumentProviders().add(new ProgramArgumentProvider(getProject().provider(() -> config.get().programArgs)));
+		getMainClass().set(getProject().provider(() -> config.get().mainClass));
 	}
 
 	private boolean canUseArgFile() {
@@ -66,6 +77,11 @@ public abstract class AbstractRunTask extends JavaExec {
 		return getJavaVersion().isJava9Compatible();
 	}
 
+	private boolean canUseClassDataSharing() {
+		// Dynamic archives were added in Java 13, see https://openjdk.org/jeps/350
+		return ClassDataSharing.isEnabled(getProject()) && getJavaVersion().isCompatibleWith(JavaVersion.VERSION_13);
+	}
+
 	@Override
 	public void exec() {
 		if (canUseArgFile()) {
@@ -78,8 +94,8 @@ public abstract class AbstractRunTask extends JavaExec {
 			super.setClasspath(classpath);
 		}
 
-		setWorkingDir(new File(getProject().getProjectDir(), config.runDir));
-		environment(config.environmentVariables);
+		setWorkingDir(new File(getProject().getProjectDir(), config.get().runDir));
+		environment(config.get().environmentVariables);
 
 		super.exec();
 	}
@@ -112,11 +128,21 @@ public abstract class AbstractRunTask extends JavaExec {
 			}
 		}
 
+		if (canUseClassDataSharing()) {
+			try {
+				final Path archiveDir = LoomGradleExtension.get(getProject()).getFiles().getProjectPersistentCache().toPath().resolve("cds");
+				final String javaRuntime = getExecutable() + ":" + getJavaVersion();
+				args.addAll(ClassDataSharing.getJvmArgs(archiveDir, getName(), new ArrayList<>(this.classpath.getFiles()), getMainClass().get(), javaRuntime, getLogger()));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to set up class data sharing", e);
+			}
+		}
+
 		if (superArgs != null) {
 			args.addAll(superArgs);
 		}
 
-		args.addAll(config.vmArgs);
+		args.addAll(config.get().vmArgs);
 		return args;
 	}
 
@@ -137,17 +163,38 @@ public abstract class AbstractRunTask extends JavaExec {
 		return this.classpath;
 	}
 
+	/**
+	 * Passes the program arguments of the run config, which are only known once the run config has been evaluated.
+	 */
+	private static class ProgramArgumentProvider implements CommandLineArgumentProvider {
+		private final Provider<List<String>> programArgs;
+
+		ProgramArgumentProvider(Provider<List<String>> programArgs) {
+			this.programArgs = programArgs;
+		}
+
+		@Input
+		public Provider<List<String>> getProgramArgs() {
+			return programArgs;
+		}
+
+		@Override
+		public Iterable<String> asArguments() {
+			return programArgs.get();
+		}
+	}
+
 	private class LibraryFilter implements Spec<File> {
 		private List<String> excludedLibraryPaths = null;
 
 		@Override
 		public boolean isSatisfiedBy(File element) {
 			if (excludedLibraryPaths == null) {
-				excludedLibraryPaths = config.getExcludedLibraryPaths(getProject());
+				excludedLibraryPaths = config.get().getExcludedLibraryPaths(getProject());
 			}
 
 			if (excludedLibraryPaths.contains(element.getAbsolutePath())) {
-				getProject().getLogger().debug("Excluding library {} from {} run config", element.getName(), config.configName);
+				getProject().getLogger().debug("Excluding library {} from {} run config", element.getName(), config.get().configName);
 				return false;
 			}
 
@@ -47,6 +47,8 @@ import net.fabricmc.loom.util.MirrorUtil;
 import net.fabricmc.loom.util.download.DownloadExecutor;
 import net.fabricmc.loom.util.download.GradleDownloadProgressListener;
 import net.fabricmc.loom.util.gradle.ProgressGroup;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 
 // TODO: Reintroduce the progress bar.
 public abstract class DownloadAssetsTask extends AbstractLoomTask {
@@ -93,7 +95,8 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 	public void downloadAssets() throws IOException {
 		final AssetIndex assetIndex = getAssetIndex();
 
-		try (ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Assets");
+		try (TraceSpan span = BuildTracer.get(getProject()).span("download", "Assets (%d objects)".formatted(assetIndex.getObjects().size()));
+				ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Assets");
 				DownloadExecutor executor = new DownloadExecutor(getDownloadThreads().get())) {
 			for (AssetIndex.Object object : assetIndex.getObjects()) {
 				final String sha1 = object.hash();
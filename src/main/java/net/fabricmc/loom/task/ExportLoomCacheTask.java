@@ -0,0 +1,128 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
+import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetIndex;
+import net.fabricmc.loom.util.LoomCacheBundle;
+
+/**
+ * Exports the caches used by this project to a bundle, which can be imported on another machine
+ * with the {@value LoomCacheBundle#IMPORT_PROPERTY} Gradle property.
+ */
+public abstract class ExportLoomCacheTask extends AbstractLoomTask {
+	@OutputFile
+	public abstract RegularFileProperty getOutputFile();
+
+	@Inject
+	public ExportLoomCacheTask() {
+		getOutputFile().convention(getProject().getLayout().getBuildDirectory().file("loom-cache-bundle.zip"));
+		getOutputs().upToDateWhen(t -> false);
+	}
+
+	@TaskAction
+	public void run() throws IOException {
+		final LoomGradleExtension extension = getExtension();
+		final MinecraftProvider minecraftProvider = extension.getMinecraftProvider();
+		final File userCache = extension.getFiles().getUserCache();
+		final List<Path> files = new ArrayList<>();
+
+		addFile(files, new File(userCache, "version_manifest.json").toPath());
+		addFile(files, new File(userCache, "experimental_version_manifest.json").toPath());
+		addTree(files, minecraftProvider.workingDir().toPath());
+		addAssets(files, userCache.toPath().resolve("assets"), minecraftProvider);
+		addTree(files, extension.getFiles().getRootProjectPersistentCache().toPath());
+
+		final List<LoomCacheBundle.Entry> entries = LoomCacheBundle.export(LoomCacheBundle.getRoots(extension), files, getOutputFile().get().getAsFile().toPath(), getLogger());
+		getLogger().lifecycle(":exported {} cache files to {}", entries.size(), getOutputFile().get().getAsFile());
+	}
+
+	private void addAssets(List<Path> files, Path assetsDir, MinecraftProvider minecraftProvider) throws IOException {
+		final MinecraftVersionMeta.AssetIndex assetIndexMeta = minecraftProvider.getVersionInfo().assetIndex();
+		final Path indexFile = assetsDir.resolve("indexes").resolve(assetIndexMeta.fabricId(minecraftProvider.minecraftVersion()) + ".json");
+
+		if (!Files.isRegularFile(indexFile)) {
+			getLogger().warn("Assets have not been downloaded, run downloadAssets to include them in the bundle");
+			return;
+		}
+
+		addFile(files, indexFile);
+
+		final AssetIndex assetIndex = LoomGradlePlugin.OBJECT_MAPPER.readValue(indexFile.toFile(), AssetIndex.class);
+
+		// Legacy resources are copied into the run directory, which is not a cache
+		if (assetIndex.mapToResources() || assetIndex.virtual()) {
+			return;
+		}
+
+		for (AssetIndex.Object object : assetIndex.getObjects()) {
+			addFile(files, assetsDir.resolve("objects").resolve(object.hash().substring(0, 2)).resolve(object.hash()));
+		}
+	}
+
+	private static void addFile(List<Path> files, Path file) {
+		if (Files.isRegularFile(file) && isCacheFile(file)) {
+			files.add(file);
+		}
+	}
+
+	private static void addTree(List<Path> files, Path dir) throws IOException {
+		if (!Files.isDirectory(dir)) {
+			return;
+		}
+
+		try (Stream<Path> stream = Files.walk(dir)) {
+			stream.filter(Files::isRegularFile)
+					.filter(ExportLoomCacheTask::isCacheFile)
+					.forEach(files::add);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static boolean isCacheFile(Path file) {
+		final String name = file.getFileName().toString();
+		// Locks are machine specific, and attribute fallback files are carried in the manifest
+		return !name.endsWith(".lock") && !name.endsWith(".att") && !name.endsWith(".import");
+	}
+}
@@ -27,6 +27,7 @@ package net.fabricmc.loom.task;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.lang.reflect.Constructor;
@@ -37,10 +38,16 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -48,9 +55,11 @@ import javax.inject.Inject;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.work.DisableCachingByDefault;
@@ -68,7 +77,9 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.accesswidener.TransitiveAccessWidenerMappingsProcessor;
 import net.fabricmc.loom.configuration.ifaceinject.InterfaceInjectionProcessor;
 import net.fabricmc.loom.configuration.processors.ModJavadocProcessor;
+import net.fabricmc.loom.decompilers.BatchedDecompiler;
 import net.fabricmc.loom.decompilers.LineNumberRemapper;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.IOStringConsumer;
@@ -78,6 +89,8 @@ import net.fabricmc.loom.util.gradle.ThreadedSimpleProgressLogger;
 import net.fabricmc.loom.util.gradle.WorkerDaemonClientsManagerHelper;
 import net.fabricmc.loom.util.ipc.IPCClient;
 import net.fabricmc.loom.util.ipc.IPCServer;
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.format.Tiny2Writer;
@@ -85,6 +98,16 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 @DisableCachingByDefault
 public abstract class GenerateSourcesTask extends AbstractLoomTask {
+	/**
+	 * When true, the decompiler worker JVM is kept alive for the lifetime of the Gradle daemon, so that repeated runs are JIT warm.
+	 */
+	public static final String KEEP_WORKER_PROPERTY = "fabric.loom.genSources.keepWorker";
+	private static final String WARM_WORKER_PREFIX = "warm-";
+	/**
+	 * When set, the jars are decompiled in batches of about this many classes, bounding the memory used by the decompiler.
+	 */
+	public static final String BATCH_SIZE_PROPERTY = "fabric.loom.genSources.batchSize";
+
 	private final DecompilerOptions decompilerOptions;
 
 	/**
@@ -105,6 +128,22 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@OutputFile
 	public abstract RegularFileProperty getOutputJar();
 
+	/**
+	 * The client only jar to decompile alongside the common jar, when the environment source sets are split.
+	 * Both jars are decompiled at the same time in the same worker, sharing the mappings file and library classpath.
+	 */
+	@Optional
+	@InputFile
+	public abstract RegularFileProperty getClientOnlyInputJar();
+
+	@Optional
+	@InputFile
+	public abstract RegularFileProperty getClientOnlyRuntimeJar();
+
+	@Optional
+	@OutputFile
+	public abstract RegularFileProperty getClientOnlyOutputJar();
+
 	@Inject
 	public abstract WorkerExecutor getWorkerExecutor();
 
@@ -120,6 +159,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		dependsOn(decompilerOptions.getClasspath().getBuiltBy());
 
 		getOutputJar().fileProvider(getProject().provider(() -> getMappedJarFileWithSuffix("-sources.jar")));
+		getClientOnlyOutputJar().fileProvider(getClientOnlyRuntimeJar().getAsFile().map(file -> getMappedJarFileWithSuffix(file, "-sources.jar")));
 	}
 
 	@TaskAction
@@ -150,17 +190,28 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	}
 
 	private void doWork(@Nullable IPCServer ipcServer) {
-		final String jvmMarkerValue = UUID.randomUUID().toString();
-		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue);
+		final boolean keepWorker = useProcessIsolation() && keepWorker();
+		final String jvmMarkerValue = keepWorker ? getWarmWorkerMarker() : UUID.randomUUID().toString();
+
+		if (keepWorker) {
+			// Stop the warm worker left by an older classpath or heap size of this decompiler, it will never be reused.
+			final String prefix = WARM_WORKER_PREFIX + decompilerOptions.getName() + "-";
+			WorkerDaemonClientsManagerHelper.stopIdleJVMs(getWorkerDaemonClientsManager(), marker -> marker.startsWith(prefix) && !marker.equals(jvmMarkerValue));
+		}
+
+		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue, keepWorker);
+
+		final List<DecompileTarget> targets = new ArrayList<>();
+		targets.add(DecompileTarget.create(getInputJar(), getRuntimeJar(), getOutputJar()));
+
+		if (getClientOnlyInputJar().isPresent()) {
+			targets.add(DecompileTarget.create(getClientOnlyInputJar(), getClientOnlyRuntimeJar(), getClientOnlyOutputJar()));
+		}
 
 		workQueue.submit(DecompileAction.class, params -> {
 			params.getDecompilerOptions().set(decompilerOptions.toDto());
 
-			params.getInputJar().set(getInputJar());
-			params.getRuntimeJar().set(getRuntimeJar());
-			params.getSourcesDestinationJar().set(getOutputJar());
-			params.getLinemap().set(getMappedJarFileWithSuffix("-sources.lmap"));
-			params.getLinemapJar().set(getMappedJarFileWithSuffix("-linemapped.jar"));
+			params.getTargets().set(targets);
 			params.getMappings().set(getMappings().toFile());
 
 			if (ipcServer != null) {
@@ -168,12 +219,27 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			}
 
 			params.getClassPath().setFrom(getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_DEPENDENCIES));
+			params.getReleaseMemory().set(keepWorker);
+			params.getBatchSize().set(getProject().getProviders().gradleProperty(BATCH_SIZE_PROPERTY).map(Integer::parseInt).getOrElse(0));
 		});
 
-		try {
+		final String jarNames = targets.stream().map(target -> target.inputJar().getName()).collect(Collectors.joining(", "));
+
+		try (TraceSpan span = BuildTracer.get(getProject()).span("decompile", "%s %s".formatted(decompilerOptions.getName(), jarNames))) {
 			workQueue.await();
+
+			for (DecompileTarget target : targets) {
+				span.read(target.inputJar().toPath()).wrote(target.sourcesJar().toPath());
+			}
+		} catch (RuntimeException e) {
+			if (keepWorker) {
+				// Don't keep a worker that failed, it may have run out of memory.
+				WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
+			}
+
+			throw e;
 		} finally {
-			if (ipcServer != null) {
+			if (ipcServer != null && !keepWorker) {
 				boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
 
 				if (!stopped && ipcServer.hasReceivedMessage()) {
@@ -183,7 +249,7 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 	}
 
-	private WorkQueue createWorkQueue(String jvmMarkerValue) {
+	private WorkQueue createWorkQueue(String jvmMarkerValue, boolean keepWorker) {
 		if (!useProcessIsolation()) {
 			return getWorkerExecutor().classLoaderIsolation(spec -> {
 				spec.getClasspath().from(getClasspath());
@@ -192,36 +258,108 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		return getWorkerExecutor().processIsolation(spec -> {
 			spec.forkOptions(forkOptions -> {
-				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", decompilerOptions.getMemory().get()));
+				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", getWorkerMemory()));
 				forkOptions.systemProperty(WorkerDaemonClientsManagerHelper.MARKER_PROP, jvmMarkerValue);
+
+				if (keepWorker) {
+					// Let the heap shrink back after each run, so the idle worker holds on to little memory.
+					forkOptions.jvmArgs("-XX:MinHeapFreeRatio=10", "-XX:MaxHeapFreeRatio=30");
+				}
 			});
 			spec.getClasspath().from(getClasspath());
 		});
 	}
 
+	/**
+	 * The heap of the worker in megabytes. The decompiler memory is sized for a single jar, when the client only jar is
+	 * decompiled at the same time the heap grows in proportion to the size of the jars, as both decompiler contexts are alive at once.
+	 */
+	private long getWorkerMemory() {
+		final long memory = decompilerOptions.getMemory().get();
+
+		if (!getClientOnlyInputJar().isPresent()) {
+			return memory;
+		}
+
+		final long size = getInputJar().get().getAsFile().length();
+		final long clientOnlySize = getClientOnlyInputJar().get().getAsFile().length();
+		return Math.round((double) memory * (size + clientOnlySize) / Math.max(1, Math.max(size, clientOnlySize)));
+	}
+
 	private boolean useProcessIsolation() {
 		// Useful if you want to debug the decompiler, make sure you run gradle with enough memory.
 		return !Boolean.getBoolean("fabric.loom.genSources.debug");
 	}
 
+	private boolean keepWorker() {
+		return getProject().getProviders().gradleProperty(KEEP_WORKER_PROPERTY).map(Boolean::parseBoolean).getOrElse(false);
+	}
+
+	/**
+	 * The warm worker is only reused while the decompiler classpath and heap size are unchanged.
+	 */
+	private String getWarmWorkerMarker() {
+		final StringBuilder key = new StringBuilder().append(getWorkerMemory());
+
+		for (File file : getClasspath().getFiles()) {
+			key.append(File.pathSeparatorChar).append(file.getAbsolutePath()).append('@').append(file.lastModified());
+		}
+
+		return WARM_WORKER_PREFIX + decompilerOptions.getName() + "-" + Checksum.toHex(Checksum.sha256(key.toString())).substring(0, 16);
+	}
+
+	/**
+	 * A jar to decompile, and the files it produces.
+	 *
+	 * @param inputJar the jar to decompile, can be the unpick jar
+	 * @param runtimeJar the jar used at runtime, which is line mapped after decompiling
+	 */
+	public record DecompileTarget(File inputJar, File runtimeJar, File sourcesJar, File linemap, File linemapJar) implements Serializable {
+		static DecompileTarget create(RegularFileProperty inputJar, RegularFileProperty runtimeJar, RegularFileProperty sourcesJar) {
+			return new DecompileTarget(
+					inputJar.get().getAsFile(),
+					runtimeJar.get().getAsFile(),
+					sourcesJar.get().getAsFile(),
+					getMappedJarFileWithSuffix(runtimeJar, "-sources.lmap"),
+					getMappedJarFileWithSuffix(runtimeJar, "-linemapped.jar")
+			);
+		}
+	}
+
 	public interface DecompileParams extends WorkParameters {
 		Property<DecompilerOptions.Dto> getDecompilerOptions();
 
-		RegularFileProperty getInputJar();
-		RegularFileProperty getRuntimeJar();
-		RegularFileProperty getSourcesDestinationJar();
-		RegularFileProperty getLinemap();
-		RegularFileProperty getLinemapJar();
+		ListProperty<DecompileTarget> getTargets();
 		RegularFileProperty getMappings();
 
 		RegularFileProperty getIPCPath();
 
 		ConfigurableFileCollection getClassPath();
+
+		/**
+		 * Whether to release memory once done, as the worker is kept alive.
+		 */
+		Property<Boolean> getReleaseMemory();
+
+		/**
+		 * The number of classes to decompile at once, or 0 to decompile each jar at once.
+		 */
+		Property<Integer> getBatchSize();
 	}
 
 	public abstract static class DecompileAction implements WorkAction<DecompileParams> {
 		@Override
 		public void execute() {
+			try {
+				run();
+			} finally {
+				if (getParameters().getReleaseMemory().getOrElse(false)) {
+					System.gc();
+				}
+			}
+		}
+
+		private void run() {
 			if (!getParameters().getIPCPath().isPresent() || !OperatingSystem.isUnixDomainSocketsSupported()) {
 				// Does not support unix domain sockets, print to sout.
 				doDecompile(System.out::println);
@@ -238,15 +376,73 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		}
 
 		private void doDecompile(IOStringConsumer logger) {
-			final Path inputJar = getParameters().getInputJar().get().getAsFile().toPath();
-			final Path sourcesDestinationJar = getParameters().getSourcesDestinationJar().get().getAsFile().toPath();
-			final Path linemap = getParameters().getLinemap().get().getAsFile().toPath();
-			final Path linemapJar = getParameters().getLinemapJar().get().getAsFile().toPath();
-			final Path runtimeJar = getParameters().getRuntimeJar().get().getAsFile().toPath();
-
 			final DecompilerOptions.Dto decompilerOptions = getParameters().getDecompilerOptions().get();
+			final List<DecompileTarget> targets = getParameters().getTargets().get();
+			final Path mappings = getParameters().getMappings().get().getAsFile().toPath();
+			final Collection<Path> classpath = getLibraries();
+			final int batchSize = getParameters().getBatchSize().getOrElse(0);
+
+			if (targets.size() == 1) {
+				decompile(targets.get(0), decompilerOptions, decompilerOptions.maxThreads(), batchSize, mappings, classpath, logger);
+			} else {
+				// Decompile the split jars at the same time, dividing the threads by the size of each jar.
+				// The worker's heap is sized for both decompiler contexts, see getWorkerMemory.
+				final long totalSize = targets.stream().mapToLong(target -> target.inputJar().length()).sum();
+				final ExecutorService executor = Executors.newFixedThreadPool(targets.size());
+
+				try {
+					final List<Future<?>> futures = new ArrayList<>();
+
+					for (DecompileTarget target : targets) {
+						final int threads = (int) Math.max(1, Math.round((double) decompilerOptions.maxThreads() * target.inputJar().length() / Math.max(1, totalSize)));
+						// The other split jars are libraries of this one, so that references between them resolve
+						final Set<Path> libraries = new LinkedHashSet<>(classpath);
+						targets.stream().filter(other -> other != target).forEach(other -> libraries.add(other.inputJar().toPath()));
+
+						futures.add(executor.submit(() -> decompile(target, decompilerOptions, threads, batchSize, mappings, libraries, logger)));
+					}
+
+					for (Future<?> future : futures) {
+						future.get();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while decompiling", e);
+				} catch (ExecutionException e) {
+					throw new RuntimeException("Failed to decompile", e.getCause());
+				} finally {
+					executor.shutdownNow();
+				}
+			}
+
+			// Close the decompile loggers
+			try {
+				logger.accept(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to close loggers", e);
+			}
 
-			final LoomDecompiler decompiler;
+			for (DecompileTarget target : targets) {
+				final Path linemap = target.linemap().toPath();
+				final Path linemapJar = target.linemapJar().toPath();
+				final Path runtimeJar = target.runtimeJar().toPath();
+
+				if (Files.exists(linemap)) {
+					try {
+						// Line map the actually jar used to run the game, not the one used to decompile
+						remapLineNumbers(logger, runtimeJar, linemap, linemapJar);
+
+						Files.copy(linemapJar, runtimeJar, StandardCopyOption.REPLACE_EXISTING);
+						Files.delete(linemapJar);
+					} catch (IOException e) {
+						throw new UncheckedIOException("Failed to remap line numbers", e);
+					}
+				}
+			}
+		}
+
+		private static void decompile(DecompileTarget target, DecompilerOptions.Dto decompilerOptions, int threads, int batchSize, Path mappings, Collection<Path> libraries, IOStringConsumer logger) {
+			LoomDecompiler decompiler;
 
 			try {
 				final String className = decompilerOptions.className();
@@ -258,39 +454,24 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 				throw new RuntimeException("Failed to create decompiler", e);
 			}
 
+			if (batchSize > 0) {
+				decompiler = new BatchedDecompiler(decompiler, batchSize);
+			}
+
 			DecompilationMetadata metadata = new DecompilationMetadata(
-					decompilerOptions.maxThreads(),
-					getParameters().getMappings().get().getAsFile().toPath(),
-					getLibraries(),
+					threads,
+					mappings,
+					libraries,
 					logger,
 					decompilerOptions.options()
 			);
 
 			decompiler.decompile(
-					inputJar,
-					sourcesDestinationJar,
-					linemap,
+					target.inputJar().toPath(),
+					target.sourcesJar().toPath(),
+					target.linemap().toPath(),
 					metadata
 			);
-
-			// Close the decompile loggers
-			try {
-				metadata.logger().accept(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS);
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to close loggers", e);
-			}
-
-			if (Files.exists(linemap)) {
-				try {
-					// Line map the actually jar used to run the game, not the one used to decompile
-					remapLineNumbers(metadata.logger(), runtimeJar, linemap, linemapJar);
-
-					Files.copy(linemapJar, runtimeJar, StandardCopyOption.REPLACE_EXISTING);
-					Files.delete(linemapJar);
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to remap line numbers", e);
-				}
-			}
 		}
 
 		static void remapLineNumbers(IOStringConsumer logger, Path oldCompiledJar, Path linemap, Path linemappedJarDestination) throws IOException {
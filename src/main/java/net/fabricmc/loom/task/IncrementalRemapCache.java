@@ -0,0 +1,384 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import dev.architectury.tinyremapper.InputTag;
+import dev.architectury.tinyremapper.TinyRemapper;
+import org.apache.commons.io.FileUtils;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.commons.Remapper;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.Constants;
+
+/**
+ * Caches the remapped classes of a remap jar task, so that only the classes that changed since the last run are remapped again.
+ * The other classes are read as classpath, so that tiny remapper still sees the whole hierarchy, and copied from the cache.
+ *
+ * <p>The cache is only reused when its signature matches. The signature covers the remapper, the mapping files, the remap
+ * classpath and the structure (names, supertypes and members) of every input class. Changing a method body only remaps that
+ * class again, while any change that could affect how other classes are remapped invalidates the whole cache.
+ * Mixin classes are always remapped, as tiny remapper only collects their mappings from inputs.
+ */
+public final class IncrementalRemapCache {
+	private static final int VERSION = 1;
+	private static final String MIXIN_DESCRIPTOR = "Lorg/spongepowered/asm/mixin/Mixin;";
+
+	private final Path directory;
+	private final Path inputJar;
+	private final String signature;
+	// Input class name to the hash of its bytes
+	private final Map<String, String> classHashes;
+	// Classes to remap, or null when the cache cannot be used and every class is remapped
+	@Nullable
+	private final Set<String> changedClasses;
+	@Nullable
+	private final Index previous;
+
+	private IncrementalRemapCache(Path directory, Path inputJar, String signature, Map<String, String> classHashes, @Nullable Set<String> changedClasses, @Nullable Index previous) {
+		this.directory = directory;
+		this.inputJar = inputJar;
+		this.signature = signature;
+		this.classHashes = classHashes;
+		this.changedClasses = changedClasses;
+		this.previous = previous;
+	}
+
+	/**
+	 * Hashes the input jar and compares it to the previous run. When the cache can be used, the changed and unchanged classes are
+	 * split into separate jars in the cache directory.
+	 *
+	 * @param directory the cache directory, owned by a single remap jar task
+	 * @param inputJar the jar to remap
+	 * @param remapperId the id of the tiny remapper service
+	 * @param mappingFiles the mapping files read by the remapper
+	 * @param classpath the remap classpath
+	 */
+	public static IncrementalRemapCache prepare(Path directory, Path inputJar, String remapperId, List<Path> mappingFiles, Collection<File> classpath) throws IOException {
+		Files.createDirectories(directory);
+
+		final Map<String, String> classHashes = new HashMap<>();
+		final Set<String> alwaysRemapped = new HashSet<>();
+		final Hasher signatureHasher = Hashing.sha256().newHasher();
+		signatureHasher.putInt(VERSION).putString(remapperId, StandardCharsets.UTF_8);
+
+		for (Path mappingFile : mappingFiles) {
+			signatureHasher.putString(mappingFile.toAbsolutePath().toString(), StandardCharsets.UTF_8);
+			signatureHasher.putString(Checksum.sha1Hex(mappingFile), StandardCharsets.UTF_8);
+		}
+
+		putClasspath(signatureHasher, classpath);
+
+		// Sorted so that the structure hash does not depend on the jar order
+		final Map<String, byte[]> structure = new TreeMap<>();
+
+		try (ZipFile zip = new ZipFile(inputJar.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+
+				if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+					continue;
+				}
+
+				final byte[] bytes;
+
+				try (InputStream is = zip.getInputStream(entry)) {
+					bytes = is.readAllBytes();
+				}
+
+				String name = entry.getName().substring(0, entry.getName().length() - ".class".length());
+				classHashes.put(name, Hashing.sha256().hashBytes(bytes).toString());
+
+				StructureVisitor visitor = new StructureVisitor();
+				new ClassReader(bytes).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+				structure.put(name, visitor.hasher.hash().asBytes());
+
+				// Multi-release classes are versioned by tiny remapper, so their output names are not tracked
+				if (visitor.mixin || name.startsWith("META-INF/")) {
+					alwaysRemapped.add(name);
+				}
+			}
+		}
+
+		structure.forEach((name, hash) -> signatureHasher.putString(name, StandardCharsets.UTF_8).putBytes(hash));
+		final String signature = signatureHasher.hash().toString();
+		final Index previous = readIndex(directory);
+
+		if (previous == null || !previous.signature().equals(signature)) {
+			return new IncrementalRemapCache(directory, inputJar, signature, classHashes, null, null);
+		}
+
+		final Set<String> changed = new HashSet<>(alwaysRemapped);
+
+		for (Map.Entry<String, String> entry : classHashes.entrySet()) {
+			ClassEntry cached = previous.classes().get(entry.getKey());
+
+			if (cached == null || !cached.hash().equals(entry.getValue()) || Files.notExists(classFile(directory, cached.output()))) {
+				changed.add(entry.getKey());
+			}
+		}
+
+		final IncrementalRemapCache cache = new IncrementalRemapCache(directory, inputJar, signature, classHashes, changed, previous);
+		cache.splitInput();
+		return cache;
+	}
+
+	private static void putClasspath(Hasher hasher, Collection<File> classpath) throws IOException {
+		List<Path> sorted = classpath.stream().map(File::toPath).filter(Files::exists).sorted().toList();
+
+		for (Path path : sorted) {
+			hasher.putString(path.toAbsolutePath().toString(), StandardCharsets.UTF_8);
+
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> walk = Files.walk(path)) {
+					for (Path file : walk.filter(Files::isRegularFile).sorted().toList()) {
+						hasher.putString(path.relativize(file).toString(), StandardCharsets.UTF_8);
+						hasher.putLong(Files.size(file)).putLong(Files.getLastModifiedTime(file).toMillis());
+					}
+				}
+			} else {
+				hasher.putString(Checksum.sha1Hex(path), StandardCharsets.UTF_8);
+			}
+		}
+	}
+
+	/**
+	 * @return whether only the changed classes are remapped
+	 */
+	public boolean isIncremental() {
+		return changedClasses != null;
+	}
+
+	public int getChangedClassCount() {
+		return isIncremental() ? changedClasses.size() : classHashes.size();
+	}
+
+	/**
+	 * @return the jar to read as the remapper input
+	 */
+	public Path getInput() {
+		return isIncremental() ? directory.resolve("changed.jar") : inputJar;
+	}
+
+	/**
+	 * @return the jar with the unchanged classes, to read as classpath, or {@code null} when not incremental
+	 */
+	@Nullable
+	public Path getUnchangedClasspath() {
+		return isIncremental() ? directory.resolve("unchanged.jar") : null;
+	}
+
+	private void splitInput() throws IOException {
+		try (ZipFile zip = new ZipFile(inputJar.toFile());
+				ZipOutputStream changed = newJar(getInput());
+				ZipOutputStream unchanged = newJar(getUnchangedClasspath())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+
+				if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+					continue;
+				}
+
+				String name = entry.getName().substring(0, entry.getName().length() - ".class".length());
+				ZipOutputStream out = changedClasses.contains(name) ? changed : unchanged;
+				out.putNextEntry(new ZipEntry(entry.getName()));
+
+				try (InputStream is = zip.getInputStream(entry)) {
+					is.transferTo(out);
+				}
+
+				out.closeEntry();
+			}
+		}
+	}
+
+	private static ZipOutputStream newJar(Path path) throws IOException {
+		ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(path));
+		// Only read back once by tiny remapper, so not worth compressing
+		zip.setLevel(Deflater.NO_COMPRESSION);
+		return zip;
+	}
+
+	/**
+	 * Remaps the changed classes, copies the unchanged ones from the cache and stores the result for the next run.
+	 */
+	public void apply(TinyRemapper tinyRemapper, InputTag tag, BiConsumer<String, byte[]> output) throws IOException {
+		final Map<String, byte[]> remapped = new ConcurrentHashMap<>();
+
+		tinyRemapper.apply((name, bytes) -> {
+			remapped.put(name, bytes);
+			output.accept(name, bytes);
+		}, tag);
+
+		// Invalidate the cache until it is consistent again
+		final Path indexFile = directory.resolve("index.json");
+		Files.deleteIfExists(indexFile);
+
+		if (!isIncremental()) {
+			FileUtils.deleteDirectory(directory.resolve("classes").toFile());
+		}
+
+		final Remapper remapper = tinyRemapper.getEnvironment().getRemapper();
+		final Map<String, ClassEntry> entries = new HashMap<>();
+
+		for (Map.Entry<String, String> entry : classHashes.entrySet()) {
+			final String name = entry.getKey();
+
+			if (isIncremental() && !changedClasses.contains(name)) {
+				final ClassEntry cached = previous.classes().get(name);
+				output.accept(cached.output(), Files.readAllBytes(classFile(directory, cached.output())));
+				entries.put(name, cached);
+				continue;
+			}
+
+			final String outputName = remapper.map(name);
+			final byte[] bytes = remapped.get(outputName);
+
+			// Not cached, so it will be remapped again next time
+			if (bytes == null) continue;
+
+			final Path classFile = classFile(directory, outputName);
+			Files.createDirectories(classFile.getParent());
+			Files.write(classFile, bytes);
+			entries.put(name, new ClassEntry(entry.getValue(), outputName));
+		}
+
+		try (OutputStream out = Files.newOutputStream(indexFile)) {
+			LoomGradlePlugin.OBJECT_MAPPER.writeValue(out, new Index(VERSION, signature, entries));
+		}
+	}
+
+	private static Path classFile(Path directory, String className) {
+		return directory.resolve("classes").resolve(className + ".class");
+	}
+
+	@Nullable
+	private static Index readIndex(Path directory) {
+		final Path indexFile = directory.resolve("index.json");
+
+		if (Files.notExists(indexFile)) {
+			return null;
+		}
+
+		try {
+			Index index = LoomGradlePlugin.OBJECT_MAPPER.readValue(indexFile.toFile(), Index.class);
+			return index.version() == VERSION ? index : null;
+		} catch (IOException e) {
+			// Treat a corrupt index as a cache miss
+			return null;
+		}
+	}
+
+	private record Index(int version, String signature, Map<String, ClassEntry> classes) {
+	}
+
+	private record ClassEntry(String hash, String output) {
+	}
+
+	/**
+	 * Hashes everything about a class that can affect how other classes are remapped.
+	 */
+	private static final class StructureVisitor extends ClassVisitor {
+		private final Hasher hasher = Hashing.sha256().newHasher();
+		private boolean mixin = false;
+
+		private StructureVisitor() {
+			super(Constants.ASM_VERSION);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			hasher.putInt(access).putString(name, StandardCharsets.UTF_8).putString(String.valueOf(superName), StandardCharsets.UTF_8);
+
+			if (interfaces != null) {
+				for (String itf : interfaces) {
+					hasher.putString(itf, StandardCharsets.UTF_8);
+				}
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			if (MIXIN_DESCRIPTOR.equals(descriptor)) {
+				mixin = true;
+			}
+
+			return null;
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			hasher.putString(name, StandardCharsets.UTF_8).putString(String.valueOf(outerName), StandardCharsets.UTF_8)
+					.putString(String.valueOf(innerName), StandardCharsets.UTF_8).putInt(access);
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			hasher.putChar('F').putInt(access).putString(name, StandardCharsets.UTF_8).putString(descriptor, StandardCharsets.UTF_8);
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			hasher.putChar('M').putInt(access).putString(name, StandardCharsets.UTF_8).putString(descriptor, StandardCharsets.UTF_8);
+			return null;
+		}
+	}
+}
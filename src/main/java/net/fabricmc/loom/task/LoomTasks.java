@@ -67,6 +67,12 @@ public final class LoomTasks {
 		tasks.register("generateRemapClasspath", GenerateRemapClasspathTask.class, t -> {
 			t.setDescription("Generate the remap classpath file");
 		});
+		tasks.register("exportLoomCache", ExportLoomCacheTask.class, t -> {
+			t.setDescription("Exports the loom caches used by this project to a bundle, for use on offline machines.");
+		});
+		tasks.register("remapModSources", RemapModSourcesTask.class, t -> {
+			t.setDescription("Remaps the sources of the mod dependencies, this runs automatically on IDE sync and when generating IDE run configurations.");
+		});
 
 		tasks.register("configureLaunch", task -> {
 			task.dependsOn(tasks.named("generateDLIConfig"));
@@ -111,13 +117,14 @@ public final class LoomTasks {
 	private static void registerIDETasks(TaskContainer tasks) {
 		tasks.register("genIdeaWorkspace", GenIdeaProjectTask.class, t -> {
 			t.setDescription("Generates an IntelliJ IDEA workspace from this project.");
-			t.dependsOn("idea", getIDELaunchConfigureTaskName(t.getProject()));
+			t.dependsOn("idea", getIDELaunchConfigureTaskName(t.getProject()), "remapModSources");
 			t.setGroup(Constants.TaskGroup.IDE);
 		});
 
 		tasks.register("genEclipseRuns", GenEclipseRunsTask.class, t -> {
 			t.setDescription("Generates Eclipse run configurations for this project.");
-			t.dependsOn(getIDELaunchConfigureTaskName(t.getProject()));
+			// Also runs when eclipse is, which the Eclipse Gradle integration runs on import
+			t.dependsOn(getIDELaunchConfigureTaskName(t.getProject()), "remapModSources");
 			t.setGroup(Constants.TaskGroup.IDE);
 		});
 
@@ -128,7 +135,7 @@ public final class LoomTasks {
 
 		tasks.register("vscode", GenVsCodeProjectTask.class, t -> {
 			t.setDescription("Generates VSCode launch configurations.");
-			t.dependsOn(getIDELaunchConfigureTaskName(t.getProject()));
+			t.dependsOn(getIDELaunchConfigureTaskName(t.getProject()), "remapModSources");
 			t.setGroup(Constants.TaskGroup.IDE);
 		});
 	}
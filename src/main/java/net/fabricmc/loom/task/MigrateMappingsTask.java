@@ -26,15 +26,38 @@ package net.fabricmc.loom.task;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.mercury.Mercury;
+import org.cadixdev.mercury.SourceContext;
+import org.cadixdev.mercury.SourceProcessor;
 import org.cadixdev.mercury.remapper.MercuryRemapper;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.IPackageBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
 import org.gradle.api.GradleException;
 import org.gradle.api.IllegalDependencyNotation;
 import org.gradle.api.JavaVersion;
@@ -43,24 +66,41 @@ import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
 import org.gradle.work.DisableCachingByDefault;
+import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.mappings.layered.spec.LayeredMappingSpecBuilder;
 import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsDependency;
 import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.loom.util.SourceRemapper;
+import net.fabricmc.loom.util.ThreadingUtils;
 import net.fabricmc.lorenztiny.TinyMappingsJoiner;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
-@DisableCachingByDefault(because = "Always rerun this task.")
+@DisableCachingByDefault(because = "The migration state is kept in the project cache.")
 public abstract class MigrateMappingsTask extends AbstractLoomTask {
+	private static final int MIN_BATCH_SIZE = 200;
+	private static final int MAX_PARALLEL_BATCHES = 4;
+	// Joined mapping sets by migration key, kept while the daemon has memory to spare. Never hand these to Mercury, copy them first.
+	private static final Cache<String, MappingSet> JOINED_MAPPINGS_CACHE = CacheBuilder.newBuilder()
+			.softValues()
+			.maximumSize(2)
+			.build();
+
 	private Path inputDir;
 	private Path outputDir;
 	private String mappings;
@@ -88,6 +128,23 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		this.mappings = mappings;
 	}
 
+	@InputDirectory
+	public File getInputDir() {
+		return inputDir.toFile();
+	}
+
+	@OutputDirectory
+	public File getOutputDir() {
+		return outputDir.toFile();
+	}
+
+	// Validated by the task action, which explains how to set it
+	@Input
+	@Optional
+	public String getMappings() {
+		return mappings;
+	}
+
 	@InputFiles
 	public abstract ConfigurableFileCollection getCompileClasspath();
 
@@ -108,9 +165,12 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		MappingsProviderImpl mappingsProvider = extension.getMappingsProvider();
 
 		try {
-			MemoryMappingTree currentMappings = mappingsProvider.getMappings();
-			MemoryMappingTree targetMappings = getMappings(mappings);
-			migrateMappings(project, extension, inputDir, outputDir, currentMappings, targetMappings);
+			final List<Path> classPath = getClassPath(project, extension);
+			// A different classpath may change how references resolve, so it is part of the key too.
+			final String migrationKey = mappingsProvider.mappingsIdentifier() + "->" + mappings.getName() + "-" + Checksum.sha1Hex(mappings.toPath())
+					+ ":" + Checksum.toHex(Checksum.sha256(classPath.toString()));
+			MappingSet mappingSet = getJoinedMappings(project, mappingsProvider, mappings, migrationKey);
+			migrateMappings(project, inputDir, outputDir, classPath, mappingSet, migrationKey);
 			project.getLogger().lifecycle(":remapped project written to " + outputDir.toAbsolutePath());
 		} catch (IOException e) {
 			throw new IllegalArgumentException("Error while loading mappings", e);
@@ -166,46 +226,314 @@ public abstract class MigrateMappingsTask extends AbstractLoomTask {
 		return mappingTree;
 	}
 
-	private static void migrateMappings(Project project, LoomGradleExtension extension,
-										Path inputDir, Path outputDir, MemoryMappingTree currentMappings, MemoryMappingTree targetMappings
-	) throws IOException {
-		project.getLogger().info(":joining mappings");
+	private static MappingSet getJoinedMappings(Project project, MappingsProviderImpl mappingsProvider, File targetMappingsFile, String migrationKey) throws IOException {
+		try {
+			return JOINED_MAPPINGS_CACHE.get(migrationKey, () -> {
+				project.getLogger().info(":joining mappings");
+
+				return new TinyMappingsJoiner(
+						mappingsProvider.getMappings(), MappingsNamespace.NAMED.toString(),
+						getMappings(targetMappingsFile), MappingsNamespace.NAMED.toString(),
+						MappingsNamespace.INTERMEDIARY.toString()
+				).read();
+			});
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to join mappings", e.getCause());
+		}
+	}
+
+	// Resolve the classpath once, each batch shares it.
+	private static List<Path> getClassPath(Project project, LoomGradleExtension extension) {
+		final List<Path> classPath = new ArrayList<>(SourceRemapper.createMercuryWithClassPath(project, false).getClassPath());
+
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY));
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.NAMED));
 
-		MappingSet mappingSet = new TinyMappingsJoiner(
-				currentMappings, MappingsNamespace.NAMED.toString(),
-				targetMappings, MappingsNamespace.NAMED.toString(),
-				MappingsNamespace.INTERMEDIARY.toString()
-		).read();
+		if (extension.isForge()) {
+			classPath.addAll(extension.getMinecraftJars(MappingsNamespace.SRG));
+		}
 
-		project.getLogger().lifecycle(":remapping");
-		Mercury mercury = SourceRemapper.createMercuryWithClassPath(project, false);
+		return classPath;
+	}
 
+	private static void migrateMappings(Project project, Path inputDir, Path outputDir, List<Path> classPath, MappingSet mappingSet, String migrationKey) throws IOException {
 		final JavaVersion javaVersion = project.getExtensions().getByType(JavaPluginExtension.class).getSourceCompatibility();
-		mercury.setSourceCompatibility(javaVersion.toString());
+		final Path stateFile = LoomGradleExtension.get(project).getFiles().getProjectPersistentCache().toPath().resolve("migrate-mappings.json");
+		final MigrationState previousState = MigrationState.read(stateFile, migrationKey, inputDir, outputDir);
+		final Map<String, String> fileHashes = hashSourceFiles(inputDir);
 
-		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
-			mercury.getClassPath().add(intermediaryJar);
+		if (previousState != null) {
+			deleteRemovedOutputs(outputDir, fileHashes, previousState);
 		}
 
-		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.NAMED)) {
-			mercury.getClassPath().add(intermediaryJar);
+		final List<String> changedFiles = getChangedFiles(outputDir, fileHashes, previousState);
+
+		if (changedFiles.isEmpty()) {
+			project.getLogger().lifecycle(":all source files are already migrated");
+
+			if (previousState != null) {
+				// Forget the removed files
+				final Map<String, Set<String>> references = new HashMap<>(previousState.references());
+				references.keySet().retainAll(fileHashes.keySet());
+				new MigrationState(migrationKey, inputDir.toAbsolutePath().toString(), outputDir.toAbsolutePath().toString(), fileHashes, references).write(stateFile);
+			}
+
+			return;
 		}
 
-		if (extension.isForge()) {
-			for (Path srgJar : extension.getMinecraftJars(MappingsNamespace.SRG)) {
-				mercury.getClassPath().add(srgJar);
+		project.getLogger().lifecycle(":remapping {} of {} source files", changedFiles.size(), fileHashes.size());
+
+		final List<List<String>> batches = partition(changedFiles, changedFiles.size() == fileHashes.size());
+		final Set<String> failedFiles = ConcurrentHashMap.newKeySet();
+		final Map<String, Set<String>> references = new ConcurrentHashMap<>();
+
+		ThreadingUtils.run(batches, batch -> {
+			// Mercury mutates the mapping set while completing inherited members, so it always gets its own copy.
+			final Mercury mercury = createMercury(classPath, javaVersion.toString(), mappingSet.copy(), new ReferenceCollector(fileHashes.keySet(), references));
+
+			try {
+				if (batch.size() == fileHashes.size()) {
+					mercury.rewrite(inputDir, outputDir);
+				} else {
+					rewriteBatch(mercury, inputDir, outputDir, batch, fileHashes.keySet());
+				}
+			} catch (Exception e) {
+				project.getLogger().warn("Could not remap fully!", e);
+				failedFiles.addAll(batch);
 			}
+		});
+
+		final Map<String, String> migratedHashes = new HashMap<>(fileHashes);
+		migratedHashes.keySet().removeAll(failedFiles);
+
+		final Map<String, Set<String>> migratedReferences = new HashMap<>();
+
+		if (previousState != null) {
+			migratedReferences.putAll(previousState.references());
 		}
 
+		migratedReferences.putAll(references);
+		migratedReferences.keySet().retainAll(migratedHashes.keySet());
+
+		new MigrationState(migrationKey, inputDir.toAbsolutePath().toString(), outputDir.toAbsolutePath().toString(), migratedHashes, migratedReferences).write(stateFile);
+	}
+
+	private static Mercury createMercury(List<Path> classPath, String sourceCompatibility, MappingSet mappingSet, ReferenceCollector referenceCollector) {
+		final Mercury mercury = new Mercury();
+		mercury.setGracefulClasspathChecks(true);
+		mercury.setSourceCompatibility(sourceCompatibility);
+		mercury.getClassPath().addAll(classPath);
+		// Collect the references before the remapper renames them
+		mercury.getProcessors().add(referenceCollector);
 		mercury.getProcessors().add(MercuryRemapper.create(mappingSet));
+		return mercury;
+	}
+
+	// Only the copies of the batch files are rewritten. The rest of the input is copied to the source path, so references to it
+	// resolve without the project having to compile, and without declaring the batch files twice.
+	private static void rewriteBatch(Mercury mercury, Path inputDir, Path outputDir, List<String> batch, Set<String> allFiles) throws Exception {
+		final Path batchDir = Files.createTempDirectory("loom-migrate-mappings");
+		final Path sourcePathDir = Files.createTempDirectory("loom-migrate-mappings-sources");
 
 		try {
-			mercury.rewrite(inputDir, outputDir);
-		} catch (Exception e) {
-			project.getLogger().warn("Could not remap fully!", e);
+			final Set<String> batchFiles = new HashSet<>(batch);
+
+			for (String file : allFiles) {
+				final Path target = (batchFiles.contains(file) ? batchDir : sourcePathDir).resolve(file);
+				Files.createDirectories(target.getParent());
+				Files.copy(inputDir.resolve(file), target);
+			}
+
+			mercury.getSourcePath().add(sourcePathDir);
+			mercury.rewrite(batchDir, outputDir);
+		} finally {
+			Files.walkFileTree(batchDir, new DeletingFileVisitor());
+			Files.walkFileTree(sourcePathDir, new DeletingFileVisitor());
+		}
+	}
+
+	private static void deleteRemovedOutputs(Path outputDir, Map<String, String> fileHashes, MigrationState previousState) throws IOException {
+		for (String file : previousState.files().keySet()) {
+			if (!fileHashes.containsKey(file)) {
+				Files.deleteIfExists(outputDir.resolve(file));
+			}
 		}
+	}
+
+	private static List<List<String>> partition(List<String> files, boolean allFiles) {
+		final int batchCount = Math.min(Runtime.getRuntime().availableProcessors(), Math.min(MAX_PARALLEL_BATCHES, (files.size() + MIN_BATCH_SIZE - 1) / MIN_BATCH_SIZE));
+
+		if (batchCount <= 1 && allFiles) {
+			// Rewrite the whole directory in one go.
+			return List.of(files);
+		}
+
+		final List<List<String>> batches = new ArrayList<>();
+
+		for (int i = 0; i < Math.max(1, batchCount); i++) {
+			batches.add(new ArrayList<>());
+		}
+
+		for (int i = 0; i < files.size(); i++) {
+			batches.get(i % batches.size()).add(files.get(i));
+		}
+
+		return batches;
+	}
 
-		project.getLogger().info(":cleaning file descriptors");
-		System.gc();
+	private static Map<String, String> hashSourceFiles(Path inputDir) throws IOException {
+		final Map<String, String> hashes = new HashMap<>();
+
+		try (Stream<Path> walk = Files.walk(inputDir)) {
+			Iterator<Path> iterator = walk.iterator();
+
+			while (iterator.hasNext()) {
+				Path path = iterator.next();
+				if (!Files.isRegularFile(path) || !path.toString().endsWith(".java")) continue;
+
+				hashes.put(inputDir.relativize(path).toString().replace(File.separatorChar, '/'), Checksum.sha1Hex(path));
+			}
+		}
+
+		return hashes;
+	}
+
+	/**
+	 * A file needs migrating when its content changed, its output is missing or it references a type declared in a changed file,
+	 * as that may change how the references in it resolve. The references are the ones resolved by Mercury on the previous migration.
+	 */
+	private static List<String> getChangedFiles(Path outputDir, Map<String, String> fileHashes, @Nullable MigrationState previousState) {
+		if (previousState == null) {
+			return fileHashes.keySet().stream().sorted().toList();
+		}
+
+		final Set<String> changed = new TreeSet<>();
+
+		for (Map.Entry<String, String> entry : fileHashes.entrySet()) {
+			if (!entry.getValue().equals(previousState.files().get(entry.getKey())) || Files.notExists(outputDir.resolve(entry.getKey()))) {
+				changed.add(entry.getKey());
+			}
+		}
+
+		if (changed.isEmpty()) {
+			return List.of();
+		}
+
+		// Files that were deleted change how references to them resolve too
+		final Set<String> changedOrRemoved = new HashSet<>(changed);
+		previousState.files().keySet().stream().filter(file -> !fileHashes.containsKey(file)).forEach(changedOrRemoved::add);
+
+		for (String file : fileHashes.keySet()) {
+			if (changed.contains(file)) continue;
+
+			final Set<String> referencedFiles = previousState.references().get(file);
+
+			if (referencedFiles == null || referencedFiles.stream().anyMatch(changedOrRemoved::contains)) {
+				changed.add(file);
+			}
+		}
+
+		return new ArrayList<>(changed);
+	}
+
+	/**
+	 * Records the other input files that each source file references, using the bindings resolved by Mercury.
+	 */
+	private static final class ReferenceCollector implements SourceProcessor {
+		private final Set<String> inputFiles;
+		private final Map<String, Set<String>> references;
+
+		private ReferenceCollector(Set<String> inputFiles, Map<String, Set<String>> references) {
+			this.inputFiles = inputFiles;
+			this.references = references;
+		}
+
+		@Override
+		public void process(SourceContext context) {
+			final String file = context.getQualifiedPrimaryType().replace('.', '/') + ".java";
+			final Set<String> referencedFiles = new TreeSet<>();
+
+			context.getCompilationUnit().accept(new ASTVisitor() {
+				@Override
+				public boolean visit(SimpleName node) {
+					final IBinding binding = node.resolveBinding();
+					final ITypeBinding type;
+
+					if (binding instanceof ITypeBinding typeBinding) {
+						type = typeBinding;
+					} else if (binding instanceof IVariableBinding variable) {
+						type = variable.isField() ? variable.getDeclaringClass() : variable.getType();
+					} else if (binding instanceof IMethodBinding method) {
+						type = method.getDeclaringClass();
+					} else {
+						type = null;
+					}
+
+					final String referencedFile = type != null ? getSourceFile(type) : null;
+
+					if (referencedFile != null && !referencedFile.equals(file) && inputFiles.contains(referencedFile)) {
+						referencedFiles.add(referencedFile);
+					}
+
+					return true;
+				}
+			});
+
+			references.put(file, referencedFiles);
+		}
+
+		@Nullable
+		private static String getSourceFile(ITypeBinding type) {
+			ITypeBinding topLevel = type.getErasure();
+
+			while (topLevel.isArray()) {
+				topLevel = topLevel.getElementType().getErasure();
+			}
+
+			while (topLevel.getDeclaringClass() != null) {
+				topLevel = topLevel.getDeclaringClass().getErasure();
+			}
+
+			if (topLevel.isPrimitive() || topLevel.getPackage() == null || topLevel.getName().isEmpty()) {
+				return null;
+			}
+
+			final IPackageBinding packageBinding = topLevel.getPackage();
+			final String packagePath = packageBinding.isUnnamed() ? "" : packageBinding.getName().replace('.', '/') + "/";
+			return packagePath + topLevel.getName() + ".java";
+		}
+	}
+
+	private record MigrationState(String key, String inputDir, String outputDir, Map<String, String> files, Map<String, Set<String>> references) {
+		@Nullable
+		static MigrationState read(Path path, String key, Path inputDir, Path outputDir) throws IOException {
+			if (Files.notExists(path)) {
+				return null;
+			}
+
+			final MigrationState state;
+
+			try (Reader reader = Files.newBufferedReader(path)) {
+				state = LoomGradlePlugin.OBJECT_MAPPER.readValue(reader, MigrationState.class);
+			} catch (JsonProcessingException e) {
+				// Corrupt state, start over.
+				return null;
+			}
+
+			// Only reuse the previous migration if it was to the same target, with the same input and output.
+			if (state == null || state.files() == null || state.references() == null
+					|| !key.equals(state.key())
+					|| !inputDir.toAbsolutePath().toString().equals(state.inputDir())
+					|| !outputDir.toAbsolutePath().toString().equals(state.outputDir())) {
+				return null;
+			}
+
+			return state;
+		}
+
+		void write(Path path) throws IOException {
+			Files.createDirectories(path.getParent());
+			Files.writeString(path, LoomGradlePlugin.OBJECT_MAPPER.writeValueAsString(this));
+		}
 	}
 }
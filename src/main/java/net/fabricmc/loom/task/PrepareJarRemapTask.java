@@ -24,11 +24,17 @@
 
 package net.fabricmc.loom.task;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import javax.inject.Inject;
 
 import dev.architectury.tinyremapper.TinyRemapper;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.InputFile;
@@ -38,11 +44,12 @@ import org.gradle.workers.WorkParameters;
 import org.gradle.workers.WorkQueue;
 import org.gradle.workers.WorkerExecutor;
 
+import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.task.service.TinyRemapperService;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
 
 /**
- * The prepare remap task runs before all other jar remap tasks, should be used to setup tiny remapper.
+ * The prepare remap task runs before all the jar remap tasks that share its tiny remapper, should be used to setup tiny remapper.
  */
 public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 	private final RemapJarTask remapJarTask;
@@ -58,34 +65,50 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 		getOutputs().upToDateWhen((o) -> false);
 
 		getProject().getGradle().allprojects(project -> {
-			project.getTasks().configureEach(task -> {
-				if (task instanceof PrepareJarRemapTask otherTask) {
-					if (otherTask == this) return;
-
-					// Ensure that all other prepare tasks inputs have completed
-					dependsOn(otherTask.getInputs());
-					mustRunAfter(otherTask.getInputs());
-				}
+			project.getTasks().withType(PrepareJarRemapTask.class).configureEach(otherTask -> {
+				if (otherTask == this) return;
+
+				// Ensure that the inputs of the other prepare tasks reading into the same remapper have completed
+				final Callable<Object> sharedInputs = () -> sharesTinyRemapper(remapJarTask, otherTask.remapJarTask) ? otherTask.getInputs().getFiles() : List.of();
+				dependsOn(sharedInputs);
+				mustRunAfter(sharedInputs);
 			});
 		});
 	}
 
+	/**
+	 * Checks if the two tasks read their inputs into the same shared tiny remapper.
+	 * Only those have to wait for each other, other remap tasks can be scheduled independently.
+	 */
+	static boolean sharesTinyRemapper(RemapJarTask a, RemapJarTask b) {
+		return TinyRemapperService.getId(a).equals(TinyRemapperService.getId(b));
+	}
+
+	RemapJarTask remapJarTask() {
+		return remapJarTask;
+	}
+
 	@Inject
 	protected abstract WorkerExecutor getWorkerExecutor();
 
 	@TaskAction
 	public void run() {
 		final WorkQueue workQueue = getWorkerExecutor().noIsolation();
+		final TinyRemapperService tinyRemapperService = remapJarTask.getTinyRemapperService();
 
 		workQueue.submit(ReadInputsAction.class, params -> {
-			params.getTinyRemapperBuildServiceUuid().set(UnsafeWorkQueueHelper.create(getProject(), remapJarTask.getTinyRemapperService()));
+			params.getTinyRemapperBuildServiceUuid().set(UnsafeWorkQueueHelper.create(getProject(), tinyRemapperService));
 			params.getInputFile().set(getInputFile());
+			params.getClasspath().from(remapJarTask.getClasspath());
+			params.getCacheDirectory().set(LoomGradleExtension.get(getProject()).getFiles().getProjectBuildCache().toPath().resolve("remap").resolve(remapJarTask.getName()).toFile());
 		});
 	}
 
 	public interface ReadInputsParams extends WorkParameters {
 		Property<String> getTinyRemapperBuildServiceUuid();
 		RegularFileProperty getInputFile();
+		ConfigurableFileCollection getClasspath();
+		DirectoryProperty getCacheDirectory();
 	}
 
 	public abstract static class ReadInputsAction implements WorkAction<ReadInputsParams> {
@@ -99,8 +122,21 @@ public abstract class PrepareJarRemapTask extends AbstractLoomTask {
 		public void execute() {
 			final TinyRemapper tinyRemapper = tinyRemapperService.getTinyRemapperForInputs();
 			final Path inputFile = getParameters().getInputFile().getAsFile().get().toPath();
+			final Path cacheDirectory = getParameters().getCacheDirectory().getAsFile().get().toPath();
+			final IncrementalRemapCache remapCache;
+
+			try {
+				remapCache = IncrementalRemapCache.prepare(cacheDirectory, inputFile, tinyRemapperService.getId(), tinyRemapperService.getMappingFiles(), getParameters().getClasspath().getFiles());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to prepare the remap cache for " + inputFile, e);
+			}
+
+			tinyRemapperService.setRemapCache(inputFile, remapCache);
+			tinyRemapper.readInputsAsync(tinyRemapperService.getOrCreateTag(inputFile), remapCache.getInput());
 
-			tinyRemapper.readInputsAsync(tinyRemapperService.getOrCreateTag(inputFile), inputFile);
+			if (remapCache.getUnchangedClasspath() != null) {
+				tinyRemapper.readClassPathAsync(remapCache.getUnchangedClasspath());
+			}
 		}
 	}
 }
@@ -28,6 +28,7 @@ import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
@@ -41,11 +42,13 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.function.Supplier;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
@@ -189,11 +192,9 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 		mustRunAfter(prepareJarTask);
 
 		getProject().getGradle().allprojects(project -> {
-			project.getTasks().configureEach(task -> {
-				if (task instanceof PrepareJarRemapTask otherTask) {
-					// Ensure that all remap jars run after all prepare tasks
-					mustRunAfter(otherTask);
-				}
+			project.getTasks().withType(PrepareJarRemapTask.class).configureEach(otherTask -> {
+				// Ensure that the remap jar runs after all the prepare tasks reading into the same remapper
+				mustRunAfter((Callable<Object>) () -> PrepareJarRemapTask.sharesTinyRemapper(this, otherTask.remapJarTask()) ? otherTask : List.of());
 			});
 		});
 	}
@@ -385,7 +386,6 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 					remapAccessWidener();
 				}
 
-				addRefmaps();
 				addNestedJars();
 				convertAwToAt();
 
@@ -408,9 +408,21 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 		}
 
 		private void remap() throws IOException {
+			final IncrementalRemapCache remapCache = tinyRemapperService.getRemapCache(inputFile);
+
 			try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputFile).build()) {
-				outputConsumer.addNonClassFiles(inputFile);
-				tinyRemapper.apply(outputConsumer, tinyRemapperService.getOrCreateTag(inputFile));
+				// The refmaps are added to the mixin configs as they are copied to the output, rather than rewriting the jar afterwards
+				outputConsumer.addNonClassFiles(inputFile, tinyRemapper, getRefmapInjectors());
+
+				if (remapCache != null) {
+					remapCache.apply(tinyRemapper, tinyRemapperService.getOrCreateTag(inputFile), outputConsumer);
+
+					if (remapCache.isIncremental()) {
+						LOGGER.info("Remapped {} changed classes of {}", remapCache.getChangedClassCount(), inputFile);
+					}
+				} else {
+					tinyRemapper.apply(outputConsumer, tinyRemapperService.getOrCreateTag(inputFile));
+				}
 			}
 		}
 
@@ -540,20 +552,49 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			JarNester.nestJars(jars, forgeNestedJars.getOrElse(List.of()), outputFile.toFile(), getParameters().getPlatform().get(), LOGGER);
 		}
 
-		private void addRefmaps() throws IOException {
+		private List<OutputConsumerPath.ResourceRemapper> getRefmapInjectors() {
 			if (getParameters().getUseMixinExtension().get()) {
-				return;
+				return List.of();
 			}
 
+			final Map<String, String> refmaps = new HashMap<>();
+
 			for (RemapParams.RefmapData refmapData : getParameters().getMixinData().get()) {
-				int transformed = ZipUtils.transformJson(JsonObject.class, outputFile, refmapData.mixinConfigs().stream().collect(Collectors.toMap(s -> s, s -> json -> {
-					if (!json.has("refmap")) {
-						json.addProperty("refmap", refmapData.refmapName());
-					}
+				for (String mixinConfig : refmapData.mixinConfigs()) {
+					refmaps.putIfAbsent(mixinConfig, refmapData.refmapName());
+				}
+			}
 
-					return json;
-				})));
+			return refmaps.isEmpty() ? List.of() : List.of(new RefmapInjector(refmaps));
+		}
+	}
+
+	/**
+	 * Sets the refmap of the mixin configs that don't have one.
+	 *
+	 * @param refmaps the refmap name of each mixin config path
+	 */
+	private record RefmapInjector(Map<String, String> refmaps) implements OutputConsumerPath.ResourceRemapper {
+		@Override
+		public boolean canTransform(TinyRemapper remapper, Path relativePath) {
+			return refmaps.containsKey(relativePath.toString());
+		}
+
+		@Override
+		public void transform(Path destinationDirectory, Path relativePath, InputStream input, TinyRemapper remapper) throws IOException {
+			final JsonObject json = LoomGradlePlugin.GSON.fromJson(new InputStreamReader(input, StandardCharsets.UTF_8), JsonObject.class);
+
+			if (!json.has("refmap")) {
+				json.addProperty("refmap", refmaps.get(relativePath.toString()));
+			}
+
+			final Path output = destinationDirectory.resolve(relativePath.toString());
+
+			if (output.getParent() != null) {
+				Files.createDirectories(output.getParent());
 			}
+
+			Files.writeString(output, LoomGradlePlugin.GSON.toJson(json));
 		}
 	}
 
@@ -30,11 +30,12 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.inject.Inject;
 
-import dev.architectury.tinyremapper.TinyRemapper;
-import dev.architectury.tinyremapper.api.TrEnvironment;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.RegularFileProperty;
@@ -48,6 +49,7 @@ import net.fabricmc.accesswidener.AccessWidenerReader;
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.ClassEnvironment;
 
 public abstract class ValidateAccessWidenerTask extends DefaultTask {
 	@SkipWhenEmpty
@@ -70,49 +72,53 @@ public abstract class ValidateAccessWidenerTask extends DefaultTask {
 
 	@TaskAction
 	public void run() {
-		final TinyRemapper tinyRemapper = TinyRemapper.newRemapper().build();
+		final List<Path> targetJars = getTargetJars().getFiles().stream().map(File::toPath).toList();
+		final ClassEnvironment environment = ClassEnvironment.read(targetJars);
+		final File accessWidenerFile = getAccessWidener().get().getAsFile();
 
-		for (File file : getTargetJars().getFiles()) {
-			tinyRemapper.readClassPath(file.toPath());
-		}
-
-		final AccessWidenerValidator validator = new AccessWidenerValidator(tinyRemapper.getEnvironment());
+		final AccessWidenerValidator validator = new AccessWidenerValidator(environment, new ArrayList<>());
 		final AccessWidenerReader accessWidenerReader = new AccessWidenerReader(validator);
 
-		try (BufferedReader reader = Files.newBufferedReader(getAccessWidener().get().getAsFile().toPath(), StandardCharsets.UTF_8)) {
+		try (BufferedReader reader = Files.newBufferedReader(accessWidenerFile.toPath(), StandardCharsets.UTF_8)) {
 			accessWidenerReader.read(reader, "named");
 		} catch (AccessWidenerFormatException e) {
-			getProject().getLogger().error("Failed to validate access-widener file {} on line {}: {}", getAccessWidener().get().getAsFile().getName(), e.getLineNumber(), e.getMessage());
+			getLogger().error("Failed to validate access-widener file {} on line {}: {}", accessWidenerFile.getName(), e.getLineNumber(), e.getMessage());
 			throw e;
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read access widener", e);
-		} finally {
-			tinyRemapper.finish();
+		}
+
+		if (!validator.errors().isEmpty()) {
+			for (String error : validator.errors()) {
+				getLogger().error("Invalid access-widener entry in {}: {}", accessWidenerFile.getName(), error);
+			}
+
+			throw new RuntimeException("Found %d invalid entries in access-widener file %s".formatted(validator.errors().size(), accessWidenerFile.getName()));
 		}
 	}
 
 	/**
-	 * Validates that all entries in an access-widner file relate to a class/method/field in the mc jar.
+	 * Validates that all entries in an access-widner file relate to a class/method/field in the mc jar, collecting every invalid entry.
 	 */
-	private record AccessWidenerValidator(TrEnvironment environment) implements AccessWidenerVisitor {
+	private record AccessWidenerValidator(ClassEnvironment environment, List<String> errors) implements AccessWidenerVisitor {
 		@Override
 		public void visitClass(String name, AccessWidenerReader.AccessType access, boolean transitive) {
 			if (environment().getClass(name) == null) {
-				throw new RuntimeException("Could not find class (%s)".formatted(name));
+				errors.add("Could not find class (%s)".formatted(name));
 			}
 		}
 
 		@Override
 		public void visitMethod(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
-			if (environment().getMethod(owner, name, descriptor) == null) {
-				throw new RuntimeException("Could not find method (%s%s) in class (%s)".formatted(name, descriptor, owner));
+			if (!environment().hasMethod(owner, name, descriptor)) {
+				errors.add("Could not find method (%s%s) in class (%s)".formatted(name, descriptor, owner));
 			}
 		}
 
 		@Override
 		public void visitField(String owner, String name, String descriptor, AccessWidenerReader.AccessType access, boolean transitive) {
-			if (environment().getField(owner, name, descriptor) == null) {
-				throw new RuntimeException("Could not find field (%s%s) in class (%s)".formatted(name, descriptor, owner));
+			if (!environment().hasField(owner, name, descriptor)) {
+				errors.add("Could not find field (%s%s) in class (%s)".formatted(name, descriptor, owner));
 			}
 		}
 	}
@@ -59,6 +59,7 @@ import org.objectweb.asm.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.util.ConstantPoolScanner;
 import net.fabricmc.loom.util.Constants;
 
 /**
@@ -72,6 +73,9 @@ import net.fabricmc.loom.util.Constants;
  * }</pre>
  */
 public abstract class ValidateMixinNameTask extends SourceTask {
+	private static final String MIXIN_DESCRIPTOR = "Lorg/spongepowered/asm/mixin/Mixin;";
+	private static final ConstantPoolScanner MIXIN_SCANNER = ConstantPoolScanner.exact(MIXIN_DESCRIPTOR);
+
 	@Input
 	abstract Property<Boolean> getSoftFailures();
 
@@ -166,7 +170,14 @@ public abstract class ValidateMixinNameTask extends SourceTask {
 	@Nullable
 	@VisibleForTesting
 	public static Mixin getMixin(InputStream is) throws IOException {
-		final ClassReader reader = new ClassReader(is);
+		final byte[] bytes = is.readAllBytes();
+
+		if (!MIXIN_SCANNER.matches(bytes)) {
+			// Not a mixin, no need to visit the class.
+			return null;
+		}
+
+		final ClassReader reader = new ClassReader(bytes);
 
 		var classVisitor = new MixinTargetClassVisitor();
 		reader.accept(classVisitor, ClassReader.SKIP_CODE);
@@ -201,7 +212,7 @@ public abstract class ValidateMixinNameTask extends SourceTask {
 		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
 			AnnotationVisitor av = super.visitAnnotation(descriptor, visible);
 
-			if ("Lorg/spongepowered/asm/mixin/Mixin;".equals(descriptor)) {
+			if (MIXIN_DESCRIPTOR.equals(descriptor)) {
 				av = new MixinAnnotationVisitor(av);
 			}
 
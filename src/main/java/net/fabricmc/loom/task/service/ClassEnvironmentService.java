@@ -0,0 +1,140 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.task.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.gradle.api.Project;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
+import net.fabricmc.loom.util.ClassEnvironment;
+import net.fabricmc.loom.util.MappingTreeRemapper;
+import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.service.SharedService;
+import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Shares {@link ClassEnvironment}s and {@link MappingTreeRemapper}s for the duration of a build,
+ * so the Minecraft jars and its libraries are only read once for every jar processor and task that needs to look up classes or members.
+ *
+ * <p>A single instance is shared by every project in the build. Environments are keyed on the sorted jars they were read from,
+ * and remappers on the mappings file and namespaces, so projects using the same Minecraft version and mappings share them.
+ */
+public final class ClassEnvironmentService implements SharedService {
+	private final Map<String, ClassEnvironment> environments = new ConcurrentHashMap<>();
+	private final Map<String, MappingTreeRemapper> remappers = new ConcurrentHashMap<>();
+
+	private ClassEnvironmentService() {
+	}
+
+	public static ClassEnvironmentService get(Project project) {
+		return SharedServiceManager.get(project).getOrCreateService("ClassEnvironmentService", ClassEnvironmentService::new);
+	}
+
+	/**
+	 * @return the environment of the Minecraft jars in the given namespace and the Minecraft libraries
+	 */
+	public ClassEnvironment getMinecraftEnvironment(Project project, MappingsNamespace namespace) {
+		final List<Path> jars = getMinecraftJars(project, namespace);
+		return environments.computeIfAbsent(namespace + ":" + getKey(jars), key -> ClassEnvironment.read(jars));
+	}
+
+	public ClassEnvironment getEnvironment(List<Path> jars) {
+		return environments.computeIfAbsent(getKey(jars), key -> ClassEnvironment.read(jars));
+	}
+
+	/**
+	 * @return a remapper that only maps class names and the members declared on the requested owner
+	 */
+	public MappingTreeRemapper getRemapper(Project project, String from, String to) {
+		final boolean srg = usesSrg(project, from, to);
+		final String key = from + "->" + to + ":" + getKey(List.of(getMappingsFile(project, srg)));
+		return remappers.computeIfAbsent(key, k -> new MappingTreeRemapper(getMappings(project, srg), from, to, null));
+	}
+
+	/**
+	 * @return a remapper that also resolves inherited members using the Minecraft environment in the source namespace
+	 */
+	public MappingTreeRemapper getHierarchyRemapper(Project project, MappingsNamespace from, MappingsNamespace to) {
+		final boolean srg = usesSrg(project, from.toString(), to.toString());
+		final String key = from + "->" + to + ":" + getKey(List.of(getMappingsFile(project, srg))) + "hierarchy:" + getKey(getMinecraftJars(project, from));
+		return remappers.computeIfAbsent(key, k -> new MappingTreeRemapper(getMappings(project, srg), from.toString(), to.toString(), getMinecraftEnvironment(project, from)));
+	}
+
+	private static List<Path> getMinecraftJars(Project project, MappingsNamespace namespace) {
+		final List<Path> jars = new ArrayList<>(LoomGradleExtension.get(project).getMinecraftJars(namespace));
+		jars.addAll(Arrays.asList(TinyRemapperHelper.getMinecraftDependencies(project)));
+		return jars;
+	}
+
+	private static boolean usesSrg(Project project, String from, String to) {
+		return (from.equals("srg") || to.equals("srg")) && LoomGradleExtension.get(project).isForge();
+	}
+
+	private static Path getMappingsFile(Project project, boolean srg) {
+		final MappingsProviderImpl mappingsProvider = LoomGradleExtension.get(project).getMappingsProvider();
+		return srg ? mappingsProvider.tinyMappingsWithSrg : mappingsProvider.tinyMappings;
+	}
+
+	private static MemoryMappingTree getMappings(Project project, boolean srg) {
+		final MappingsProviderImpl mappingsProvider = LoomGradleExtension.get(project).getMappingsProvider();
+
+		try {
+			return srg ? mappingsProvider.getMappingsWithSrg() : mappingsProvider.getMappings();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read mappings", e);
+		}
+	}
+
+	private static String getKey(List<Path> jars) {
+		final List<Path> sorted = jars.stream().map(Path::toAbsolutePath).sorted().toList();
+		final StringBuilder key = new StringBuilder();
+
+		for (Path jar : sorted) {
+			key.append(jar).append('@');
+
+			try {
+				key.append(Files.size(jar)).append(':').append(Files.getLastModifiedTime(jar).toMillis());
+			} catch (IOException e) {
+				key.append("missing");
+			}
+
+			key.append(';');
+		}
+
+		return key.toString();
+	}
+}
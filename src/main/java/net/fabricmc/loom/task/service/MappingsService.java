@@ -34,6 +34,7 @@ import org.gradle.api.Project;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
 import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.service.DaemonCache;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 import net.fabricmc.mappingio.MappingReader;
@@ -49,7 +50,7 @@ public final class MappingsService implements SharedService {
 	public static synchronized MappingsService create(SharedServiceManager sharedServiceManager, String name, Path mappingsFile, String from, String to, boolean remapLocals) {
 		final Options options = new Options(mappingsFile, from, to, remapLocals);
 		final String id = name + options.hashCode();
-		return sharedServiceManager.getOrCreateService(id, () -> new MappingsService(options));
+		return sharedServiceManager.getOrCreateService(id, () -> new MappingsService(options, sharedServiceManager.getDaemonCache()));
 	}
 
 	public static MappingsService createDefault(Project project, String from, String to) {
@@ -60,9 +61,11 @@ public final class MappingsService implements SharedService {
 	}
 
 	private final Options options;
+	private final DaemonCache daemonCache;
 
-	public MappingsService(Options options) {
+	public MappingsService(Options options, DaemonCache daemonCache) {
 		this.options = options;
+		this.daemonCache = daemonCache;
 	}
 
 	private IMappingProvider mappingProvider = null;
@@ -70,16 +73,18 @@ public final class MappingsService implements SharedService {
 
 	public synchronized IMappingProvider getMappingsProvider() {
 		if (mappingProvider == null) {
-			try {
-				mappingProvider = TinyRemapperHelper.create(
-						options.mappingsFile(),
-						options.from(),
-						options.to(),
-						options.remapLocals()
-				);
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to read mappings from: " + options.mappingsFile(), e);
-			}
+			mappingProvider = daemonCache.get("MappingsService:provider:" + options, options.mappingsFile(), () -> {
+				try {
+					return TinyRemapperHelper.create(
+							options.mappingsFile(),
+							options.from(),
+							options.to(),
+							options.remapLocals()
+					);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to read mappings from: " + options.mappingsFile(), e);
+				}
+			});
 		}
 
 		return mappingProvider;
@@ -87,18 +92,26 @@ public final class MappingsService implements SharedService {
 
 	public synchronized MemoryMappingTree getMemoryMappingTree() {
 		if (memoryMappingTree == null) {
-			memoryMappingTree = new MemoryMappingTree();
+			memoryMappingTree = daemonCache.getMappingTree("MappingsService:tree:" + options.mappingsFile(), options.mappingsFile(), () -> {
+				final MemoryMappingTree tree = new MemoryMappingTree();
 
-			try {
-				MappingReader.read(options.mappingsFile(), memoryMappingTree);
-			} catch (IOException e) {
-				throw new UncheckedIOException("Failed to read mappings from: " + options.mappingsFile(), e);
-			}
+				try {
+					MappingReader.read(options.mappingsFile(), tree);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to read mappings from: " + options.mappingsFile(), e);
+				}
+
+				return tree;
+			});
 		}
 
 		return memoryMappingTree;
 	}
 
+	public Path getMappingsFile() {
+		return options.mappingsFile();
+	}
+
 	public String getFromNamespace() {
 		return options.from();
 	}
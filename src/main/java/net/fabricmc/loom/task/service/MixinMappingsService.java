@@ -25,7 +25,14 @@
 package net.fabricmc.loom.task.service;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import dev.architectury.tinyremapper.IMappingProvider;
 import org.gradle.api.Project;
@@ -34,39 +41,150 @@ import org.gradle.api.tasks.SourceSet;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.build.IntermediaryNamespaces;
 import net.fabricmc.loom.configuration.providers.mappings.MappingsProviderImpl;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.TinyRemapperHelper;
+import net.fabricmc.loom.util.service.DaemonCache;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
 
 public final class MixinMappingsService implements SharedService {
-	private final SharedServiceManager sharedServiceManager;
+	private final DaemonCache daemonCache;
 	private final HashSet<File> mixinMappings = new HashSet<>();
+	// The parsed mappings of each source set, shared by every TinyRemapper in this build
+	private final Map<String, MixinMappings> parsedMappings = new HashMap<>();
 
-	private MixinMappingsService(SharedServiceManager sharedServiceManager) {
-		this.sharedServiceManager = sharedServiceManager;
+	private MixinMappingsService(DaemonCache daemonCache) {
+		this.daemonCache = daemonCache;
 	}
 
 	public static File getMixinMappingFile(Project project, SourceSet sourceSet) {
 		final LoomGradleExtension extension = LoomGradleExtension.get(project);
 		File mixinMapping = new File(extension.getFiles().getProjectBuildCache(), "mixin-map-" + extension.getMappingsProvider().mappingsIdentifier() + "." + sourceSet.getName() + ".tiny");
 
-		getService(SharedServiceManager.get(project), extension.getMappingsProvider()).mixinMappings.add(mixinMapping);
+		final MixinMappingsService service = getService(SharedServiceManager.get(project), extension.getMappingsProvider());
+
+		synchronized (service) {
+			service.mixinMappings.add(mixinMapping);
+		}
 
 		return mixinMapping;
 	}
 
 	static synchronized MixinMappingsService getService(SharedServiceManager sharedServiceManager, MappingsProviderImpl mappingsProvider) {
-		return sharedServiceManager.getOrCreateService("MixinMappings-" + mappingsProvider.mappingsIdentifier(), () -> new MixinMappingsService(sharedServiceManager));
+		return sharedServiceManager.getOrCreateService("MixinMappings-" + mappingsProvider.mappingsIdentifier(), () -> new MixinMappingsService(sharedServiceManager.getDaemonCache()));
+	}
+
+	synchronized List<File> getMappingFiles() {
+		return new ArrayList<>(mixinMappings);
 	}
 
 	IMappingProvider getMappingProvider(Project project, String from, String to) {
+		final String newTo = IntermediaryNamespaces.replaceMixinIntermediaryNamespace(project, to);
+
 		return out -> {
-			for (File mixinMapping : mixinMappings) {
+			for (File mixinMapping : getMappingFiles()) {
 				if (!mixinMapping.exists()) continue;
 
-				String newTo = IntermediaryNamespaces.replaceMixinIntermediaryNamespace(project, to);
-				MappingsService service = MappingsService.create(sharedServiceManager, mixinMapping.getAbsolutePath(), mixinMapping.toPath(), from, newTo, false);
-				service.getMappingsProvider().load(out);
+				getMappings(mixinMapping.toPath(), from, newTo).load(out);
 			}
 		};
 	}
+
+	/**
+	 * Gets the mappings of a source set, only parsing them again when the annotation processor output has changed.
+	 * With the daemon cache enabled, the unchanged source sets are also reused by the next build.
+	 */
+	private MixinMappings getMappings(Path file, String from, String to) {
+		final String key = file.toAbsolutePath() + ":" + from + ":" + to;
+		final String hash;
+
+		try {
+			hash = Checksum.sha1Hex(file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to hash " + file, e);
+		}
+
+		synchronized (parsedMappings) {
+			final MixinMappings mappings = parsedMappings.get(key);
+
+			if (mappings != null && mappings.hash().equals(hash)) {
+				return mappings;
+			}
+		}
+
+		final MixinMappings mappings = daemonCache.get("MixinMappings:" + key, hash, MixinMappings::size, () -> MixinMappings.read(file, hash, from, to));
+
+		synchronized (parsedMappings) {
+			parsedMappings.put(key, mappings);
+		}
+
+		return mappings;
+	}
+
+	/**
+	 * A compact form of the mixin mappings of a source set, which are only ever replayed into a TinyRemapper.
+	 */
+	private record MixinMappings(String hash, String[] classes, IMappingProvider.Member[] fields, String[] fieldNames, IMappingProvider.Member[] methods, String[] methodNames) implements IMappingProvider {
+		static MixinMappings read(Path file, String hash, String from, String to) {
+			final List<String> classes = new ArrayList<>();
+			final List<Member> fields = new ArrayList<>();
+			final List<String> fieldNames = new ArrayList<>();
+			final List<Member> methods = new ArrayList<>();
+			final List<String> methodNames = new ArrayList<>();
+
+			try {
+				TinyRemapperHelper.create(file, from, to, false).load(new MappingAcceptor() {
+					@Override
+					public void acceptClass(String srcName, String dstName) {
+						classes.add(srcName);
+						classes.add(dstName);
+					}
+
+					@Override
+					public void acceptMethod(Member method, String dstName) {
+						methods.add(method);
+						methodNames.add(dstName);
+					}
+
+					@Override
+					public void acceptMethodArg(Member method, int lvIndex, String dstName) {
+					}
+
+					@Override
+					public void acceptMethodVar(Member method, int lvIndex, int startOpIdx, int asmIndex, String dstName) {
+					}
+
+					@Override
+					public void acceptField(Member field, String dstName) {
+						fields.add(field);
+						fieldNames.add(dstName);
+					}
+				});
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read mixin mappings from: " + file, e);
+			}
+
+			return new MixinMappings(hash, classes.toArray(String[]::new), fields.toArray(Member[]::new), fieldNames.toArray(String[]::new), methods.toArray(Member[]::new), methodNames.toArray(String[]::new));
+		}
+
+		// A rough estimate of the memory used, for the daemon cache
+		long size() {
+			return (classes.length + fields.length * 2L + methods.length * 2L) * 64;
+		}
+
+		@Override
+		public void load(MappingAcceptor out) {
+			for (int i = 0; i < classes.length; i += 2) {
+				out.acceptClass(classes[i], classes[i + 1]);
+			}
+
+			for (int i = 0; i < fields.length; i++) {
+				out.acceptField(fields[i], fieldNames[i]);
+			}
+
+			for (int i = 0; i < methods.length; i++) {
+				out.acceptMethod(methods[i], methodNames[i]);
+			}
+		}
+	}
 }
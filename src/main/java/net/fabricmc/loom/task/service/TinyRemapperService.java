@@ -44,8 +44,10 @@ import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.task.AbstractRemapJarTask;
+import net.fabricmc.loom.task.IncrementalRemapCache;
 import net.fabricmc.loom.util.kotlin.KotlinClasspath;
 import net.fabricmc.loom.util.kotlin.KotlinClasspathService;
+import net.fabricmc.loom.util.kotlin.KotlinMetadataScanningExtension;
 import net.fabricmc.loom.util.kotlin.KotlinRemapperClassloader;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
@@ -59,10 +61,39 @@ public class TinyRemapperService implements SharedService {
 		final SharedServiceManager sharedServiceManager = SharedServiceManager.get(project);
 		final boolean legacyMixin = extension.getMixin().getUseLegacyMixinAp().get();
 		final @Nullable KotlinClasspathService kotlinClasspathService = KotlinClasspathService.getOrCreateIfRequired(project);
+		final String id = getId(remapJarTask);
 
-		// Generates an id that is used to share the remapper across projects. This tasks in the remap jar task name to handle custom remap jar tasks separately.
+		TinyRemapperService service = sharedServiceManager.getOrCreateService(id, () -> {
+			List<IMappingProvider> mappings = new ArrayList<>();
+			MappingsService mappingsService = MappingsService.createDefault(project, from, to);
+			mappings.add(mappingsService.getMappingsProvider());
+			MixinMappingsService mixinMappingsService = null;
+
+			if (legacyMixin) {
+				mixinMappingsService = MixinMappingsService.getService(SharedServiceManager.get(project), extension.getMappingsProvider());
+				mappings.add(mixinMappingsService.getMappingProvider(project, from, to));
+			}
+
+			return new TinyRemapperService(id, mappings, !legacyMixin, kotlinClasspathService, mappingsService.getMappingsFile(), mixinMappingsService);
+		});
+
+		service.readClasspath(remapJarTask.getClasspath().getFiles().stream().map(File::toPath).filter(Files::exists).toList());
+
+		return service;
+	}
+
+	/**
+	 * Generates an id that is used to share the remapper across projects. Remap jar tasks with the same id read their inputs into
+	 * the same tiny remapper.
+	 */
+	public static String getId(AbstractRemapJarTask remapJarTask) {
+		final Project project = remapJarTask.getProject();
+		final LoomGradleExtension extension = LoomGradleExtension.get(project);
+		final @Nullable KotlinClasspathService kotlinClasspathService = KotlinClasspathService.getOrCreateIfRequired(project);
+
+		// This takes in the remap jar task name to handle custom remap jar tasks separately.
 		final var joiner = new StringJoiner(":");
-		joiner.add(extension.getMappingsProvider().getBuildServiceName("remapJarService", from, to));
+		joiner.add(extension.getMappingsProvider().getBuildServiceName("remapJarService", remapJarTask.getSourceNamespace().get(), remapJarTask.getTargetNamespace().get()));
 		joiner.add(remapJarTask.getName());
 
 		if (kotlinClasspathService != null) {
@@ -77,33 +108,26 @@ public class TinyRemapperService implements SharedService {
 			joiner.add("forge");
 		}
 
-		final String id = joiner.toString();
-
-		TinyRemapperService service = sharedServiceManager.getOrCreateService(id, () -> {
-			List<IMappingProvider> mappings = new ArrayList<>();
-			mappings.add(MappingsService.createDefault(project, from, to).getMappingsProvider());
-
-			if (legacyMixin) {
-				mappings.add(MixinMappingsService.getService(SharedServiceManager.get(project), extension.getMappingsProvider()).getMappingProvider(project, from, to));
-			}
-
-			return new TinyRemapperService(mappings, !legacyMixin, kotlinClasspathService);
-		});
-
-		service.readClasspath(remapJarTask.getClasspath().getFiles().stream().map(File::toPath).filter(Files::exists).toList());
-
-		return service;
+		return joiner.toString();
 	}
 
+	private final String id;
 	private TinyRemapper tinyRemapper;
 	@Nullable
 	private KotlinRemapperClassloader kotlinRemapperClassloader;
+	private final Path mappingsFile;
+	@Nullable
+	private final MixinMappingsService mixinMappingsService;
 	private final Map<String, InputTag> inputTagMap = new HashMap<>();
+	private final Map<String, IncrementalRemapCache> remapCaches = new HashMap<>();
 	private final HashSet<Path> classpath = new HashSet<>();
 	// Set to true once remapping has started, once set no inputs can be read.
 	private boolean isRemapping = false;
 
-	public TinyRemapperService(List<IMappingProvider> mappings, boolean useMixinExtension, @Nullable KotlinClasspath kotlinClasspath) {
+	public TinyRemapperService(String id, List<IMappingProvider> mappings, boolean useMixinExtension, @Nullable KotlinClasspath kotlinClasspath, Path mappingsFile, @Nullable MixinMappingsService mixinMappingsService) {
+		this.id = id;
+		this.mappingsFile = mappingsFile;
+		this.mixinMappingsService = mixinMappingsService;
 		TinyRemapper.Builder builder = TinyRemapper.newRemapper();
 
 		for (IMappingProvider provider : mappings) {
@@ -116,7 +140,7 @@ public class TinyRemapperService implements SharedService {
 
 		if (kotlinClasspath != null) {
 			kotlinRemapperClassloader = KotlinRemapperClassloader.create(kotlinClasspath);
-			builder.extension(kotlinRemapperClassloader.getTinyRemapperExtension());
+			builder.extension(new KotlinMetadataScanningExtension(kotlinRemapperClassloader.getTinyRemapperExtension()));
 		}
 
 		tinyRemapper = builder.build();
@@ -133,6 +157,39 @@ public class TinyRemapperService implements SharedService {
 		return tag;
 	}
 
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the mapping files that the remapper reads, including the mixin mappings generated so far
+	 */
+	public List<Path> getMappingFiles() {
+		List<Path> files = new ArrayList<>();
+		files.add(mappingsFile);
+
+		if (mixinMappingsService != null) {
+			mixinMappingsService.getMappingFiles().stream()
+					.filter(File::exists)
+					.map(File::toPath)
+					.forEach(files::add);
+		}
+
+		return files;
+	}
+
+	public synchronized void setRemapCache(Path file, IncrementalRemapCache remapCache) {
+		remapCaches.put(file.toAbsolutePath().toString(), remapCache);
+	}
+
+	/**
+	 * @return the incremental cache set up when the inputs of the file were read, or {@code null} to remap every class
+	 */
+	@Nullable
+	public synchronized IncrementalRemapCache getRemapCache(Path file) {
+		return remapCaches.get(file.toAbsolutePath().toString());
+	}
+
 	public TinyRemapper getTinyRemapperForRemapping() {
 		synchronized (this) {
 			isRemapping = true;
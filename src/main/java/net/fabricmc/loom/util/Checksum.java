@@ -33,7 +33,6 @@ import java.nio.file.Path;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
-import com.google.common.io.Files;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 
@@ -46,8 +45,7 @@ public class Checksum {
 		}
 
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha1());
-			String hashString = hash.toString();
+			String hashString = FileFingerprintService.get().sha1Hex(file.toPath());
 			log.debug("Checksum check: '" + hashString + "' == '" + checksum + "'?");
 			return hashString.equals(checksum);
 		} catch (IOException e) {
@@ -59,22 +57,19 @@ public class Checksum {
 
 	public static byte[] sha256(File file) {
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha256());
-			return hash.asBytes();
+			return FileFingerprintService.get().sha256(file.toPath());
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to get file hash");
 		}
 	}
 
 	public static String sha1Hex(Path path) throws IOException {
-		HashCode hash = Files.asByteSource(path.toFile()).hash(Hashing.sha1());
-		return toHex(hash.asBytes());
+		return FileFingerprintService.get().sha1Hex(path);
 	}
 
 	public static String truncatedSha256(File file) {
 		try {
-			HashCode hash = Files.asByteSource(file).hash(Hashing.sha256());
-			return hash.toString().substring(0, 12);
+			return FileFingerprintService.get().sha256Hex(file.toPath()).substring(0, 12);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to get file hash of " + file, e);
 		}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+
+/**
+ * Dynamic AppCDS archives for the run tasks, enabled with the {@value #PROPERTY} Gradle property.
+ *
+ * <p>The first launch dumps the loaded classes with {@code -XX:ArchiveClassesAtExit}, later launches map them with
+ * {@code -XX:SharedArchiveFile}. The archive is keyed by a hash of the classpath, main class and JVM, so a new one is
+ * created whenever any of them change. The JVM validates the archive itself and falls back to loading the classes
+ * normally when it doesn't match, so the game behaves the same either way.
+ *
+ * <p>The JVM only archives classes from jars that come before every non-empty directory on the classpath. The classpath
+ * order decides which class or resource wins when several entries contain it, so it is never changed here. Runs whose
+ * class and resource directories come before the jars, as in the runtime classpath of a source set, are not archived.
+ */
+public final class ClassDataSharing {
+	public static final String PROPERTY = "fabric.loom.runClassDataSharing";
+	private static final int VERSION = 1;
+
+	private ClassDataSharing() {
+	}
+
+	public static boolean isEnabled(Project project) {
+		return project.getProviders().gradleProperty(PROPERTY).map(Boolean::parseBoolean).getOrElse(false);
+	}
+
+	/**
+	 * @param archiveDir the directory to keep the archives in
+	 * @param name the name of the run, archives for older classpaths of the same run are deleted
+	 * @param javaRuntime identifies the JVM, such as its installation path and version
+	 * @return the JVM arguments to create or use the archive, or an empty list when it cannot be used
+	 */
+	public static List<String> getJvmArgs(Path archiveDir, String name, List<File> classpath, String mainClass, String javaRuntime, Logger logger) throws IOException {
+		if (!canArchive(classpath)) {
+			// The JVM refuses to dump an archive, and exits with an error, when a non-empty directory is on the
+			// classpath before a jar that classes were archived from.
+			logger.info("Not using class data sharing for {} as its classpath has class directories before jars", name);
+			return List.of();
+		}
+
+		final Hasher hasher = Hashing.sha256().newHasher()
+				.putInt(VERSION)
+				.putString(mainClass, StandardCharsets.UTF_8)
+				.putString(javaRuntime, StandardCharsets.UTF_8);
+
+		for (File file : classpath) {
+			hasher.putString(file.getAbsolutePath(), StandardCharsets.UTF_8);
+
+			if (file.isFile()) {
+				hasher.putLong(file.length()).putLong(file.lastModified());
+			}
+		}
+
+		final String prefix = name + "-";
+		final Path archive = archiveDir.resolve(prefix + hasher.hash().toString().substring(0, 16) + ".jsa");
+
+		Files.createDirectories(archiveDir);
+
+		// Invalidate the archives created for the previous classpaths of this run
+		try (Stream<Path> stream = Files.list(archiveDir)) {
+			for (Path path : stream.toList()) {
+				final String fileName = path.getFileName().toString();
+
+				if (fileName.startsWith(prefix) && fileName.endsWith(".jsa") && !path.equals(archive)) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+
+		if (Files.exists(archive)) {
+			return List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath());
+		}
+
+		logger.lifecycle("Creating class data sharing archive for {}, the next launch will start faster", name);
+		return List.of("-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath());
+	}
+
+	private static boolean canArchive(List<File> classpath) {
+		boolean seenNonEmptyDirectory = false;
+
+		for (File file : classpath) {
+			if (file.isDirectory()) {
+				final String[] children = file.list();
+				seenNonEmptyDirectory |= children != null && children.length > 0;
+			} else if (seenNonEmptyDirectory && file.getName().endsWith(".jar")) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * An immutable index of the classes, members and class hierarchy of a set of jars.
+ *
+ * <p>This is much cheaper to build and hold than a {@link dev.architectury.tinyremapper.TinyRemapper} that has read the same jars,
+ * and can be shared between everything that only needs to look up classes and members, see {@link net.fabricmc.loom.task.service.ClassEnvironmentService}.
+ */
+public final class ClassEnvironment {
+	private final Map<String, ClassInfo> classes;
+
+	private ClassEnvironment(Map<String, ClassInfo> classes) {
+		this.classes = Collections.unmodifiableMap(classes);
+	}
+
+	/**
+	 * Reads the classes of the given jars, when a class is present in more than one jar the first one wins.
+	 */
+	public static ClassEnvironment read(List<Path> jars) {
+		final List<Map<String, ClassInfo>> perJar = jars.parallelStream()
+				.map(ClassEnvironment::readJar)
+				.toList();
+
+		final Map<String, ClassInfo> classes = new HashMap<>();
+
+		for (Map<String, ClassInfo> jarClasses : perJar) {
+			jarClasses.forEach(classes::putIfAbsent);
+		}
+
+		return new ClassEnvironment(classes);
+	}
+
+	private static Map<String, ClassInfo> readJar(Path jar) {
+		if (!Files.isRegularFile(jar)) {
+			return Map.of();
+		}
+
+		final Map<String, ClassInfo> classes = new LinkedHashMap<>();
+
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+
+				if (entry.isDirectory() || !entry.getName().endsWith(".class") || entry.getName().startsWith("META-INF/")) {
+					continue;
+				}
+
+				try (InputStream is = zipFile.getInputStream(entry)) {
+					final ClassInfo info = readClass(is.readAllBytes());
+					classes.putIfAbsent(info.name(), info);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read classes from " + jar, e);
+		}
+
+		return classes;
+	}
+
+	private static ClassInfo readClass(byte[] bytes) {
+		final ClassReader reader = new ClassReader(bytes);
+		final Set<String> methods = new HashSet<>();
+		final Set<String> fields = new HashSet<>();
+
+		reader.accept(new ClassVisitor(Constants.ASM_VERSION) {
+			@Override
+			public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+				fields.add(name + ":" + descriptor);
+				return null;
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				methods.add(name + descriptor);
+				return null;
+			}
+		}, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+		return new ClassInfo(reader.getClassName(), reader.getAccess(), reader.getSuperName(), List.of(reader.getInterfaces()), Set.copyOf(methods), Set.copyOf(fields));
+	}
+
+	@Nullable
+	public ClassInfo getClass(String name) {
+		return classes.get(name);
+	}
+
+	public Set<String> getClassNames() {
+		return classes.keySet();
+	}
+
+	/**
+	 * @return true when the method is declared in the given class
+	 */
+	public boolean hasMethod(String owner, String name, String descriptor) {
+		final ClassInfo info = getClass(owner);
+		return info != null && info.methods().contains(name + descriptor);
+	}
+
+	/**
+	 * @return true when the field is declared in the given class
+	 */
+	public boolean hasField(String owner, String name, String descriptor) {
+		final ClassInfo info = getClass(owner);
+		return info != null && info.fields().contains(name + ":" + descriptor);
+	}
+
+	/**
+	 * Returns the given class followed by all of its known super classes and interfaces, closest first.
+	 */
+	public List<String> getHierarchy(String name) {
+		final List<String> hierarchy = new ArrayList<>();
+		final Set<String> visited = new HashSet<>();
+		final Deque<String> queue = new ArrayDeque<>();
+		queue.add(name);
+
+		while (!queue.isEmpty()) {
+			final String current = queue.poll();
+
+			if (!visited.add(current)) {
+				continue;
+			}
+
+			hierarchy.add(current);
+			final ClassInfo info = getClass(current);
+
+			if (info == null) {
+				continue;
+			}
+
+			if (info.superName() != null) {
+				queue.add(info.superName());
+			}
+
+			queue.addAll(info.interfaces());
+		}
+
+		return hierarchy;
+	}
+
+	public record ClassInfo(String name, int access, @Nullable String superName, List<String> interfaces, Set<String> methods, Set<String> fields) {
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A cheap pre-scan of a class file's constant pool, used to skip a full ASM visit for classes that cannot possibly be
+ * affected by a transform pass.
+ *
+ * <p>Every name, descriptor and string constant referenced by a class is stored as a {@code CONSTANT_Utf8} entry,
+ * so a class that has no matching entry cannot reference the given annotation, owner or string.
+ * The scan does not allocate, and errs on the side of returning {@code true} when the class file cannot be understood.
+ */
+public final class ConstantPoolScanner {
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private final byte[][] needles;
+	private final boolean prefix;
+
+	private ConstantPoolScanner(byte[][] needles, boolean prefix) {
+		this.needles = needles;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Matches classes with a constant pool entry equal to any of the given values, for example an annotation descriptor.
+	 */
+	public static ConstantPoolScanner exact(String... values) {
+		return new ConstantPoolScanner(encode(values), false);
+	}
+
+	/**
+	 * Matches classes with a constant pool entry starting with any of the given values.
+	 */
+	public static ConstantPoolScanner prefix(String... values) {
+		return new ConstantPoolScanner(encode(values), true);
+	}
+
+	public boolean matches(byte[] classFile) {
+		if (classFile.length < 10 || readInt(classFile, 0) != MAGIC) {
+			return true;
+		}
+
+		final int count = readUnsignedShort(classFile, 8);
+		int offset = 10;
+
+		for (int i = 1; i < count; i++) {
+			if (offset >= classFile.length) {
+				return true;
+			}
+
+			final int tag = classFile[offset];
+
+			switch (tag) {
+			case 1 -> { // Utf8
+				if (offset + 3 > classFile.length) {
+					return true;
+				}
+
+				final int length = readUnsignedShort(classFile, offset + 1);
+
+				if (matchesEntry(classFile, offset + 3, length)) {
+					return true;
+				}
+
+				offset += 3 + length;
+			}
+			case 3, 4, 9, 10, 11, 12, 17, 18 -> offset += 5; // Integer, Float, Fieldref, Methodref, InterfaceMethodref, NameAndType, Dynamic, InvokeDynamic
+			case 5, 6 -> { // Long, Double take up two slots
+				offset += 9;
+				i++;
+			}
+			case 7, 8, 16, 19, 20 -> offset += 3; // Class, String, MethodType, Module, Package
+			case 15 -> offset += 4; // MethodHandle
+			default -> {
+				// Unknown constant type, let ASM deal with it.
+				return true;
+			}
+			}
+		}
+
+		return false;
+	}
+
+	private boolean matchesEntry(byte[] classFile, int start, int length) {
+		if (start + length > classFile.length) {
+			return true;
+		}
+
+		for (byte[] needle : needles) {
+			if (prefix ? length < needle.length : length != needle.length) {
+				continue;
+			}
+
+			if (regionMatches(classFile, start, needle)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean regionMatches(byte[] classFile, int start, byte[] needle) {
+		for (int i = 0; i < needle.length; i++) {
+			if (classFile[start + i] != needle[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static byte[][] encode(String... values) {
+		final byte[][] encoded = new byte[values.length][];
+
+		for (int i = 0; i < values.length; i++) {
+			// Modified UTF-8 only differs from UTF-8 for the null char and supplementary chars, neither of which are valid in names.
+			encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+		}
+
+		return encoded;
+	}
+
+	private static int readUnsignedShort(byte[] bytes, int offset) {
+		return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+	}
+}
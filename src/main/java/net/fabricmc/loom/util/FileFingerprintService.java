@@ -0,0 +1,277 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.util.service.SharedService;
+import net.fabricmc.loom.util.service.SharedServiceManager;
+
+/**
+ * Remembers the sha1 and sha256 hashes of files, so that files that have not changed are not hashed again.
+ *
+ * <p>A file is considered unchanged when its size, modification time and file key (inode) are the same. The hashes are kept
+ * in memory for the lifetime of the daemon, and in a small database in the user cache that is loaded on first use and saved at the end of the build.
+ * Concurrent requests for the same file share a single computation.
+ *
+ * <p>Hashes that have not been used for {@value #MAX_AGE_DAYS} days are dropped when saving, and at most {@value #MAX_ENTRIES}
+ * of the most recently used hashes are saved, so hashing project files does not grow the database without bound.
+ */
+public final class FileFingerprintService {
+	private static final Logger LOGGER = Logging.getLogger(FileFingerprintService.class);
+	private static final FileFingerprintService INSTANCE = new FileFingerprintService();
+	private static final int MAGIC = 0x4C464650; // LFFP
+	private static final int VERSION = 2;
+	private static final int MAX_AGE_DAYS = 30;
+	private static final int MAX_ENTRIES = 100_000;
+	// How often the last use of a hash is updated, to avoid saving the database on every build.
+	private static final long LAST_USED_RESOLUTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+	// Files modified this recently might be modified again without changing the modification time, so their hashes are not remembered.
+	private static final long RACY_WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(2);
+
+	private final Map<Path, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+	private final Map<Path, CompletableFuture<Fingerprint>> inFlight = new ConcurrentHashMap<>();
+	@Nullable
+	private Path database;
+	private volatile boolean dirty = false;
+
+	private FileFingerprintService() {
+	}
+
+	public static FileFingerprintService get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Loads the database from the user cache of the project, if it has not been loaded yet, and saves it at the end of the build.
+	 */
+	public static void setup(Project project) {
+		final Path database = LoomGradleExtension.get(project).getFiles().getUserCache().toPath().resolve("file_fingerprints.bin");
+		INSTANCE.load(database);
+		SharedServiceManager.get(project).getOrCreateService("FileFingerprintService", () -> new SharedService() {
+			@Override
+			public void close() {
+				INSTANCE.save();
+			}
+		});
+	}
+
+	public String sha1Hex(Path path) throws IOException {
+		return Checksum.toHex(getFingerprint(path).sha1());
+	}
+
+	public byte[] sha256(Path path) throws IOException {
+		return getFingerprint(path).sha256().clone();
+	}
+
+	public String sha256Hex(Path path) throws IOException {
+		return Checksum.toHex(getFingerprint(path).sha256());
+	}
+
+	private Fingerprint getFingerprint(Path path) throws IOException {
+		final Path absolutePath = path.toAbsolutePath().normalize();
+		final Stat stat = Stat.of(absolutePath);
+		final Fingerprint fingerprint = fingerprints.get(absolutePath);
+
+		if (fingerprint != null && fingerprint.stat().equals(stat)) {
+			final long now = System.currentTimeMillis();
+
+			if (now - fingerprint.lastUsed() > LAST_USED_RESOLUTION_MILLIS) {
+				fingerprints.replace(absolutePath, fingerprint, fingerprint.withLastUsed(now));
+				dirty = true;
+			}
+
+			return fingerprint;
+		}
+
+		final CompletableFuture<Fingerprint> future = new CompletableFuture<>();
+		final CompletableFuture<Fingerprint> existing = inFlight.putIfAbsent(absolutePath, future);
+
+		if (existing != null) {
+			// Another thread is hashing this file, wait for it and use its result if the file did not change since.
+			final Fingerprint result = existing.exceptionally(t -> null).join();
+
+			if (result != null && result.stat().equals(stat)) {
+				return result;
+			}
+
+			return getFingerprint(path);
+		}
+
+		try {
+			final Fingerprint result = compute(absolutePath, stat);
+
+			if (System.currentTimeMillis() - stat.lastModified() > RACY_WINDOW_MILLIS) {
+				fingerprints.put(absolutePath, result);
+				dirty = true;
+			}
+
+			future.complete(result);
+			return result;
+		} catch (IOException | RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(absolutePath, future);
+		}
+	}
+
+	private static Fingerprint compute(Path path, Stat stat) throws IOException {
+		final MessageDigest sha1 = createDigest("SHA-1");
+		final MessageDigest sha256 = createDigest("SHA-256");
+
+		try (InputStream is = Files.newInputStream(path)) {
+			final byte[] buffer = new byte[64 * 1024];
+			int read;
+
+			while ((read = is.read(buffer)) != -1) {
+				sha1.update(buffer, 0, read);
+				sha256.update(buffer, 0, read);
+			}
+		}
+
+		return new Fingerprint(stat, sha1.digest(), sha256.digest(), System.currentTimeMillis());
+	}
+
+	private static MessageDigest createDigest(String algorithm) {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private synchronized void load(Path database) {
+		if (database.equals(this.database)) {
+			return;
+		}
+
+		this.database = database;
+
+		if (Files.notExists(database)) {
+			return;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(database)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return;
+			}
+
+			final int count = in.readInt();
+
+			for (int i = 0; i < count; i++) {
+				final Path path = Path.of(in.readUTF());
+				final Stat stat = new Stat(in.readLong(), in.readLong(), in.readUTF());
+				final byte[] sha1 = in.readNBytes(20);
+				final byte[] sha256 = in.readNBytes(32);
+				final long lastUsed = in.readLong();
+
+				fingerprints.putIfAbsent(path, new Fingerprint(stat, sha1, sha256, lastUsed));
+			}
+		} catch (IOException | RuntimeException e) {
+			// Only a cache, the hashes will be computed again.
+			LOGGER.info("Failed to read file fingerprints from {}", database, e);
+		}
+	}
+
+	private synchronized void save() {
+		if (database == null || !dirty) {
+			return;
+		}
+
+		dirty = false;
+
+		try {
+			Files.createDirectories(database.getParent());
+			final Path tempFile = Files.createTempFile(database.getParent(), "file_fingerprints", ".tmp");
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				// Forget files that no longer exist or have not been used for a while, keeping the most recently used.
+				final long oldest = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+				final List<Map.Entry<Path, Fingerprint>> existing = fingerprints.entrySet().stream()
+						.filter(entry -> entry.getValue().lastUsed() >= oldest && Files.exists(entry.getKey()))
+						.sorted(Comparator.comparingLong((Map.Entry<Path, Fingerprint> entry) -> entry.getValue().lastUsed()).reversed())
+						.limit(MAX_ENTRIES)
+						.toList();
+
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(existing.size());
+
+				for (Map.Entry<Path, Fingerprint> entry : existing) {
+					final Stat stat = entry.getValue().stat();
+					out.writeUTF(entry.getKey().toString());
+					out.writeLong(stat.size());
+					out.writeLong(stat.lastModified());
+					out.writeUTF(stat.fileKey());
+					out.write(entry.getValue().sha1());
+					out.write(entry.getValue().sha256());
+					out.writeLong(entry.getValue().lastUsed());
+				}
+			}
+
+			Files.move(tempFile, database, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.info("Failed to save file fingerprints to {}", database, e);
+		}
+	}
+
+	private record Stat(long size, long lastModified, String fileKey) {
+		private static Stat of(Path path) throws IOException {
+			final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			return new Stat(attributes.size(), attributes.lastModifiedTime().toMillis(), Objects.toString(attributes.fileKey(), ""));
+		}
+	}
+
+	private record Fingerprint(Stat stat, byte[] sha1, byte[] sha256, long lastUsed) {
+		private Fingerprint withLastUsed(long lastUsed) {
+			return new Fingerprint(stat, sha1, sha256, lastUsed);
+		}
+	}
+}
@@ -24,6 +24,8 @@
 
 package net.fabricmc.loom.util;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.apache.commons.io.output.NullOutputStream;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
@@ -32,6 +34,9 @@ import org.gradle.api.logging.configuration.ShowStacktrace;
 import org.gradle.process.ExecResult;
 import org.gradle.process.JavaExecSpec;
 
+import net.fabricmc.loom.util.trace.BuildTracer;
+import net.fabricmc.loom.util.trace.TraceSpan;
+
 /**
  * Contains helpers for executing Forge's command line tools
  * with suppressed output streams to prevent annoying log spam.
@@ -55,20 +60,30 @@ public final class ForgeToolExecutor {
 	 * @return the execution result
 	 */
 	public static ExecResult exec(Project project, Action<? super JavaExecSpec> configurator) {
-		return project.javaexec(spec -> {
-			configurator.execute(spec);
+		// The span is started once the main class is known, the CPU time of the forked process is not included.
+		final AtomicReference<TraceSpan> span = new AtomicReference<>();
 
-			if (shouldShowVerboseStdout(project)) {
-				spec.setStandardOutput(System.out);
-			} else {
-				spec.setStandardOutput(NullOutputStream.NULL_OUTPUT_STREAM);
-			}
+		try {
+			return project.javaexec(spec -> {
+				configurator.execute(spec);
+				span.set(BuildTracer.get(project).span("tool", spec.getMainClass().getOrElse("unknown")));
+
+				if (shouldShowVerboseStdout(project)) {
+					spec.setStandardOutput(System.out);
+				} else {
+					spec.setStandardOutput(NullOutputStream.NULL_OUTPUT_STREAM);
+				}
 
-			if (shouldShowVerboseStderr(project)) {
-				spec.setErrorOutput(System.err);
-			} else {
-				spec.setErrorOutput(NullOutputStream.NULL_OUTPUT_STREAM);
+				if (shouldShowVerboseStderr(project)) {
+					spec.setErrorOutput(System.err);
+				} else {
+					spec.setErrorOutput(NullOutputStream.NULL_OUTPUT_STREAM);
+				}
+			});
+		} finally {
+			if (span.get() != null) {
+				span.get().close();
 			}
-		});
+		}
 	}
 }
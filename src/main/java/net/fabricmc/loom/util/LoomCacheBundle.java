@@ -0,0 +1,267 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+
+import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.LoomGradlePlugin;
+import net.fabricmc.loom.util.service.SharedService;
+import net.fabricmc.loom.util.service.SharedServiceManager;
+
+/**
+ * A portable bundle of loom's cache files, used to start offline machines with warm caches.
+ *
+ * <p>The bundle is a zip with a {@code manifest.json} and the file contents stored once per sha1 under {@code blobs/}.
+ * Paths are stored relative to a named cache root, so they are relocated to the caches of the importing machine.
+ * The sha1 hash and etag attributes written by the downloader are carried over, so that the imported files are
+ * trusted without being downloaded again.
+ */
+public final class LoomCacheBundle {
+	public static final String IMPORT_PROPERTY = "fabric.loom.importCacheBundle";
+	public static final String USER_CACHE = "user";
+	public static final String ROOT_PROJECT_CACHE = "rootProject";
+	private static final int VERSION = 1;
+	private static final String MANIFEST_PATH = "manifest.json";
+	private static final String HASH_ATTRIBUTE = "LoomHash";
+	private static final List<String> ATTRIBUTES = List.of(HASH_ATTRIBUTE, "ETag");
+
+	private LoomCacheBundle() {
+	}
+
+	public record Entry(String root, String path, String sha1, long size, Map<String, String> attributes) {
+	}
+
+	private record Manifest(int version, List<Entry> entries) {
+	}
+
+	public record ImportResult(int imported, int upToDate) {
+	}
+
+	public static Map<String, Path> getRoots(LoomGradleExtension extension) {
+		return Map.of(
+				USER_CACHE, extension.getFiles().getUserCache().toPath(),
+				ROOT_PROJECT_CACHE, extension.getFiles().getRootProjectPersistentCache().toPath()
+		);
+	}
+
+	/**
+	 * Imports the bundle passed with the {@value #IMPORT_PROPERTY} Gradle property, once per build.
+	 * This runs when the plugin is applied, before any cache file is looked up or downloaded.
+	 */
+	public static void importIfRequested(Project project) {
+		final String bundle = project.getProviders().gradleProperty(IMPORT_PROPERTY).getOrNull();
+
+		if (bundle == null) {
+			return;
+		}
+
+		final Path bundlePath = project.getRootProject().file(bundle).toPath();
+		final Map<String, Path> roots = getRoots(LoomGradleExtension.get(project));
+
+		SharedServiceManager.get(project).getOrCreateService("LoomCacheBundle:" + bundlePath.toAbsolutePath(), () -> {
+			try {
+				final ImportResult result = importBundle(bundlePath, roots);
+				project.getLogger().lifecycle(":imported {} cache files from {} ({} already up-to-date)", result.imported(), bundlePath, result.upToDate());
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to import loom cache bundle " + bundlePath, e);
+			}
+
+			return new SharedService() { };
+		});
+	}
+
+	/**
+	 * @param roots the cache roots, keyed by their name in the bundle
+	 * @param files the files to export, each of which must be inside one of the roots
+	 * @return the exported entries
+	 */
+	public static List<Entry> export(Map<String, Path> roots, Collection<Path> files, Path bundle, Logger logger) throws IOException {
+		final List<Entry> entries = new ArrayList<>();
+		final Set<String> blobs = new HashSet<>();
+
+		for (Path file : files.stream().distinct().sorted().toList()) {
+			final Map.Entry<String, Path> root = findRoot(roots, file)
+					.orElseThrow(() -> new IllegalArgumentException(file + " is not in a loom cache"));
+			final Map<String, String> attributes = new LinkedHashMap<>();
+
+			for (String attribute : ATTRIBUTES) {
+				AttributeHelper.readAttribute(file, attribute).ifPresent(value -> attributes.put(attribute, value));
+			}
+
+			final String path = root.getValue().relativize(file).toString().replace('\\', '/');
+			entries.add(new Entry(root.getKey(), path, Checksum.sha1Hex(file), Files.size(file), attributes));
+		}
+
+		Files.createDirectories(bundle.toAbsolutePath().getParent());
+
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(bundle))) {
+			zip.putNextEntry(new ZipEntry(MANIFEST_PATH));
+			zip.write(LoomGradlePlugin.OBJECT_MAPPER.writeValueAsBytes(new Manifest(VERSION, entries)));
+			zip.closeEntry();
+
+			for (Entry entry : entries) {
+				if (!blobs.add(entry.sha1())) {
+					continue;
+				}
+
+				zip.putNextEntry(new ZipEntry("blobs/" + entry.sha1()));
+				Files.copy(roots.get(entry.root()).resolve(entry.path()), zip);
+				zip.closeEntry();
+			}
+		}
+
+		logger.info("Exported {} cache files ({} unique) to {}", entries.size(), blobs.size(), bundle);
+		return entries;
+	}
+
+	private static Optional<Map.Entry<String, Path>> findRoot(Map<String, Path> roots, Path file) {
+		// Prefer the most specific root, in case one cache is inside another
+		return roots.entrySet().stream()
+				.filter(root -> file.toAbsolutePath().normalize().startsWith(root.getValue().toAbsolutePath().normalize()))
+				.max(Comparator.comparingInt(root -> root.getValue().toAbsolutePath().normalize().getNameCount()));
+	}
+
+	public static ImportResult importBundle(Path bundle, Map<String, Path> roots) throws IOException {
+		int imported = 0;
+		int upToDate = 0;
+
+		try (ZipFile zip = new ZipFile(bundle.toFile())) {
+			final ZipEntry manifestEntry = zip.getEntry(MANIFEST_PATH);
+
+			if (manifestEntry == null) {
+				throw new IOException("Not a loom cache bundle, %s is missing".formatted(MANIFEST_PATH));
+			}
+
+			final Manifest manifest;
+
+			try (InputStream is = zip.getInputStream(manifestEntry)) {
+				manifest = LoomGradlePlugin.OBJECT_MAPPER.readValue(is, Manifest.class);
+			}
+
+			if (manifest.version() != VERSION) {
+				throw new IOException("Unsupported loom cache bundle version %d, expected %d".formatted(manifest.version(), VERSION));
+			}
+
+			for (Entry entry : manifest.entries()) {
+				final Path target = resolve(roots, entry);
+				final String hashAttribute = entry.attributes().get(HASH_ATTRIBUTE);
+
+				// The downloader stores the expected hash as "sha1:<hash>", which must agree with the content
+				if (hashAttribute != null && hashAttribute.startsWith("sha1:") && !hashAttribute.substring(5).equalsIgnoreCase(entry.sha1())) {
+					throw new IOException("Cache entry %s has sha1 %s but was downloaded as %s".formatted(entry.path(), entry.sha1(), hashAttribute));
+				}
+
+				if (Files.isRegularFile(target) && Files.size(target) == entry.size() && Checksum.sha1Hex(target).equalsIgnoreCase(entry.sha1())) {
+					writeAttributes(target, entry);
+					upToDate++;
+					continue;
+				}
+
+				final ZipEntry blob = zip.getEntry("blobs/" + entry.sha1());
+
+				if (blob == null) {
+					throw new IOException("Missing content for cache entry " + entry.path());
+				}
+
+				Files.createDirectories(target.getParent());
+				final Path temp = target.resolveSibling(target.getFileName() + ".import");
+				final MessageDigest digest = sha1Digest();
+
+				try (InputStream is = new DigestInputStream(zip.getInputStream(blob), digest);
+						OutputStream os = Files.newOutputStream(temp)) {
+					is.transferTo(os);
+				}
+
+				final String sha1 = Checksum.toHex(digest.digest());
+
+				if (!sha1.equalsIgnoreCase(entry.sha1())) {
+					Files.deleteIfExists(temp);
+					throw new IOException("Corrupt cache entry %s, expected sha1 %s but got %s".formatted(entry.path(), entry.sha1(), sha1));
+				}
+
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+				writeAttributes(target, entry);
+				imported++;
+			}
+		}
+
+		return new ImportResult(imported, upToDate);
+	}
+
+	private static Path resolve(Map<String, Path> roots, Entry entry) throws IOException {
+		final Path root = roots.get(entry.root());
+
+		if (root == null) {
+			throw new IOException("Unknown cache root " + entry.root());
+		}
+
+		final Path normalizedRoot = root.toAbsolutePath().normalize();
+		final Path target = normalizedRoot.resolve(entry.path()).normalize();
+
+		if (!target.startsWith(normalizedRoot)) {
+			throw new IOException("Cache entry %s escapes its cache root".formatted(entry.path()));
+		}
+
+		return target;
+	}
+
+	private static void writeAttributes(Path target, Entry entry) throws IOException {
+		for (Map.Entry<String, String> attribute : entry.attributes().entrySet()) {
+			AttributeHelper.writeAttribute(target, attribute.getKey(), attribute.getValue());
+		}
+	}
+
+	private static MessageDigest sha1Digest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
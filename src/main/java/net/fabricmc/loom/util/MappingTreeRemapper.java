@@ -0,0 +1,129 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.commons.Remapper;
+
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+
+/**
+ * A lightweight, immutable remapper that maps class and member names between two namespaces of a mapping tree.
+ *
+ * <p>When a {@link ClassEnvironment} in the source namespace is given, members that are not mapped on the requested owner
+ * are looked up in its super classes and interfaces.
+ */
+public final class MappingTreeRemapper extends Remapper {
+	private final Map<String, String> classes = new HashMap<>();
+	private final Map<String, String> methods = new HashMap<>();
+	private final Map<String, String> fields = new HashMap<>();
+	@Nullable
+	private final ClassEnvironment environment;
+
+	public MappingTreeRemapper(MappingTree mappings, String from, String to, @Nullable ClassEnvironment environment) {
+		this.environment = environment;
+
+		final int fromId = mappings.getNamespaceId(from);
+		final int toId = mappings.getNamespaceId(to);
+
+		if (fromId == MappingTreeView.NULL_NAMESPACE_ID || toId == MappingTreeView.NULL_NAMESPACE_ID) {
+			throw new MappingException("Cannot remap from '%s' to '%s'. Available namespaces: [%s -> %s]"
+					.formatted(from, to, mappings.getSrcNamespace(), String.join(", ", mappings.getDstNamespaces())));
+		}
+
+		for (MappingTree.ClassMapping classDef : mappings.getClasses()) {
+			final String className = classDef.getName(fromId);
+
+			if (className == null) {
+				continue;
+			}
+
+			final String dstName = classDef.getName(toId);
+
+			if (dstName != null) {
+				classes.put(className, dstName);
+			}
+
+			for (MappingTree.FieldMapping field : classDef.getFields()) {
+				final String dstFieldName = field.getName(toId);
+
+				if (dstFieldName != null) {
+					fields.put(memberKey(className, field.getName(fromId), field.getDesc(fromId)), dstFieldName);
+				}
+			}
+
+			for (MappingTree.MethodMapping method : classDef.getMethods()) {
+				final String dstMethodName = method.getName(toId);
+
+				if (dstMethodName != null) {
+					methods.put(memberKey(className, method.getName(fromId), method.getDesc(fromId)), dstMethodName);
+				}
+			}
+		}
+	}
+
+	private static String memberKey(String owner, String name, @Nullable String descriptor) {
+		return owner + "/" + name + (descriptor != null ? descriptor : "");
+	}
+
+	@Override
+	public String map(String internalName) {
+		return classes.getOrDefault(internalName, internalName);
+	}
+
+	@Override
+	public String mapMethodName(String owner, String name, String descriptor) {
+		return mapMember(methods, owner, name, descriptor);
+	}
+
+	@Override
+	public String mapFieldName(String owner, String name, String descriptor) {
+		return mapMember(fields, owner, name, descriptor);
+	}
+
+	private String mapMember(Map<String, String> members, String owner, String name, String descriptor) {
+		String mapped = members.get(memberKey(owner, name, descriptor));
+
+		if (mapped != null) {
+			return mapped;
+		}
+
+		if (environment != null) {
+			for (String superName : environment.getHierarchy(owner)) {
+				mapped = members.get(memberKey(superName, name, descriptor));
+
+				if (mapped != null) {
+					return mapped;
+				}
+			}
+		}
+
+		return name;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.kotlin;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import dev.architectury.tinyremapper.TinyRemapper;
+import dev.architectury.tinyremapper.api.TrClass;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+
+import net.fabricmc.loom.util.Constants;
+
+/**
+ * Only inserts the kotlin metadata remapper visitor for classes annotated with {@code kotlin.Metadata}.
+ *
+ * <p>The annotated classes are collected while tiny remapper reads its inputs, so the classes that are not
+ * written by Kotlin skip the kotlin remapper entirely.
+ */
+public final class KotlinMetadataScanningExtension implements TinyRemapper.AnalyzeVisitorProvider, TinyRemapper.ApplyVisitorProvider, TinyRemapper.Extension {
+	private static final String KOTLIN_METADATA_DESCRIPTOR = "Lkotlin/Metadata;";
+
+	private final KotlinMetadataTinyRemapperExtension extension;
+	private final Set<String> kotlinClasses = ConcurrentHashMap.newKeySet();
+
+	public KotlinMetadataScanningExtension(KotlinMetadataTinyRemapperExtension extension) {
+		this.extension = extension;
+	}
+
+	@Override
+	public void attach(TinyRemapper.Builder builder) {
+		builder.extraAnalyzeVisitor(this);
+		builder.extraPreApplyVisitor(this);
+	}
+
+	@Override
+	public ClassVisitor insertAnalyzeVisitor(int mrjVersion, String className, ClassVisitor next) {
+		return new ClassVisitor(Constants.ASM_VERSION, next) {
+			@Override
+			public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+				if (KOTLIN_METADATA_DESCRIPTOR.equals(descriptor)) {
+					kotlinClasses.add(className);
+				}
+
+				return super.visitAnnotation(descriptor, visible);
+			}
+		};
+	}
+
+	@Override
+	public ClassVisitor insertApplyVisitor(TrClass cls, ClassVisitor next) {
+		if (!kotlinClasses.contains(cls.getName())) {
+			return next;
+		}
+
+		return extension.insertApplyVisitor(cls, next);
+	}
+}
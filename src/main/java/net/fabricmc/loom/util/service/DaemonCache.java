@@ -0,0 +1,176 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.gradle.api.Project;
+
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * An opt-in cache for immutable values that outlives a single build, so that the next build in the same daemon can reuse them.
+ * Unlike {@link SharedService}s that hold mutable per-build state, values are only reused when the hash of their inputs matches.
+ *
+ * <p>Values are held with soft references, so the JVM reclaims them under memory pressure. Each value has an estimated size,
+ * the least recently used values are dropped once the total exceeds {@code fabric.loom.daemonCache.maxSizeMb}, which defaults
+ * to a quarter of the daemon's heap. Enabled with the {@code fabric.loom.daemonCache} gradle property.
+ */
+public final class DaemonCache {
+	public static final String ENABLED_PROPERTY = "fabric.loom.daemonCache";
+	public static final String MAX_SIZE_PROPERTY = "fabric.loom.daemonCache.maxSizeMb";
+	// A mapping tree in memory takes up several times the size of the file it was read from.
+	private static final long FILE_SIZE_FACTOR = 6;
+	public static final DaemonCache DISABLED = new DaemonCache(0);
+
+	// Shared by every build in this daemon, ordered from least to most recently used.
+	private static final LinkedHashMap<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75F, true);
+
+	private final long maxSize;
+
+	private DaemonCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	static DaemonCache create(Project rootProject) {
+		final boolean enabled = rootProject.getProviders().gradleProperty(ENABLED_PROPERTY).map(Boolean::parseBoolean).getOrElse(false);
+
+		if (!enabled) {
+			return DISABLED;
+		}
+
+		final long maxSize = rootProject.getProviders().gradleProperty(MAX_SIZE_PROPERTY)
+				.map(size -> Long.parseLong(size) * 1024 * 1024)
+				.getOrElse(Runtime.getRuntime().maxMemory() / 4);
+		return new DaemonCache(maxSize);
+	}
+
+	/**
+	 * Gets a value derived from the contents of a single file, such as a mapping tree. The size of the value is estimated from the size of the file.
+	 */
+	public <T> T get(String id, Path input, Supplier<T> factory) {
+		if (maxSize <= 0) {
+			return factory.get();
+		}
+
+		try {
+			final long size = Files.size(input) * FILE_SIZE_FACTOR;
+			return get(id, Checksum.sha1Hex(input), value -> size, factory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to hash " + input, e);
+		}
+	}
+
+	/**
+	 * Gets a mapping tree read from a single file. Mapping trees are mutable, so the cached tree is never handed out,
+	 * each caller gets its own copy of it.
+	 */
+	public MemoryMappingTree getMappingTree(String id, Path input, Supplier<MemoryMappingTree> factory) {
+		if (maxSize <= 0) {
+			return factory.get();
+		}
+
+		final MemoryMappingTree cached = get(id, input, factory);
+		final MemoryMappingTree copy = new MemoryMappingTree();
+
+		try {
+			cached.accept(copy);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to copy mappings read from " + input, e);
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Gets a cached value, or creates it when it is missing, has been reclaimed or was created from different inputs.
+	 *
+	 * @param id a unique id for the value, the same id must always be used for the same type of value
+	 * @param inputHash a hash of every input that the value is created from
+	 * @param weigher estimates the size of the value in bytes
+	 * @param factory creates the value, the value must not be modified once created
+	 */
+	public <T> T get(String id, String inputHash, ToLongFunction<? super T> weigher, Supplier<T> factory) {
+		if (maxSize <= 0) {
+			return factory.get();
+		}
+
+		synchronized (ENTRIES) {
+			final Entry entry = ENTRIES.get(id);
+
+			if (entry != null && entry.inputHash().equals(inputHash)) {
+				//noinspection unchecked
+				final T value = (T) entry.value().get();
+
+				if (value != null) {
+					return value;
+				}
+			}
+		}
+
+		// Created outside of the lock, as this can take a while.
+		final T value = factory.get();
+
+		final long size = weigher.applyAsLong(value);
+
+		synchronized (ENTRIES) {
+			if (size > maxSize) {
+				// Too large to ever fit, don't push everything else out for it.
+				ENTRIES.remove(id);
+				return value;
+			}
+
+			ENTRIES.put(id, new Entry(inputHash, size, new SoftReference<>(value)));
+			evict();
+		}
+
+		return value;
+	}
+
+	private void evict() {
+		ENTRIES.values().removeIf(entry -> entry.value().get() == null);
+
+		long totalSize = ENTRIES.values().stream().mapToLong(Entry::size).sum();
+		final Iterator<Entry> iterator = ENTRIES.values().iterator();
+
+		// Least recently used first
+		while (totalSize > maxSize && iterator.hasNext()) {
+			totalSize -= iterator.next().size();
+			iterator.remove();
+		}
+	}
+
+	private record Entry(String inputHash, long size, SoftReference<Object> value) {
+	}
+}
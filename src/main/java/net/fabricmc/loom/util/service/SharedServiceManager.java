@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
+import com.google.common.base.Suppliers;
 import org.gradle.BuildResult;
 import org.gradle.api.Project;
 import org.gradle.api.invocation.Gradle;
@@ -44,12 +45,14 @@ public final class SharedServiceManager {
 	private final Gradle gradle;
 
 	private final Map<String, SharedService> sharedServiceMap = new ConcurrentHashMap<>();
+	private final Supplier<DaemonCache> daemonCache;
 
 	private boolean shutdown = false;
 
 	private SharedServiceManager(Gradle gradle) {
 		this.gradle = gradle;
 		this.gradle.buildFinished(this::onFinish);
+		this.daemonCache = Suppliers.memoize(() -> DaemonCache.create(gradle.getRootProject()));
 	}
 
 	public static SharedServiceManager get(Project project) {
@@ -78,6 +81,13 @@ public final class SharedServiceManager {
 		}
 	}
 
+	/**
+	 * Gets the cache for immutable values that are kept across builds, services should get their immutable state from here.
+	 */
+	public DaemonCache getDaemonCache() {
+		return daemonCache.get();
+	}
+
 	private void onFinish(BuildResult buildResult) {
 		synchronized (sharedServiceMap) {
 			shutdown = true;
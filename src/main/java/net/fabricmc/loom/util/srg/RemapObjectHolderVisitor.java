@@ -34,11 +34,14 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 
+import net.fabricmc.loom.util.ConstantPoolScanner;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.FileSystemUtil;
 import net.fabricmc.mappingio.tree.MappingTree;
 
 public class RemapObjectHolderVisitor extends ClassVisitor {
+	private static final ConstantPoolScanner MINECRAFT_STRING_SCANNER = ConstantPoolScanner.prefix("net.minecraft.");
+
 	private final MappingTree mappings;
 	private final int from;
 	private final int to;
@@ -55,7 +58,14 @@ public class RemapObjectHolderVisitor extends ClassVisitor {
 			Path classPath = fs.get().getPath(className.replace('.', '/') + ".class");
 
 			if (Files.exists(classPath)) {
-				ClassReader reader = new ClassReader(Files.readAllBytes(classPath));
+				byte[] bytes = Files.readAllBytes(classPath);
+
+				if (!MINECRAFT_STRING_SCANNER.matches(bytes)) {
+					// Nothing to remap, leave the class untouched.
+					return;
+				}
+
+				ClassReader reader = new ClassReader(bytes);
 				ClassWriter writer = new ClassWriter(0);
 				ClassVisitor classVisitor = new RemapObjectHolderVisitor(Constants.ASM_VERSION, writer, mappings, from, to);
 				reader.accept(classVisitor, 0);
@@ -0,0 +1,88 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.srg;
+
+import java.io.IOException;
+import java.util.List;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Merges MCPConfig's TSRG2 mappings with Mojang's mappings, replacing the installertools {@code MERGE_MAPPING} task.
+ *
+ * <p>The result maps the obfuscated names to the SRG member names, with class names taken from Mojang's mappings
+ * and missing field descriptors filled in from them.
+ */
+public final class Tsrg2Merger {
+	private Tsrg2Merger() {
+	}
+
+	/**
+	 * @param srg    the MCPConfig mappings, with the obfuscated names in the source namespace and SRG in the first destination
+	 * @param mojmap Mojang's mappings, with the obfuscated names in the source namespace
+	 * @return the merged mappings, using the source and first destination namespace of {@code srg}
+	 */
+	public static MemoryMappingTree merge(MappingTree srg, MappingTree mojmap) throws IOException {
+		MemoryMappingTree merged = new MemoryMappingTree();
+		merged.visitHeader();
+		merged.visitNamespaces(srg.getSrcNamespace(), List.of(srg.getDstNamespaces().get(0)));
+		merged.visitContent();
+
+		for (MappingTree.ClassMapping classDef : srg.getClasses()) {
+			MappingTree.ClassMapping mojmapClass = mojmap.getClass(classDef.getSrcName());
+			String className = mojmapClass != null && mojmapClass.getDstName(0) != null ? mojmapClass.getDstName(0) : classDef.getDstName(0);
+
+			merged.visitClass(classDef.getSrcName());
+			merged.visitDstName(MappedElementKind.CLASS, 0, className);
+
+			for (MappingTree.FieldMapping fieldDef : classDef.getFields()) {
+				String desc = fieldDef.getSrcDesc();
+
+				if (desc == null && mojmapClass != null) {
+					MappingTree.FieldMapping mojmapField = mojmapClass.getField(fieldDef.getSrcName(), null);
+					if (mojmapField != null) desc = mojmapField.getSrcDesc();
+				}
+
+				merged.visitField(fieldDef.getSrcName(), desc);
+				merged.visitDstName(MappedElementKind.FIELD, 0, fieldDef.getDstName(0));
+			}
+
+			for (MappingTree.MethodMapping methodDef : classDef.getMethods()) {
+				merged.visitMethod(methodDef.getSrcName(), methodDef.getSrcDesc());
+				merged.visitDstName(MappedElementKind.METHOD, 0, methodDef.getDstName(0));
+
+				for (MappingTree.MethodArgMapping argDef : methodDef.getArgs()) {
+					merged.visitMethodArg(argDef.getArgPosition(), argDef.getLvIndex(), argDef.getSrcName());
+					merged.visitDstName(MappedElementKind.METHOD_ARG, 0, argDef.getDstName(0));
+				}
+			}
+		}
+
+		merged.visitEnd();
+		return merged;
+	}
+}
@@ -26,119 +26,37 @@ package net.fabricmc.loom.util.srg;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Consumer;
 
-import org.cadixdev.lorenz.MappingSet;
-import org.cadixdev.lorenz.io.srg.tsrg.TSrgWriter;
-import org.cadixdev.lorenz.model.ClassMapping;
-import org.cadixdev.lorenz.model.MethodMapping;
-
-import net.fabricmc.mappingio.MappingVisitor;
-import net.fabricmc.mappingio.MappingWriter;
-import net.fabricmc.mappingio.adapter.ForwardingMappingVisitor;
 import net.fabricmc.mappingio.tree.MappingTree;
-import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class Tsrg2Utils {
-	public static void writeTsrg(Consumer<MappingVisitor> visitorConsumer, String dstNamespace, boolean applyParameterMappings, Writer writer)
-			throws IOException {
-		MappingSet set;
-
-		try (MappingsIO2LorenzWriter lorenzWriter = new MappingsIO2LorenzWriter(dstNamespace, applyParameterMappings)) {
-			visitorConsumer.accept(lorenzWriter);
-			set = lorenzWriter.read();
-		}
+	/**
+	 * Writes the tree in the TSRG (v1) format, using the given destination namespace.
+	 * TSRG v1 has no parameter mappings, so only classes, fields and methods are written.
+	 */
+	public static void writeTsrg(MappingTree tree, String dstNamespace, Writer writer) throws IOException {
+		int dst = tree.getNamespaceId(dstNamespace);
 
-		try (TSrgWriter w = new TSrgWriter(writer)) {
-			w.write(set);
+		if (dst == MappingTree.NULL_NAMESPACE_ID) {
+			throw new IllegalArgumentException("Unknown namespace: " + dstNamespace);
 		}
-	}
 
-	// TODO Move this elsewhere
-	public abstract static class MappingsIO2Others extends ForwardingMappingVisitor implements MappingWriter {
-		public MappingsIO2Others() {
-			super(new MemoryMappingTree());
-		}
-
-		public MappingTree tree() {
-			return (MappingTree) next;
-		}
+		StringBuilder builder = new StringBuilder();
 
-		@Override
-		public void close() throws IOException {
-			MappingTree tree = tree();
-			List<String> names = new ArrayList<>();
+		for (MappingTree.ClassMapping classDef : tree.getClasses()) {
+			builder.append(classDef.getSrcName()).append(' ').append(classDef.getName(dst)).append('\n');
 
-			for (MappingTree.ClassMapping aClass : tree.getClasses()) {
-				names.add(aClass.getSrcName());
+			for (MappingTree.FieldMapping fieldDef : classDef.getFields()) {
+				builder.append('\t').append(fieldDef.getSrcName()).append(' ').append(fieldDef.getName(dst)).append('\n');
 			}
 
-			for (String name : names) {
-				tree.removeClass(name);
-			}
-		}
-	}
-
-	public static class MappingsIO2LorenzWriter extends MappingsIO2Others {
-		private final Object dstNamespaceUnresolved;
-		private int dstNamespace;
-		private boolean applyParameterMappings;
-
-		public MappingsIO2LorenzWriter(int dstNamespace, boolean applyParameterMappings) {
-			this.dstNamespaceUnresolved = dstNamespace;
-			this.applyParameterMappings = applyParameterMappings;
-		}
-
-		public MappingsIO2LorenzWriter(String dstNamespace, boolean applyParameterMappings) {
-			this.dstNamespaceUnresolved = dstNamespace;
-			this.applyParameterMappings = applyParameterMappings;
-		}
-
-		@Override
-		public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) throws IOException {
-			super.visitNamespaces(srcNamespace, dstNamespaces);
-			this.dstNamespace = dstNamespaceUnresolved instanceof Integer ? (Integer) dstNamespaceUnresolved : dstNamespaces.indexOf((String) dstNamespaceUnresolved);
-		}
-
-		public MappingSet read() throws IOException {
-			return this.read(MappingSet.create());
-		}
-
-		public MappingSet read(final MappingSet mappings) throws IOException {
-			MappingTree tree = tree();
-
-			for (MappingTree.ClassMapping aClass : tree.getClasses()) {
-				ClassMapping<?, ?> lClass = mappings.getOrCreateClassMapping(aClass.getSrcName())
-						.setDeobfuscatedName(aClass.getDstName(dstNamespace));
-
-				for (MappingTree.FieldMapping aField : aClass.getFields()) {
-					String srcDesc = aField.getSrcDesc();
-
-					if (srcDesc == null || srcDesc.isEmpty()) {
-						lClass.getOrCreateFieldMapping(aField.getSrcName())
-								.setDeobfuscatedName(aField.getDstName(dstNamespace));
-					} else {
-						lClass.getOrCreateFieldMapping(aField.getSrcName(), srcDesc)
-								.setDeobfuscatedName(aField.getDstName(dstNamespace));
-					}
-				}
-
-				for (MappingTree.MethodMapping aMethod : aClass.getMethods()) {
-					MethodMapping lMethod = lClass.getOrCreateMethodMapping(aMethod.getSrcName(), aMethod.getSrcDesc())
-							.setDeobfuscatedName(aMethod.getDstName(dstNamespace));
-
-					if (applyParameterMappings) {
-						for (MappingTree.MethodArgMapping aArg : aMethod.getArgs()) {
-							lMethod.getOrCreateParameterMapping(aArg.getLvIndex())
-									.setDeobfuscatedName(aArg.getDstName(dstNamespace));
-						}
-					}
-				}
+			for (MappingTree.MethodMapping methodDef : classDef.getMethods()) {
+				builder.append('\t').append(methodDef.getSrcName()).append(' ').append(methodDef.getSrcDesc())
+						.append(' ').append(methodDef.getName(dst)).append('\n');
 			}
 
-			return mappings;
+			writer.append(builder);
+			builder.setLength(0);
 		}
 	}
 }
@@ -24,6 +24,8 @@
 
 package net.fabricmc.loom.util.srg;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -41,17 +43,36 @@ public class Tsrg2Writer {
 		writeHeader(namespaces, builder);
 
 		for (MappingTree.ClassMapping classMapping : tree.getClasses()) {
-			writeClass(namespaces, classMapping, builder);
+			writeClass(namespaces, classMapping, true, builder);
 		}
 
 		return builder.toString();
 	}
 
-	private static void writeClass(List<String> namespaces, MappingTree.ClassMapping def, StringBuilder builder) {
+	/**
+	 * Writes the tree class by class, without building the whole file in memory.
+	 *
+	 * @param writeArgs whether method argument mappings are written
+	 */
+	public static void write(MappingTree tree, Writer writer, boolean writeArgs) throws IOException {
+		List<String> namespaces = Stream.concat(Stream.of(tree.getSrcNamespace()), tree.getDstNamespaces().stream()).collect(Collectors.toList());
+		StringBuilder builder = new StringBuilder();
+		writeHeader(namespaces, builder);
+
+		for (MappingTree.ClassMapping classMapping : tree.getClasses()) {
+			writeClass(namespaces, classMapping, writeArgs, builder);
+			writer.append(builder);
+			builder.setLength(0);
+		}
+
+		writer.append(builder);
+	}
+
+	private static void writeClass(List<String> namespaces, MappingTree.ClassMapping def, boolean writeArgs, StringBuilder builder) {
 		writeMapped(null, namespaces, def, builder);
 
 		for (MappingTree.MethodMapping method : def.getMethods()) {
-			writeMethod(namespaces, method, builder);
+			writeMethod(namespaces, method, writeArgs, builder);
 		}
 
 		for (MappingTree.FieldMapping field : def.getFields()) {
@@ -59,8 +80,9 @@ public class Tsrg2Writer {
 		}
 	}
 
-	private static void writeMethod(List<String> namespaces, MappingTree.MethodMapping def, StringBuilder builder) {
+	private static void writeMethod(List<String> namespaces, MappingTree.MethodMapping def, boolean writeArgs, StringBuilder builder) {
 		writeMapped('\t', namespaces, def, builder);
+		if (!writeArgs) return;
 
 		for (MappingTree.MethodArgMapping arg : def.getArgs()) {
 			builder.append("\t\t").append(arg.getLvIndex());
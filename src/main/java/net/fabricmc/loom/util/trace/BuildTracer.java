@@ -0,0 +1,229 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.trace;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.stream.JsonWriter;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.util.service.SharedService;
+import net.fabricmc.loom.util.service.SharedServiceManager;
+
+/**
+ * Records {@link TraceSpan}s for the expensive steps of a build, such as providers, remapping, jar processors, MCP steps,
+ * forked tools, downloads and decompiling.
+ *
+ * <p>Tracing is enabled with the {@code fabric.loom.trace} gradle property. When the build finishes a Chrome trace is written
+ * to {@code build/loom-trace.json} of the root project, it can be opened with {@code chrome://tracing} or Perfetto,
+ * and a summary is logged. When tracing is disabled spans are free to create and record nothing.
+ */
+public final class BuildTracer implements SharedService {
+	public static final String PROPERTY = "fabric.loom.trace";
+	private static final BuildTracer DISABLED = new BuildTracer(null, null);
+	private static final int SLOWEST_SPANS = 10;
+
+	@Nullable
+	private final Path output;
+	@Nullable
+	private final Logger logger;
+	private final long startNanos = System.nanoTime();
+	private final Queue<Record> records = new ConcurrentLinkedQueue<>();
+
+	private BuildTracer(@Nullable Path output, @Nullable Logger logger) {
+		this.output = output;
+		this.logger = logger;
+	}
+
+	public static BuildTracer get(Project project) {
+		if (!isEnabled(project)) {
+			return DISABLED;
+		}
+
+		final Project rootProject = project.getRootProject();
+		return SharedServiceManager.get(project).getOrCreateService("BuildTracer", () -> new BuildTracer(rootProject.getBuildDir().toPath().resolve("loom-trace.json"), rootProject.getLogger()));
+	}
+
+	public static boolean isEnabled(Project project) {
+		return project.getProviders().gradleProperty(PROPERTY).map(Boolean::parseBoolean).getOrElse(false);
+	}
+
+	/**
+	 * Starts a new span, to be closed once the work is done.
+	 *
+	 * @param category the kind of work, used to group the summary, for example {@code remap}
+	 * @param name the specific piece of work, for example the jar being remapped
+	 */
+	public TraceSpan span(String category, String name) {
+		return new TraceSpan(output != null ? this : null, category, name);
+	}
+
+	void record(Record record) {
+		records.add(record);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (output == null || records.isEmpty()) {
+			return;
+		}
+
+		final List<Record> records = new ArrayList<>(this.records);
+		records.sort(Comparator.comparingLong(Record::startNanos));
+
+		writeChromeTrace(records, output);
+		logSummary(records);
+	}
+
+	private void writeChromeTrace(List<Record> records, Path output) throws IOException {
+		Files.createDirectories(output.getParent());
+
+		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+				JsonWriter json = new JsonWriter(writer)) {
+			json.beginObject();
+			json.name("displayTimeUnit").value("ms");
+			json.name("traceEvents").beginArray();
+
+			final Map<Long, String> threadNames = new LinkedHashMap<>();
+
+			for (Record record : records) {
+				threadNames.putIfAbsent(record.threadId(), record.threadName());
+
+				json.beginObject();
+				json.name("name").value(record.name());
+				json.name("cat").value(record.category());
+				json.name("ph").value("X");
+				json.name("pid").value(1);
+				json.name("tid").value(record.threadId());
+				json.name("ts").value(TimeUnit.NANOSECONDS.toMicros(record.startNanos() - startNanos));
+				json.name("dur").value(TimeUnit.NANOSECONDS.toMicros(record.wallNanos()));
+
+				json.name("args").beginObject();
+
+				if (record.cpuNanos() >= 0) {
+					json.name("cpuMs").value(TimeUnit.NANOSECONDS.toMillis(record.cpuNanos()));
+				}
+
+				json.name("bytesRead").value(record.bytesRead());
+				json.name("bytesWritten").value(record.bytesWritten());
+
+				if (record.cacheHit() != null) {
+					json.name("cache").value(record.cacheHit() ? "hit" : "miss");
+				}
+
+				json.endObject();
+				json.endObject();
+			}
+
+			for (Map.Entry<Long, String> entry : threadNames.entrySet()) {
+				json.beginObject();
+				json.name("name").value("thread_name");
+				json.name("ph").value("M");
+				json.name("pid").value(1);
+				json.name("tid").value(entry.getKey());
+				json.name("args").beginObject().name("name").value(entry.getValue()).endObject();
+				json.endObject();
+			}
+
+			json.endArray();
+			json.endObject();
+		}
+	}
+
+	private void logSummary(List<Record> records) {
+		final Map<String, Summary> summaries = new LinkedHashMap<>();
+
+		for (Record record : records) {
+			summaries.computeIfAbsent(record.category(), c -> new Summary()).add(record);
+		}
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Loom build trace written to ").append(output).append('\n');
+		sb.append(String.format("%-12s %6s %10s %10s %10s %10s %6s %6s%n", "category", "spans", "wall ms", "cpu ms", "read MB", "write MB", "hits", "misses"));
+
+		summaries.entrySet().stream()
+				.sorted(Comparator.comparingLong((Map.Entry<String, Summary> e) -> e.getValue().wallNanos).reversed())
+				.forEach(entry -> {
+					final Summary summary = entry.getValue();
+					sb.append(String.format("%-12s %6d %10d %10d %10.1f %10.1f %6d %6d%n",
+							entry.getKey(), summary.count,
+							TimeUnit.NANOSECONDS.toMillis(summary.wallNanos), TimeUnit.NANOSECONDS.toMillis(summary.cpuNanos),
+							summary.bytesRead / 1048576D, summary.bytesWritten / 1048576D,
+							summary.hits, summary.misses));
+				});
+
+		sb.append("Slowest spans:\n");
+
+		records.stream()
+				.sorted(Comparator.comparingLong(Record::wallNanos).reversed())
+				.limit(SLOWEST_SPANS)
+				.forEach(record -> sb.append(String.format("%10d ms  %s: %s%n", TimeUnit.NANOSECONDS.toMillis(record.wallNanos()), record.category(), record.name())));
+
+		logger.lifecycle(sb.toString());
+	}
+
+	record Record(String category, String name, long threadId, String threadName, long startNanos, long wallNanos, long cpuNanos, long bytesRead, long bytesWritten, @Nullable Boolean cacheHit) {
+	}
+
+	private static final class Summary {
+		private int count;
+		private long wallNanos;
+		private long cpuNanos;
+		private long bytesRead;
+		private long bytesWritten;
+		private int hits;
+		private int misses;
+
+		private void add(Record record) {
+			count++;
+			wallNanos += record.wallNanos();
+			cpuNanos += Math.max(0, record.cpuNanos());
+			bytesRead += record.bytesRead();
+			bytesWritten += record.bytesWritten();
+
+			if (record.cacheHit() != null) {
+				if (record.cacheHit()) {
+					hits++;
+				} else {
+					misses++;
+				}
+			}
+		}
+	}
+}
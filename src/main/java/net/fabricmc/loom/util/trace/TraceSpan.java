@@ -0,0 +1,121 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.trace;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A timed section of the build, created with {@link BuildTracer#span(String, String)} and closed once the work is done.
+ * Spans must be closed on the thread that created them, to measure the CPU time.
+ */
+public final class TraceSpan implements AutoCloseable {
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+	@Nullable
+	private final BuildTracer tracer;
+	private final String category;
+	private final String name;
+	private final Thread thread;
+	private final long startNanos;
+	private final long startCpuNanos;
+	private long bytesRead;
+	private long bytesWritten;
+	@Nullable
+	private Boolean cacheHit;
+	private boolean closed;
+
+	TraceSpan(@Nullable BuildTracer tracer, String category, String name) {
+		this.tracer = tracer;
+		this.category = category;
+		this.name = name;
+		this.thread = Thread.currentThread();
+		this.startNanos = tracer != null ? System.nanoTime() : 0;
+		this.startCpuNanos = tracer != null ? getCpuTime() : 0;
+	}
+
+	public TraceSpan bytesRead(long bytes) {
+		bytesRead += bytes;
+		return this;
+	}
+
+	public TraceSpan bytesWritten(long bytes) {
+		bytesWritten += bytes;
+		return this;
+	}
+
+	/**
+	 * Adds the size of the file to the bytes read, does nothing if it does not exist.
+	 */
+	public TraceSpan read(Path path) {
+		return bytesRead(size(path));
+	}
+
+	/**
+	 * Adds the size of the file to the bytes written, does nothing if it does not exist.
+	 */
+	public TraceSpan wrote(Path path) {
+		return bytesWritten(size(path));
+	}
+
+	public TraceSpan cacheHit(boolean hit) {
+		cacheHit = hit;
+		return this;
+	}
+
+	@Override
+	public void close() {
+		if (tracer == null || closed) {
+			return;
+		}
+
+		closed = true;
+
+		final long wallNanos = System.nanoTime() - startNanos;
+		final long cpuNanos = startCpuNanos >= 0 && thread == Thread.currentThread() ? getCpuTime() - startCpuNanos : -1;
+		tracer.record(new BuildTracer.Record(category, name, thread.getId(), thread.getName(), startNanos, wallNanos, cpuNanos, bytesRead, bytesWritten, cacheHit));
+	}
+
+	private long size(Path path) {
+		if (tracer == null) {
+			return 0;
+		}
+
+		try {
+			return Files.isRegularFile(path) ? Files.size(path) : 0;
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private static long getCpuTime() {
+		return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.LoomGradleExtension
+import net.fabricmc.loom.configuration.accesswidener.AccessWidenerJarProcessor
+import net.fabricmc.loom.configuration.processors.JarProcessorManager
+import net.fabricmc.loom.test.util.GradleTestUtil
+import net.fabricmc.loom.util.Constants
+import net.fabricmc.loom.util.ZipUtils
+import org.gradle.api.Project
+import org.gradle.api.file.RegularFile
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.logging.Logging
+import org.gradle.api.provider.Provider
+import org.gradle.api.provider.ProviderFactory
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import static org.mockito.ArgumentMatchers.any
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+
+class AccessWidenerJarProcessorTest extends Specification {
+    def "changing an inner class entry processes the outer class again"() {
+        given:
+            def inputJar = createJar()
+            def outputJar = Files.createTempDirectory("loom-aw").resolve("processed.jar")
+
+        when:
+            process(inputJar, outputJar, "accessible\tclass\ta/B\n")
+            def before = innerClassAccess(outputJar, "a/B")
+
+            process(inputJar, outputJar, "accessible\tclass\ta/B\naccessible\tclass\ta/B\$C\n")
+            def after = innerClassAccess(outputJar, "a/B")
+
+        then:
+            (before & Opcodes.ACC_PRIVATE) != 0
+            (after & Opcodes.ACC_PUBLIC) != 0
+            (after & Opcodes.ACC_PRIVATE) == 0
+    }
+
+    static void process(Path inputJar, Path outputJar, String entries) {
+        def accessWidener = Files.createTempFile("loom-aw", ".accesswidener")
+        accessWidener.text = "accessWidener\tv2\tnamed\n" + entries
+
+        def project = mockProject(accessWidener)
+        def processor = new AccessWidenerJarProcessor(project)
+        def manager = new JarProcessorManager(project, [processor])
+        manager.setupProcessors()
+        manager.process(inputJar, outputJar)
+    }
+
+    static Project mockProject(Path accessWidener) {
+        def project = GradleTestUtil.mockProject()
+        when(project.getLogger()).thenReturn(Logging.getLogger(AccessWidenerJarProcessorTest))
+
+        def regularFile = mock(RegularFile.class)
+        when(regularFile.getAsFile()).thenReturn(accessWidener.toFile())
+        def property = mock(RegularFileProperty.class)
+        when(property.get()).thenReturn(regularFile)
+        def extension = LoomGradleExtension.get(project)
+        when(extension.getAccessWidenerPath()).thenReturn(property)
+
+        // Tracing is disabled
+        def provider = mock(Provider.class)
+        when(provider.map(any())).thenReturn(provider)
+        when(provider.getOrElse(any())).thenReturn(false)
+        def providers = mock(ProviderFactory.class)
+        when(providers.gradleProperty(any(String.class))).thenReturn(provider)
+        when(project.getProviders()).thenReturn(providers)
+
+        return project
+    }
+
+    static int innerClassAccess(Path jar, String className) {
+        int access = -1
+
+        new ClassReader(ZipUtils.unpack(jar, className + ".class")).accept(new ClassVisitor(Constants.ASM_VERSION) {
+            @Override
+            void visitInnerClass(String name, String outerName, String innerName, int innerAccess) {
+                access = innerAccess
+            }
+        }, 0)
+
+        return access
+    }
+
+    static Path createJar() {
+        def jar = File.createTempFile("loom-aw", ".jar")
+
+        new ZipOutputStream(new FileOutputStream(jar)).withCloseable { out ->
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"))
+            out.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8))
+            out.closeEntry()
+
+            out.putNextEntry(new ZipEntry("a/B.class"))
+            out.write(createClass("a/B"))
+            out.closeEntry()
+
+            out.putNextEntry(new ZipEntry("a/B\$C.class"))
+            out.write(createClass("a/B\$C"))
+            out.closeEntry()
+        }
+
+        return jar.toPath()
+    }
+
+    static byte[] createClass(String name) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V17, Opcodes.ACC_SUPER, name, null, "java/lang/Object", null)
+        writer.visitInnerClass("a/B\$C", "a/B", "C", Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC)
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+}
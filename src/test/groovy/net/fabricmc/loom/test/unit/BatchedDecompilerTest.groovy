@@ -0,0 +1,144 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.api.decompilers.DecompilationMetadata
+import net.fabricmc.loom.api.decompilers.LoomDecompiler
+import net.fabricmc.loom.decompilers.BatchedDecompiler
+import net.fabricmc.loom.decompilers.DecompiledSourcesSink
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+class BatchedDecompilerTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "inner classes stay with their outer class"() {
+        when:
+            def batches = BatchedDecompiler.createBatches([
+                    "a/A.class", "a/A\$1.class", "a/A\$Inner.class", "a/B.class", "b/C.class", "b/C\$D\$E.class", "assets/a.png", "a/"
+            ], 2)
+
+        then:
+            batches == [
+                    ["a/A.class", "a/A\$1.class", "a/A\$Inner.class"],
+                    ["a/B.class"],
+                    ["b/C.class", "b/C\$D\$E.class"]
+            ]
+    }
+
+    def "batches are merged into one sources jar"() {
+        given:
+            def input = tempDir.resolve("input.jar")
+            new ZipOutputStream(Files.newOutputStream(input)).withCloseable { zip ->
+                [
+                        "a/A": createClass("a/A", "a/B", null),
+                        "a/A\$Inner": createClass("a/A\$Inner", "java/lang/Object", null),
+                        "a/B": createClass("a/B", "java/lang/Object", null),
+                        "b/C": createClass("b/C", "java/lang/Object", "La/A\$Inner;"),
+                        "b/D": createClass("b/D", "java/lang/Object", "Ljava/lang/String;")
+                ].each { name, bytes ->
+                    zip.putNextEntry(new ZipEntry(name + ".class"))
+                    zip.write(bytes)
+                    zip.closeEntry()
+                }
+            }
+            def javadocs = tempDir.resolve("javadocs.tiny")
+            javadocs.text = "tiny\t2\t0\tintermediary\tnamed\nc\tclass_1\ta/A\n\tc\tThe A class.\nc\tclass_2\tb/D\n\tc\tThe D class.\n"
+            def sources = tempDir.resolve("sources.jar")
+            def linemap = tempDir.resolve("sources.lmap")
+            def decompiler = new FakeDecompiler()
+
+        when:
+            new BatchedDecompiler(decompiler, 2).decompile(input, sources, linemap, new DecompilationMetadata(1, javadocs, [], { }, [:]))
+
+        then:
+            decompiler.batches == [["a/A.class", "a/A\$Inner.class"], ["a/B.class", "b/C.class"], ["b/D.class"]]
+            // Each batch only gets the classes it references, their supertypes and outer classes, never the whole jar
+            !decompiler.libraries.flatten().contains(input)
+            decompiler.libraryClasses == [["a/B.class"], ["a/A.class", "a/A\$Inner.class"], []]
+            // and only the javadocs of its own classes
+            decompiler.javadocClasses == [["class_1"], [], ["class_2"]]
+            new ZipFile(sources.toFile()).withCloseable { zip ->
+                assert zip.getInputStream(zip.getEntry("a/A.java")).text == "a/A"
+                assert zip.getInputStream(zip.getEntry("b/C.java")).text == "b/C"
+                assert zip.getEntry("META-INF/MANIFEST.MF") != null
+                true
+            }
+            Files.exists(linemap)
+            tempDir.toFile().list().toList().sort() == ["input.jar", "javadocs.tiny", "sources.jar", "sources.lmap"]
+    }
+
+    static byte[] createClass(String name, String superName, String fieldDescriptor) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, superName, null)
+
+        if (fieldDescriptor != null) {
+            writer.visitField(Opcodes.ACC_PUBLIC, "field", fieldDescriptor, null, null).visitEnd()
+        }
+
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static class FakeDecompiler implements LoomDecompiler {
+        List<List<String>> batches = []
+        List<Collection<Path>> libraries = []
+        List<List<String>> libraryClasses = []
+        List<List<String>> javadocClasses = []
+
+        @Override
+        void decompile(Path compiledJar, Path sourcesDestination, Path linemapDestination, DecompilationMetadata metaData) {
+            libraries.add(metaData.libraries())
+            libraryClasses.add(metaData.libraries().collectMany { library ->
+                new ZipFile(library.toFile()).withCloseable { zip -> zip.entries().toList()*.name }
+            })
+            javadocClasses.add(metaData.javaDocs().readLines().findAll { it.startsWith("c\t") }.collect { it.split("\t")[1] })
+
+            new ZipFile(compiledJar.toFile()).withCloseable { zip ->
+                def names = zip.entries().toList()*.name
+                batches.add(names)
+
+                new DecompiledSourcesSink(sourcesDestination, linemapDestination).withCloseable { sink ->
+                    sink.addSource("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n")
+
+                    names.findAll { !it.contains('$') }.each {
+                        def name = it.substring(0, it.length() - ".class".length())
+                        sink.addSource(name + ".java", name)
+                        sink.addLineMapping(name, [1, 2] as int[])
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.util.Checksum
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.TimeUnit
+
+class ChecksumTest extends Specification {
+    def "sha1 of file"() {
+        given:
+            def file = File.createTempFile("loom-checksum-test", ".txt")
+            file.text = "hello"
+
+        expect:
+            Checksum.sha1Hex(file.toPath()) == "aaf4c61ddcc5e8a2dabede0f3b482cd9aea9434d"
+            Checksum.equals(file, "aaf4c61ddcc5e8a2dabede0f3b482cd9aea9434d")
+            Checksum.truncatedSha256(file) == "2cf24dba5fb0"
+    }
+
+    def "changed file is hashed again"() {
+        given:
+            def file = File.createTempFile("loom-checksum-test", ".txt")
+            file.text = "hello"
+            // Old enough for the hash to be remembered
+            Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1)))
+            def first = Checksum.sha1Hex(file.toPath())
+
+        when:
+            file.text = "world"
+            def second = Checksum.sha1Hex(file.toPath())
+
+        then:
+            first == "aaf4c61ddcc5e8a2dabede0f3b482cd9aea9434d"
+            second == "7c211433f02071597741e6ff5a8ea34789abbf43"
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.util.ClassDataSharing
+import org.gradle.api.logging.Logging
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ClassDataSharingTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "archive is created then used, and replaced when the classpath changes"() {
+        given:
+            def archiveDir = tempDir.resolve("cds")
+            def jar = tempDir.resolve("lib.jar")
+            jar.text = "jar"
+            def classpath = [jar.toFile()]
+
+        when:
+            def first = jvmArgs(archiveDir, classpath)
+            def archive = Path.of(first[0].substring("-XX:ArchiveClassesAtExit=".length()))
+            archive.text = "archive"
+            def second = jvmArgs(archiveDir, classpath)
+
+            jar.text = "changed jar"
+            def third = jvmArgs(archiveDir, classpath)
+
+        then:
+            first[0].startsWith("-XX:ArchiveClassesAtExit=")
+            second == ["-XX:SharedArchiveFile=" + archive]
+            third[0].startsWith("-XX:ArchiveClassesAtExit=")
+            third[0] != first[0]
+            !Files.exists(archive)
+    }
+
+    def "class directories before jars disable the archive"() {
+        given:
+            def classes = Files.createDirectories(tempDir.resolve("classes"))
+            classes.resolve("Example.class").text = "class"
+            def jar = tempDir.resolve("lib.jar")
+            jar.text = "jar"
+
+        expect:
+            jvmArgs(tempDir.resolve("cds"), [classes.toFile(), jar.toFile()]).isEmpty()
+            !jvmArgs(tempDir.resolve("cds"), [jar.toFile(), classes.toFile()]).isEmpty()
+    }
+
+    def "run classpath layout is not archived"() {
+        given:
+            // The runtime classpath of the main source set: its output directories, then the Minecraft jar, libraries and DLI
+            def classes = Files.createDirectories(tempDir.resolve("build/classes/java/main"))
+            classes.resolve("Example.class").text = "class"
+            def resources = Files.createDirectories(tempDir.resolve("build/resources/main"))
+            resources.resolve("fabric.mod.json").text = "{}"
+            def emptyKotlinClasses = Files.createDirectories(tempDir.resolve("build/classes/kotlin/main"))
+            def classpath = [
+                    classes.toFile(),
+                    emptyKotlinClasses.toFile(),
+                    resources.toFile(),
+                    jar("minecraft-merged-named.jar"),
+                    jar("fabric-loader-0.14.9.jar"),
+                    jar("guava-31.0.1-jre.jar"),
+                    jar("dev-launch-injector-0.2.1+build.8.jar")
+            ]
+
+        expect:
+            // The order is kept, as the directories take precedence over the jars
+            jvmArgs(tempDir.resolve("cds"), classpath).isEmpty()
+            // Once the directories are a suffix of the classpath it can be archived
+            jvmArgs(tempDir.resolve("cds"), classpath.subList(3, 7) + classpath.subList(0, 3))[0].startsWith("-XX:ArchiveClassesAtExit=")
+    }
+
+    private File jar(String name) {
+        def jar = Files.createDirectories(tempDir.resolve("jars")).resolve(name)
+        jar.text = "jar"
+        return jar.toFile()
+    }
+
+    private static List<String> jvmArgs(Path archiveDir, List<File> classpath) {
+        return ClassDataSharing.getJvmArgs(archiveDir, "runClient", classpath, "net.fabricmc.devlaunchinjector.Main", "java:17", Logging.getLogger(ClassDataSharingTest))
+    }
+}
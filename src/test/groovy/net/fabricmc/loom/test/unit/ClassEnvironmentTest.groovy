@@ -0,0 +1,91 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.util.ClassEnvironment
+import net.fabricmc.loom.util.MappingTreeRemapper
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.format.MappingFormat
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ClassEnvironmentTest extends Specification {
+    private static final String MAPPINGS = """
+tiny\t2\t0\tintermediary\tnamed
+c\tjava/util/AbstractList\tjava/util/NamedList
+\tm\t(Ljava/lang/Object;)Z\tadd\tappend
+""".trim()
+
+    def "read classes"() {
+        given:
+            def environment = ClassEnvironment.read([createJar(ArrayList, AbstractList)])
+
+        expect:
+            environment.getClassNames() == ["java/util/ArrayList", "java/util/AbstractList"] as Set
+            environment.getClass("java/util/ArrayList").superName() == "java/util/AbstractList"
+            environment.hasMethod("java/util/AbstractList", "add", "(Ljava/lang/Object;)Z")
+            !environment.hasMethod("java/util/AbstractList", "add", "(Ljava/lang/String;)Z")
+            environment.hasField("java/util/AbstractList", "modCount", "I")
+            environment.getHierarchy("java/util/ArrayList").take(2) == ["java/util/ArrayList", "java/util/AbstractList"]
+            environment.getClass("java/lang/Object") == null
+    }
+
+    def "remap inherited members"() {
+        given:
+            def tree = new MemoryMappingTree()
+            MappingReader.read(new StringReader(MAPPINGS), MappingFormat.TINY_2, tree)
+            def environment = ClassEnvironment.read([createJar(ArrayList, AbstractList)])
+
+        when:
+            def flat = new MappingTreeRemapper(tree, "intermediary", "named", null)
+            def hierarchy = new MappingTreeRemapper(tree, "intermediary", "named", environment)
+
+        then:
+            flat.map("java/util/AbstractList") == "java/util/NamedList"
+            flat.map("java/util/ArrayList") == "java/util/ArrayList"
+            flat.mapMethodName("java/util/AbstractList", "add", "(Ljava/lang/Object;)Z") == "append"
+            flat.mapMethodName("java/util/ArrayList", "add", "(Ljava/lang/Object;)Z") == "add"
+            hierarchy.mapMethodName("java/util/ArrayList", "add", "(Ljava/lang/Object;)Z") == "append"
+    }
+
+    static Path createJar(Class<?>... classes) {
+        def jar = File.createTempFile("loom-class-environment", ".jar")
+
+        new ZipOutputStream(new FileOutputStream(jar)).withCloseable { out ->
+            for (Class<?> clazz : classes) {
+                def name = clazz.name.replace('.', '/') + ".class"
+                out.putNextEntry(new ZipEntry(name))
+                out.write(ConstantPoolScannerTest.getBytes(clazz))
+                out.closeEntry()
+            }
+        }
+
+        return jar.toPath()
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.util.ConstantPoolScanner
+import spock.lang.Specification
+
+class ConstantPoolScannerTest extends Specification {
+    def "exact match"() {
+        given:
+            def bytes = getBytes(TestMixin.class)
+
+        expect:
+            ConstantPoolScanner.exact("Lorg/spongepowered/asm/mixin/Mixin;").matches(bytes)
+            ConstantPoolScanner.exact("Lkotlin/Metadata;", "Lorg/spongepowered/asm/mixin/Mixin;").matches(bytes)
+            !ConstantPoolScanner.exact("Lkotlin/Metadata;").matches(bytes)
+            !ConstantPoolScanner.exact("Lorg/spongepowered/asm/mixin/").matches(bytes)
+    }
+
+    def "prefix match"() {
+        given:
+            def bytes = getBytes(TestMixin.class)
+
+        expect:
+            ConstantPoolScanner.prefix("Lorg/spongepowered/asm/mixin/").matches(bytes)
+            !ConstantPoolScanner.prefix("net.minecraft.").matches(bytes)
+    }
+
+    def "wide constants"() {
+        given:
+            // Long has long and double constants, which take up two constant pool slots.
+            def bytes = getBytes(Long.class)
+
+        expect:
+            ConstantPoolScanner.exact("toUnsignedString").matches(bytes)
+            !ConstantPoolScanner.exact("Lkotlin/Metadata;").matches(bytes)
+    }
+
+    def "invalid class"() {
+        expect:
+            ConstantPoolScanner.exact("Lkotlin/Metadata;").matches(new byte[] { 1, 2, 3 })
+    }
+
+    static byte[] getBytes(Class<?> clazz) {
+        // JDK classes have no class loader
+        def classLoader = clazz.classLoader ?: ClassLoader.systemClassLoader
+        return classLoader.getResourceAsStream(clazz.name.replace('.', '/') + ".class").withCloseable {
+            return it.readAllBytes()
+        }
+    }
+}
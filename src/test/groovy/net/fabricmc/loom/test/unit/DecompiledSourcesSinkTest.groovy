@@ -0,0 +1,132 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.decompilers.DecompiledSourcesSink
+import net.fabricmc.loom.decompilers.LineNumberRemapper
+import net.fabricmc.loom.util.Constants
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Executors
+import java.util.jar.Attributes
+import java.util.jar.JarFile
+import java.util.jar.Manifest
+
+class DecompiledSourcesSinkTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "sources written from many threads"() {
+        given:
+            def jar = tempDir.resolve("sources.jar")
+            def manifest = new Manifest()
+            manifest.mainAttributes.put(Attributes.Name.MANIFEST_VERSION, "1.0")
+            def executor = Executors.newFixedThreadPool(8)
+
+        when:
+            new DecompiledSourcesSink(jar, null).withCloseable { sink ->
+                sink.writeManifest(manifest)
+                (0..<200).collect { i ->
+                    executor.submit { sink.addSource("net/minecraft/pkg${i % 5}/Class${i}.java", "class Class${i} {}\n" * i) }
+                }*.get()
+                sink.addSource("Empty.java", null)
+            }
+            executor.shutdown()
+
+        then:
+            new JarFile(jar.toFile()).withCloseable { zip ->
+                assert zip.manifest.mainAttributes.getValue(Attributes.Name.MANIFEST_VERSION) == "1.0"
+                assert zip.getEntry("net/minecraft/pkg0/").directory
+                assert zip.getInputStream(zip.getEntry("Empty.java")).bytes.length == 0
+
+                (0..<200).each { i ->
+                    assert zip.getInputStream(zip.getEntry("net/minecraft/pkg${i % 5}/Class${i}.java")).text == "class Class${i} {}\n" * i
+                }
+
+                true
+            }
+    }
+
+    def "binary line maps are read by the line number remapper"() {
+        given:
+            def lineMap = tempDir.resolve("sources.lmap")
+            def input = Files.createDirectories(tempDir.resolve("input/test"))
+            input.resolve("Example.class").bytes = createClass(5)
+            def output = tempDir.resolve("output")
+
+        when:
+            new DecompiledSourcesSink(tempDir.resolve("sources.jar"), lineMap).withCloseable { sink ->
+                sink.addLineMapping("test/Example", [5, 300] as int[])
+                sink.addLineMapping("test/Example", [10, 400] as int[])
+            }
+
+            def remapper = new LineNumberRemapper()
+            remapper.readMappings(lineMap.toFile())
+            remapper.process(null, tempDir.resolve("input"), output)
+
+        then:
+            readLine(output.resolve("test/Example.class")) == 300
+    }
+
+    private static byte[] createClass(int line) {
+        def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "test/Example", null, "java/lang/Object", null)
+        def method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null)
+        method.visitCode()
+        def start = new Label()
+        method.visitLabel(start)
+        method.visitLineNumber(line, start)
+        method.visitInsn(Opcodes.RETURN)
+        method.visitMaxs(0, 0)
+        method.visitEnd()
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static int readLine(Path classFile) {
+        int line = -1
+        new ClassReader(classFile.bytes).accept(new ClassVisitor(Constants.ASM_VERSION) {
+            @Override
+            MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Constants.ASM_VERSION) {
+                    @Override
+                    void visitLineNumber(int l, Label start) {
+                        line = l
+                    }
+                }
+            }
+        }, 0)
+        return line
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import dev.architectury.tinyremapper.TinyRemapper
+import net.fabricmc.loom.task.IncrementalRemapCache
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class IncrementalRemapCacheTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "only changed classes are remapped"() {
+        given:
+            def cacheDir = tempDir.resolve("cache")
+            def jar = tempDir.resolve("input.jar")
+            writeJar(jar, 1, false)
+            def first = prepare(cacheDir, jar)
+            def firstOutput = remap(first)
+
+        when:
+            writeJar(jar, 2, false)
+            def second = prepare(cacheDir, jar)
+            def secondOutput = remap(second)
+
+        then:
+            !first.incremental
+            firstOutput.keySet() == ["test/A", "test/B"] as Set
+
+            second.incremental
+            second.changedClassCount == 1
+            secondOutput.keySet() == ["test/A", "test/B"] as Set
+            secondOutput["test/B"] == firstOutput["test/B"]
+            secondOutput["test/A"] != firstOutput["test/A"]
+    }
+
+    def "structural changes remap everything"() {
+        given:
+            def cacheDir = tempDir.resolve("cache")
+            def jar = tempDir.resolve("input.jar")
+            writeJar(jar, 1, false)
+            remap(prepare(cacheDir, jar))
+
+        when:
+            writeJar(jar, 1, true)
+            def cache = prepare(cacheDir, jar)
+
+        then:
+            !cache.incremental
+            cache.changedClassCount == 2
+    }
+
+    private static IncrementalRemapCache prepare(Path cacheDir, Path jar) {
+        return IncrementalRemapCache.prepare(cacheDir, jar, "test", [], [])
+    }
+
+    private static Map<String, byte[]> remap(IncrementalRemapCache cache) {
+        def remapper = TinyRemapper.newRemapper().build()
+        def output = [:]
+
+        try {
+            def tag = remapper.createInputTag()
+            remapper.readInputs(tag, cache.input)
+
+            if (cache.unchangedClasspath != null) {
+                remapper.readClassPath(cache.unchangedClasspath)
+            }
+
+            cache.apply(remapper, tag, { name, bytes -> output[name] = bytes })
+        } finally {
+            remapper.finish()
+        }
+
+        return output
+    }
+
+    private static void writeJar(Path jar, int value, boolean extraMethod) {
+        new ZipOutputStream(jar.newOutputStream()).withCloseable { out ->
+            out.putNextEntry(new ZipEntry("test/A.class"))
+            out.write(createClass("test/A", value, extraMethod))
+            out.closeEntry()
+
+            out.putNextEntry(new ZipEntry("test/B.class"))
+            out.write(createClass("test/B", 0, false))
+            out.closeEntry()
+        }
+    }
+
+    private static byte[] createClass(String name, int value, boolean extraMethod) {
+        def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+
+        def method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "value", "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(value)
+        method.visitInsn(Opcodes.IRETURN)
+        method.visitMaxs(0, 0)
+        method.visitEnd()
+
+        if (extraMethod) {
+            writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "extra", "()V", null, null).visitEnd()
+        }
+
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+}
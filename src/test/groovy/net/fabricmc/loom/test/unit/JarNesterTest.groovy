@@ -0,0 +1,76 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import groovy.json.JsonSlurper
+import net.fabricmc.loom.build.nesting.JarNester
+import net.fabricmc.loom.util.ModPlatform
+import org.slf4j.LoggerFactory
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+class JarNesterTest extends Specification {
+    @TempDir
+    Path tempDir
+
+    def "nested jars are stored and listed in fabric.mod.json"() {
+        given:
+            def modJar = writeJar("mod.jar", ["fabric.mod.json": '{"id": "mod"}', "mod/Mod.class": "class"])
+            def nested = writeJar("nested.jar", ["fabric.mod.json": '{"id": "nested"}'])
+
+        when:
+            JarNester.nestJars([nested.toFile()], [], modJar.toFile(), ModPlatform.FABRIC, LoggerFactory.getLogger(JarNesterTest))
+
+        then:
+            new ZipFile(modJar.toFile()).withCloseable { zip ->
+                def entry = zip.getEntry("META-INF/jars/nested.jar")
+                assert entry.method == ZipEntry.STORED
+                assert zip.getInputStream(entry).bytes == nested.bytes
+                assert zip.getInputStream(zip.getEntry("mod/Mod.class")).text == "class"
+
+                def json = new JsonSlurper().parse(zip.getInputStream(zip.getEntry("fabric.mod.json")))
+                assert json.id == "mod"
+                assert json.jars == [[file: "META-INF/jars/nested.jar"]]
+                true
+            }
+    }
+
+    private Path writeJar(String name, Map<String, String> entries) {
+        def jar = tempDir.resolve(name)
+        new ZipOutputStream(jar.newOutputStream()).withCloseable { out ->
+            entries.each { path, content ->
+                out.putNextEntry(new ZipEntry(path))
+                out.write(content.bytes)
+                out.closeEntry()
+            }
+        }
+        return jar
+    }
+}
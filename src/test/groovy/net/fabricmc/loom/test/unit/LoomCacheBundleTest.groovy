@@ -0,0 +1,116 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.util.AttributeHelper
+import net.fabricmc.loom.util.LoomCacheBundle
+import org.gradle.api.logging.Logging
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.FileSystems
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+class LoomCacheBundleTest extends Specification {
+    private static final String SHA1 = "2aae6c35c94fcfb415dbe95f408b9ce91ee846ed" // "hello world"
+
+    @TempDir
+    Path tempDir
+
+    def "round trip into different cache roots"() {
+        given:
+            def source = roots("source")
+            def file = write(source.user.resolve("1.19/minecraft-client.jar"), "hello world")
+            AttributeHelper.writeAttribute(file, "LoomHash", "sha1:" + SHA1)
+            write(source.rootProject.resolve("mappings.tiny"), "hello world")
+            def bundle = tempDir.resolve("bundle.zip")
+
+        when:
+            def entries = LoomCacheBundle.export(source, [file, source.rootProject.resolve("mappings.tiny")], bundle, Logging.getLogger(LoomCacheBundleTest))
+            def target = roots("target")
+            def result = LoomCacheBundle.importBundle(bundle, target)
+            def again = LoomCacheBundle.importBundle(bundle, target)
+
+        then:
+            entries*.path == ["1.19/minecraft-client.jar", "mappings.tiny"]
+            entries.every { it.sha1() == SHA1 }
+            result.imported() == 2
+            again.upToDate() == 2
+            target.user.resolve("1.19/minecraft-client.jar").text == "hello world"
+            target.rootProject.resolve("mappings.tiny").text == "hello world"
+            AttributeHelper.readAttribute(target.user.resolve("1.19/minecraft-client.jar"), "LoomHash").get() == "sha1:" + SHA1
+    }
+
+    def "corrupt blobs are rejected"() {
+        given:
+            def source = roots("source")
+            def file = write(source.user.resolve("version_manifest.json"), "hello world")
+            def bundle = tempDir.resolve("bundle.zip")
+            LoomCacheBundle.export(source, [file], bundle, Logging.getLogger(LoomCacheBundleTest))
+
+            FileSystems.newFileSystem(bundle).withCloseable {
+                Files.writeString(it.getPath("blobs", SHA1), "hello wurld", StandardOpenOption.TRUNCATE_EXISTING)
+            }
+
+        when:
+            def target = roots("target")
+            LoomCacheBundle.importBundle(bundle, target)
+
+        then:
+            def e = thrown(IOException)
+            e.message.contains("Corrupt cache entry")
+            !Files.exists(target.user.resolve("version_manifest.json"))
+    }
+
+    def "mismatched download hashes are rejected"() {
+        given:
+            def source = roots("source")
+            def file = write(source.user.resolve("version_manifest.json"), "hello world")
+            AttributeHelper.writeAttribute(file, "LoomHash", "sha1:0000000000000000000000000000000000000000")
+            def bundle = tempDir.resolve("bundle.zip")
+            LoomCacheBundle.export(source, [file], bundle, Logging.getLogger(LoomCacheBundleTest))
+
+        when:
+            LoomCacheBundle.importBundle(bundle, roots("target"))
+
+        then:
+            thrown(IOException)
+    }
+
+    private Map<String, Path> roots(String name) {
+        return [
+            (LoomCacheBundle.USER_CACHE): Files.createDirectories(tempDir.resolve(name).resolve("user")),
+            (LoomCacheBundle.ROOT_PROJECT_CACHE): Files.createDirectories(tempDir.resolve(name).resolve("project"))
+        ]
+    }
+
+    private static Path write(Path path, String content) {
+        Files.createDirectories(path.parent)
+        Files.writeString(path, content)
+        return path
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import com.google.common.hash.Hashing
+import net.fabricmc.loom.configuration.providers.minecraft.MinecraftJarMerger
+import net.fabricmc.stitch.merge.JarMerger
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.TimeUnit
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+class MinecraftJarMergerTest extends Specification {
+    def "produces the same jar as stitch"() {
+        given:
+            def dir = File.createTempDir()
+            def client = createJar(new File(dir, "client.jar"), [
+                    "META-INF/": null,
+                    "META-INF/MANIFEST.MF": "Manifest-Version: 1.0\nMain-Class: net.minecraft.client.main.Main\n",
+                    "META-INF/MOJANGCS.SF": "signature",
+                    "META-INF/MOJANGCS.RSA": "signature",
+                    "Root.class": createClass("Root"),
+                    "assets/": null,
+                    "assets/test.txt": "client asset",
+                    "net/minecraft/Shared.class": createClass("net/minecraft/Shared", "shared"),
+                    "net/minecraft/Merged.class": createClass("net/minecraft/Merged", "shared", "clientOnly"),
+                    "net/minecraft/client/Client.class": createClass("net/minecraft/client/Client", "render"),
+                    "version.json": "{\"id\": \"client\"}"
+            ])
+            def server = createJar(new File(dir, "server.jar"), [
+                    "META-INF/MANIFEST.MF": "Manifest-Version: 1.0\nMain-Class: net.minecraft.server.Main\n",
+                    "com/example/Library.class": createClass("com/example/Library"),
+                    "data/test.json": "{}",
+                    "net/minecraft/Shared.class": createClass("net/minecraft/Shared", "shared"),
+                    "net/minecraft/Merged.class": createClass("net/minecraft/Merged", "shared", "serverOnly"),
+                    "net/minecraft/server/Server.class": createClass("net/minecraft/server/Server", "tick"),
+                    "version.json": "{\"id\": \"server\"}"
+            ])
+            def stitchJar = new File(dir, "stitch.jar")
+            def loomJar = new File(dir, "loom.jar")
+
+        when:
+            new JarMerger(client.toFile(), server.toFile(), stitchJar).withCloseable {
+                it.enableSyntheticParamsOffset()
+                it.merge()
+            }
+
+            def merger = new MinecraftJarMerger(client, server, loomJar.toPath())
+            merger.enableSyntheticParamsOffset()
+            merger.merge()
+
+            def expected = entries(stitchJar)
+            def actual = entries(loomJar)
+
+        then:
+            // Same entries, in the same order, with the same contents and timestamps
+            actual == expected
+
+            // Sanity check the fixture exercises the interesting cases
+            expected.any { it.name == "net/minecraft/Merged.class" }
+            expected.any { it.name == "net/minecraft/" && it.directory }
+            !expected.any { it.name == "com/example/Library.class" || it.name.endsWith(".SF") || it.name.endsWith(".RSA") }
+    }
+
+    static Path createJar(File file, Map<String, Object> entries) {
+        long time = TimeUnit.DAYS.toMillis(365 * 40)
+
+        new ZipOutputStream(new FileOutputStream(file)).withCloseable { out ->
+            entries.each { name, content ->
+                def entry = new ZipEntry(name)
+                entry.setLastModifiedTime(FileTime.fromMillis(time += TimeUnit.MINUTES.toMillis(3)))
+
+                if (name == "net/minecraft/Merged.class") {
+                    entry.setCreationTime(FileTime.fromMillis(time - TimeUnit.DAYS.toMillis(1)))
+                }
+
+                out.putNextEntry(entry)
+
+                if (content != null) {
+                    out.write(content instanceof String ? content.getBytes(StandardCharsets.UTF_8) : content as byte[])
+                }
+
+                out.closeEntry()
+            }
+        }
+
+        return file.toPath()
+    }
+
+    static byte[] createClass(String name, String... methods) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+
+        for (String method : methods) {
+            def visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, method, "()V", null, null)
+            visitor.visitCode()
+            visitor.visitInsn(Opcodes.RETURN)
+            visitor.visitMaxs(0, 1)
+            visitor.visitEnd()
+        }
+
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    static List<Map<String, Object>> entries(File jar) {
+        new ZipFile(jar).withCloseable { zip ->
+            zip.entries().collect { entry ->
+                def data = [name: entry.name, directory: entry.directory]
+
+                // Directories are created when writing, their timestamps are the current time
+                if (!entry.directory) {
+                    data.sha256 = zip.getInputStream(entry).withCloseable { Hashing.sha256().hashBytes(it.readAllBytes()).toString() }
+                    data.lastModified = entry.lastModifiedTime
+                    data.lastAccess = entry.lastAccessTime
+                    data.creation = entry.creationTime
+                }
+
+                return data
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import net.fabricmc.loom.configuration.processors.ClassVisitorJarProcessor
+import net.fabricmc.loom.configuration.processors.SinglePassJarTransformer
+import net.fabricmc.loom.util.Constants
+import net.fabricmc.loom.util.ZipUtils
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class SinglePassJarTransformerTest extends Specification {
+    private static final String CLASS_NAME = ClassEnvironmentTest.name.replace('.', '/')
+
+    def "processors are applied in order in a single pass"() {
+        given:
+            def jar = createJar()
+            def first = new InterfaceAddingProcessor("test/First")
+            def second = new InterfaceAddingProcessor("test/Second")
+
+        when:
+            def count = SinglePassJarTransformer.transform(jar, [first, second], [
+                    "test.txt": { bytes -> "transformed".getBytes(StandardCharsets.UTF_8) } as ZipUtils.UnsafeUnaryOperator<byte[]>
+            ])
+            def interfaces = new ClassReader(ZipUtils.unpack(jar, CLASS_NAME + ".class")).interfaces
+
+        then:
+            count == 4
+            interfaces.toList().takeRight(2) == ["test/First", "test/Second"]
+            new String(ZipUtils.unpack(jar, "test.txt"), StandardCharsets.UTF_8) == "transformed"
+            new String(ZipUtils.unpack(jar, "untouched.txt"), StandardCharsets.UTF_8) == "untouched"
+            new String(ZipUtils.unpack(jar, "test/First.txt"), StandardCharsets.UTF_8) == "extra"
+    }
+
+    def "nothing to do"() {
+        given:
+            def jar = createJar()
+            def lastModified = jar.toFile().lastModified()
+
+        when:
+            def count = SinglePassJarTransformer.transform(jar, [new InterfaceAddingProcessor(null)], [:])
+
+        then:
+            count == 0
+            jar.toFile().lastModified() == lastModified
+    }
+
+    def "patch re-derives classes from the original jar"() {
+        given:
+            def original = createJar()
+            def jar = createJar()
+            SinglePassJarTransformer.transform(jar, [new InterfaceAddingProcessor("test/First")], [:])
+
+        when:
+            SinglePassJarTransformer.patch(jar, original, [CLASS_NAME, "test/Missing"] as Set, [new InterfaceAddingProcessor("test/Second")], [:])
+            def interfaces = new ClassReader(ZipUtils.unpack(jar, CLASS_NAME + ".class")).interfaces
+
+        then:
+            !interfaces.contains("test/First")
+            interfaces.contains("test/Second")
+            new String(ZipUtils.unpack(jar, "test/Second.txt"), StandardCharsets.UTF_8) == "extra"
+            !ZipUtils.contains(jar, "test/Missing.class")
+    }
+
+    static Path createJar() {
+        def jar = File.createTempFile("loom-single-pass", ".jar")
+
+        new ZipOutputStream(new FileOutputStream(jar)).withCloseable { out ->
+            out.putNextEntry(new ZipEntry(CLASS_NAME + ".class"))
+            out.write(ConstantPoolScannerTest.getBytes(ClassEnvironmentTest))
+            out.closeEntry()
+
+            out.putNextEntry(new ZipEntry("test.txt"))
+            out.write("test".getBytes(StandardCharsets.UTF_8))
+            out.closeEntry()
+
+            out.putNextEntry(new ZipEntry("untouched.txt"))
+            out.write("untouched".getBytes(StandardCharsets.UTF_8))
+            out.closeEntry()
+        }
+
+        return jar.toPath()
+    }
+
+    private static class InterfaceAddingProcessor implements ClassVisitorJarProcessor {
+        final String iface
+
+        InterfaceAddingProcessor(String iface) {
+            this.iface = iface
+        }
+
+        @Override
+        String getId() {
+            return "test:" + iface
+        }
+
+        @Override
+        void setup() {
+        }
+
+        @Override
+        Set<String> getTargetClasses() {
+            return iface == null ? [] as Set : [CLASS_NAME] as Set
+        }
+
+        @Override
+        ClassVisitor createClassVisitor(String className, ClassVisitor next) {
+            return new ClassVisitor(Constants.ASM_VERSION, next) {
+                @Override
+                void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                    super.visit(version, access, name, signature, superName, (interfaces.toList() + iface) as String[])
+                }
+            }
+        }
+
+        @Override
+        Map<String, byte[]> getExtraFiles() {
+            return iface == null ? [:] : [(iface + ".txt"): "extra".getBytes(StandardCharsets.UTF_8)]
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.forge
+
+import net.fabricmc.loom.util.srg.Tsrg2Merger
+import net.fabricmc.loom.util.srg.Tsrg2Writer
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+import spock.lang.Specification
+
+class Tsrg2MergerTest extends Specification {
+    def "merge srg with mojmap"() {
+        def srg = read("""tsrg2 obf srg id
+a net/minecraft/src/C_1_ 1
+\tb f_2_ 2
+\tc (I)V m_3_ 3
+\t\t1 o p_4_ 4
+""")
+        def mojmap = read("""tsrg2 official named
+a net/minecraft/Foo
+\tb I bar
+\tc (I)V baz
+""")
+
+        when:
+            def merged = Tsrg2Merger.merge(srg, mojmap)
+            def full = new StringWriter()
+            Tsrg2Writer.write(merged, full, true)
+            def trimmed = new StringWriter()
+            Tsrg2Writer.write(merged, trimmed, false)
+
+        then:
+            full.toString() == """tsrg2 obf srg
+a net/minecraft/Foo
+\tc (I)V m_3_
+\t\t1 o p_4_
+\tb I f_2_
+"""
+            trimmed.toString() == """tsrg2 obf srg
+a net/minecraft/Foo
+\tc (I)V m_3_
+\tb I f_2_
+"""
+    }
+
+    private static MemoryMappingTree read(String content) {
+        def tree = new MemoryMappingTree()
+        MappingReader.read(new StringReader(content), tree)
+        return tree
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2022 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.layeredmappings
+
+import net.fabricmc.loom.configuration.providers.mappings.CacheableMappingLayer
+import net.fabricmc.loom.configuration.providers.mappings.MappingLayerCache
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.MappingVisitor
+import net.fabricmc.mappingio.format.MappingFormat
+import net.fabricmc.mappingio.format.Tiny2Writer
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+import spock.lang.Specification
+
+class MappingLayerCacheTest extends Specification {
+    static final String MAPPINGS = """tiny\t2\t0\tofficial\tnamed
+c\ta\tpkg/Example
+\tc\tAn example class
+\tf\tI\tb\tcount
+\tm\t(La;)V\tc\tcopy
+\t\tc\tCopies from another example
+\t\tp\t1\tother
+\t\t\tc\tThe other example
+\tm\t()V\td\trun
+c\tb\tpkg/Other
+"""
+
+    def "replays the visited output from the cache"() {
+        given:
+            def cacheDir = File.createTempDir().toPath()
+            def layer = new TestLayer(key: "test")
+            def cache = new MappingLayerCache(cacheDir, false)
+
+        when:
+            def uncached = new MemoryMappingTree()
+            cache.visit(layer, uncached)
+            def cached = new MemoryMappingTree()
+            cache.visit(layer, cached)
+
+        then:
+            layer.visits == 1
+            layer.cacheHits == 1
+            getTiny(cached) == getTiny(uncached)
+            getTiny(cached) == getTiny(read(MAPPINGS))
+    }
+
+    def "refresh and key changes visit the layer again"() {
+        given:
+            def cacheDir = File.createTempDir().toPath()
+            def layer = new TestLayer(key: "test")
+
+        when:
+            new MappingLayerCache(cacheDir, false).visit(layer, new MemoryMappingTree())
+            new MappingLayerCache(cacheDir, true).visit(layer, new MemoryMappingTree())
+            layer.key = "changed"
+            new MappingLayerCache(cacheDir, false).visit(layer, new MemoryMappingTree())
+
+        then:
+            layer.visits == 3
+            layer.cacheHits == 0
+    }
+
+    static MemoryMappingTree read(String mappings) {
+        def tree = new MemoryMappingTree()
+        MappingReader.read(new StringReader(mappings), MappingFormat.TINY_2, tree)
+        return tree
+    }
+
+    static String getTiny(MemoryMappingTree mappingTree) {
+        def sw = new StringWriter()
+        mappingTree.accept(new Tiny2Writer(sw, false))
+        return sw.toString()
+    }
+
+    static class TestLayer implements CacheableMappingLayer {
+        String key
+        int visits = 0
+        int cacheHits = 0
+
+        @Override
+        String getCacheKey() {
+            return key
+        }
+
+        @Override
+        void onCacheHit() {
+            cacheHits++
+        }
+
+        @Override
+        void visit(MappingVisitor mappingVisitor) {
+            visits++
+            MappingReader.read(new StringReader(MAPPINGS), MappingFormat.TINY_2, mappingVisitor)
+        }
+    }
+}